@@ -0,0 +1,123 @@
+package core;
+
+
+/**
+ * Rasterisiert Linien ohne Kantenglttung mit dem ganzzahligen Bresenham-Algorithmus.
+ * Der Fehlerterm wird fr den ersten Schritt innerhalb des Clip-Rechtecks in geschlossener Form berechnet,
+ * sodass eine Linie in jedem Ausschnitt exakt dieselben Pixel setzt wie bei vollstndiger Rasterisierung.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 03.01.2022
+ */
+public class BresenhamLineRasterizer implements ILineRasterizer
+{
+    // Koordinaten werden auf diesen Betrag begrenzt, damit die Fehlerterme nicht berlaufen
+    private static final float COORD_LIMIT = 1 << 20;
+    
+    /**
+     * Rasterisiert eine Linie mit dem Bresenham-Algorithmus in ein Pixel-Array
+     * @param pixels Pixel-Array, in das geschrieben wird
+     * @param width Breite des Bildes in Pixeln
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param rgb Farbe der Linie im Format 0xRRGGBB
+     * @param clipMinX kleinste beschreibbare X-Koordinate (inklusiv)
+     * @param clipMinY kleinste beschreibbare Y-Koordinate (inklusiv)
+     * @param clipMaxX grte beschreibbare X-Koordinate (exklusiv)
+     * @param clipMaxY grte beschreibbare Y-Koordinate (exklusiv)
+     */
+    public void rasterizeLine(int[] pixels, int width, float x1, float y1, float x2, float y2, int rgb, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY)
+    {
+        int ax = roundCoord(x1);
+        int ay = roundCoord(y1);
+        int bx = roundCoord(x2);
+        int by = roundCoord(y2);
+        
+        int dx = Math.abs(bx - ax);
+        int dy = Math.abs(by - ay);
+        boolean steep = dy > dx;
+        
+        // Haupt- und Nebenachse der Linie
+        int major = steep ? dy : dx;
+        int minor = steep ? dx : dy;
+        int majorStart = steep ? ay : ax;
+        int minorStart = steep ? ax : ay;
+        int majorStep = (steep ? by >= ay : bx >= ax) ? 1 : -1;
+        int minorStep = (steep ? bx >= ax : by >= ay) ? 1 : -1;
+        int majorClipMin = steep ? clipMinY : clipMinX;
+        int majorClipMax = steep ? clipMaxY : clipMaxX;
+        int minorClipMin = steep ? clipMinX : clipMinY;
+        int minorClipMax = steep ? clipMaxX : clipMaxY;
+        
+        // Schrittbereich [first, last], dessen Hauptkoordinaten im Clip-Rechteck liegen
+        int first, last;
+        if(majorStep > 0)
+        {
+            first = majorClipMin - majorStart;
+            last = majorClipMax - 1 - majorStart;
+        }
+        else
+        {
+            first = majorStart - (majorClipMax - 1);
+            last = majorStart - majorClipMin;
+        }
+        first = Math.max(first, 0);
+        last = Math.min(last, major);
+        if(first > last)
+        {
+            return;
+        }
+        
+        // Nebenkoordinate und Fehlerterm des ersten Schritts in geschlossener Form:
+        // n(j) = ceil((2 * j * minor - major) / (2 * major))
+        long twoMajor = 2L * major;
+        long twoMinor = 2L * minor;
+        long n = (major == 0) ? 0 : -Math.floorDiv(major - twoMinor * first, twoMajor);
+        long error = twoMinor * (first + 1) - major - twoMajor * n;
+        
+        for(int j = first; j <= last; j++)
+        {
+            int majorCoord = majorStart + j * majorStep;
+            int minorCoord = minorStart + (int)n * minorStep;
+            
+            if(minorCoord >= minorClipMin && minorCoord < minorClipMax)
+            {
+                int x = steep ? minorCoord : majorCoord;
+                int y = steep ? majorCoord : minorCoord;
+                pixels[y * width + x] = rgb;
+            }
+            else if((minorStep > 0) ? minorCoord >= minorClipMax : minorCoord < minorClipMin)
+            {
+                // Die Linie hat das Clip-Rechteck endgltig verlassen
+                break;
+            }
+            
+            if(error > 0)
+            {
+                n++;
+                error -= twoMajor;
+            }
+            error += twoMinor;
+        }
+    }
+    
+    /**
+     * Rundet eine Koordinate auf den nchsten Pixel und begrenzt sie auf einen sicheren Wertebereich
+     * @param value Koordinate
+     * @return gerundete Koordinate
+     */
+    private static int roundCoord(float value)
+    {
+        if(!(value > -COORD_LIMIT))
+        {
+            return (int)-COORD_LIMIT;
+        }
+        if(value > COORD_LIMIT)
+        {
+            return (int)COORD_LIMIT;
+        }
+        return (int)Math.floor(value + 0.5f);
+    }
+}
@@ -0,0 +1,69 @@
+package core;
+
+
+/**
+ * Backend, das Linien in einem Befehlspuffer sammelt und sie am Ende des Frames in einem Durchlauf zeichnet.
+ * Dabei wird die Turtle vollstndig umgangen.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 02.01.2022
+ */
+public class CommandBufferRenderBackend implements IRenderBackend
+{
+    private LineCommandBuffer _buffer;
+    
+    // Ausstehende Fllfarbe, die vor den Linien gezeichnet wird (-1, falls keine)
+    private int _clearColor;
+    
+    /**
+     * Konstruiert ein neues Befehlspuffer-Backend
+     */
+    public CommandBufferRenderBackend()
+    {
+        _buffer = new LineCommandBuffer();
+        _clearColor = -1;
+    }
+    
+    /**
+     * Nimmt eine farbige Linie in den Befehlspuffer auf
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param color Farbe der Linie
+     */
+    public void drawLine(double x1, double y1, double x2, double y2, TurtleColor color)
+    {
+        _buffer.add(x1, y1, x2, y2, color.getID());
+    }
+    
+    /**
+     * Merkt die Fllfarbe fr das Ende des Frames vor.
+     * Bereits gesammelte Linien wrden bermalt und werden daher verworfen.
+     * @param r Rotkanal der Farbe [0, 255]
+     * @param g Grnkanal der Farbe [0, 255]
+     * @param b Blaukanal der Farbe [0, 255]
+     */
+    public void clear(int r, int g, int b)
+    {
+        _buffer.reset();
+        _clearColor = (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF);
+    }
+    
+    /**
+     * Zeichnet den gesamten Befehlspuffer in einem Durchlauf und zeigt den Frame an
+     */
+    public void present()
+    {
+        if(_clearColor != -1)
+        {
+            TurtleWelt.GLOBALEWELT.bildschirmEinfaerben((_clearColor >> 16) & 0xFF, (_clearColor >> 8) & 0xFF, _clearColor & 0xFF);
+            _clearColor = -1;
+        }
+        
+        TurtleWelt.GLOBALEWELT.zeichneLinien(_buffer);
+        _buffer.reset();
+        
+        TurtleWelt.GLOBALEWELT.tauschePuffer();
+    }
+}
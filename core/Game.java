@@ -26,6 +26,28 @@ public class Game
     // Wenn aktiv: Framezeit wird um DYNAMIC_FPS_FACTOR * frametime erhht, um den fertigen Frame lnger anzuzeigen
     public static final boolean DYNAMIC_FPS_CAPPING = false;
     public static final double DYNAMIC_FPS_FACTOR = 1.0;
+    // Backend, mit dem der Renderer Linien zeichnet
+    public static final RenderBackendType RENDER_BACKEND = RenderBackendType.RASTER;
+    // Wenn aktiv: Raster-Backends verteilen die Linien auf Bildschirmkacheln und rasterisieren diese parallel
+    public static final boolean MULTITHREADED_RASTERIZATION = true;
+    // Wenn aktiv: Mapgeometrie, die vollstndig hinter Wnden liegt, wird nicht gezeichnet
+    public static final boolean OCCLUSION_CULLING = true;
+    // Wenn aktiv: Statische Mapgeometrie wird beim Laden zu vortransformierten Abschnitten zusammengefasst
+    public static final boolean STATIC_GEOMETRY_BATCHING = true;
+    // Wenn aktiv: Importierte Meshes werden als Binrdatei neben der .obj-Datei zwischengespeichert
+    public static final boolean USE_MESH_CACHE = true;
+    // Wenn aktiv: Die Geometrie geladener Maps wird als kompiliertes Level zwischengespeichert und beim nchsten Laden bernommen
+    public static final boolean USE_LEVEL_CACHE = true;
+    // Wenn aktiv: Die Geometrie der Rume wird beim Laden einer Map parallel auf dem gemeinsamen ForkJoinPool erzeugt
+    public static final boolean PARALLEL_ROOM_POPULATION = true;
+    // Wenn aktiv: Nur Rume bis ROOM_STREAMING_DISTANCE Tren vom aktiven Raum entfernt werden im Speicher gehalten und im Hintergrund nachgeladen.
+    // Nur fr Maps gedacht, deren Geometrie nicht vollstndig in den Speicher passt: Die Map wird dann bei jedem Laden aus den CSV-Dateien gelesen,
+    // das kompilierte Level (USE_LEVEL_CACHE) und die parallele Erzeugung (PARALLEL_ROOM_POPULATION) werden nicht verwendet.
+    public static final boolean ROOM_STREAMING = false;
+    public static final int ROOM_STREAMING_DISTANCE = 2;
+    // Speicherbudget in Bytes, bis zu dem geladene Meshes bzw. Soundquellen im Speicher gehalten werden (LRU)
+    public static final long MESH_MEMORY_BUDGET = 64L * 1024L * 1024L;
+    public static final long SOUND_MEMORY_BUDGET = 64L * 1024L * 1024L;
 
     /**
      * Konstruktor fr Objekte der Klasse Game
@@ -79,6 +101,9 @@ public class Game
             }
             _state.textRenderer.write(new Vector2(10,10), 5, "fps: " + (int)Math.round(_fps), TurtleColor.RED);
             
+            // Fertigen Frame einmalig anzeigen
+            _state.renderer.present();
+            
             // Bildrate auf maximal FPS_CAP (Konstante) begrenzen
             double currentFrameTime = _frameCapTimeManager.getDeltaTime();
             if(CAP_FRAMERATE)
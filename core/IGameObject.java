@@ -33,6 +33,13 @@ public interface IGameObject
      */
     public ICollider getCollider();
     
+    /**
+     * Gibt die Hllkugel des GameObjects im Worldspace zurck, falls es eine hat.
+     * Sie wird fr das Frustum Culling genutzt, GameObjects ohne Hllkugel werden nie verworfen.
+     * @return (optional) Hllkugel des GameObjects im Worldspace
+     */
+    public BoundingSphere getBounds();
+    
     /**
      * Gibt die Position zurck
      * @return Position
@@ -0,0 +1,29 @@
+package core;
+
+
+/**
+ * Interface fr Rasterisierer, die Linien direkt in ein Pixel-Array (Format 0xRRGGBB, zeilenweise) schreiben.
+ * Jede Linie wird auf ein Clip-Rechteck beschrnkt. Die innerhalb des Rechtecks gesetzten Pixel mssen unabhngig
+ * von dessen Gre immer dieselben sein, damit ein Bild auch in Kacheln aufgeteilt identisch gerastert werden kann.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 03.01.2022
+ */
+public interface ILineRasterizer
+{
+    /**
+     * Rasterisiert eine Linie in ein Pixel-Array
+     * @param pixels Pixel-Array, in das geschrieben wird
+     * @param width Breite des Bildes in Pixeln
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param rgb Farbe der Linie im Format 0xRRGGBB
+     * @param clipMinX kleinste beschreibbare X-Koordinate (inklusiv)
+     * @param clipMinY kleinste beschreibbare Y-Koordinate (inklusiv)
+     * @param clipMaxX grte beschreibbare X-Koordinate (exklusiv)
+     * @param clipMaxY grte beschreibbare Y-Koordinate (exklusiv)
+     */
+    public void rasterizeLine(int[] pixels, int width, float x1, float y1, float x2, float y2, int rgb, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY);
+}
@@ -0,0 +1,34 @@
+package core;
+
+
+/**
+ * Interface fr Zeichen-Backends des Renderers, die zweidimensionale Linien im Screenspace auf die Zeichenflche bringen
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 02.01.2022
+ */
+public interface IRenderBackend
+{
+    /**
+     * Zeichnet eine farbige Linie zwischen zwei Punkten im zweidimensionalen Screenspace
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param color Farbe der Linie
+     */
+    public void drawLine(double x1, double y1, double x2, double y2, TurtleColor color);
+    
+    /**
+     * Leert das Bild und frbt es in einer bestimmten Farbe
+     * @param r Rotkanal der Farbe [0, 255]
+     * @param g Grnkanal der Farbe [0, 255]
+     * @param b Blaukanal der Farbe [0, 255]
+     */
+    public void clear(int r, int g, int b);
+    
+    /**
+     * Bringt alle bisher gezeichneten Linien des Frames auf die Zeichenflche und zeigt den Frame an
+     */
+    public void present();
+}
@@ -0,0 +1,104 @@
+package core;
+
+
+/**
+ * Befehlspuffer, der Linien eines Frames in primitiven Arrays sammelt, damit sie gesammelt in einem Durchlauf gezeichnet werden knnen.
+ * Pro Linie werden die Koordinaten (x1, y1, x2, y2) im Koordinaten-Array und die ID der Farbe im Farb-Array abgelegt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 02.01.2022
+ */
+public class LineCommandBuffer
+{
+    private static final int INITIAL_CAPACITY = 4096;
+    
+    // Koordinaten aller Linien, je vier Eintrge pro Linie
+    private float[] _coords;
+    // Farb-IDs aller Linien, je ein Eintrag pro Linie
+    private int[] _colors;
+    // Anzahl der gespeicherten Linien
+    private int _size;
+    
+    /**
+     * Konstruiert einen leeren Befehlspuffer
+     */
+    public LineCommandBuffer()
+    {
+        _coords = new float[INITIAL_CAPACITY * 4];
+        _colors = new int[INITIAL_CAPACITY];
+        _size = 0;
+    }
+    
+    /**
+     * Fgt eine Linie an das Ende des Puffers an
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param colorID ID der Farbe (siehe TurtleColor.getID())
+     */
+    public void add(double x1, double y1, double x2, double y2, int colorID)
+    {
+        if(_size == _colors.length)
+        {
+            grow();
+        }
+        
+        int offset = _size * 4;
+        _coords[offset] = (float)x1;
+        _coords[offset + 1] = (float)y1;
+        _coords[offset + 2] = (float)x2;
+        _coords[offset + 3] = (float)y2;
+        _colors[_size] = colorID;
+        _size++;
+    }
+    
+    /**
+     * Verwirft alle gespeicherten Linien, ohne Speicher freizugeben
+     */
+    public void reset()
+    {
+        _size = 0;
+    }
+    
+    /**
+     * Gibt die Anzahl der gespeicherten Linien zurck
+     * @return Anzahl der Linien
+     */
+    public int size()
+    {
+        return _size;
+    }
+    
+    /**
+     * Gibt eine Referenz auf das Koordinaten-Array zurck (je vier Eintrge pro Linie)
+     * @return Koordinaten-Array, nur die ersten 4 * size() Eintrge sind gltig
+     */
+    public float[] getCoords()
+    {
+        return _coords;
+    }
+    
+    /**
+     * Gibt eine Referenz auf das Farb-Array zurck (ein Eintrag pro Linie)
+     * @return Farb-Array, nur die ersten size() Eintrge sind gltig
+     */
+    public int[] getColors()
+    {
+        return _colors;
+    }
+    
+    /**
+     * Verdoppelt die Kapazitt des Puffers
+     */
+    private void grow()
+    {
+        float[] coords = new float[_coords.length * 2];
+        System.arraycopy(_coords, 0, coords, 0, _size * 4);
+        _coords = coords;
+        
+        int[] colors = new int[_colors.length * 2];
+        System.arraycopy(_colors, 0, colors, 0, _size);
+        _colors = colors;
+    }
+}
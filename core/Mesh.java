@@ -6,47 +6,186 @@ import javafx.util.*;
 
 /**
  * Eine Speicherklasse fr ein dreidimensionales Modell.
- * Das Mesh besteht aus einer Liste an Vertices, also Punkten im dreidimensionalen Raum,
- * die ber eine Liste an Indexpaaren zu dreidimensionalen Linien verknpft werden.
+ * Das Mesh besteht aus Vertices, also Punkten im dreidimensionalen Raum,
+ * die ber Indexpaare zu dreidimensionalen Linien verknpft werden.
+ * Beides wird in primitiven Arrays gespeichert: die Koordinaten als (x, y, z)-Tripel
+ * und die Linien als Paare nullbasierter Vertexindizes.
+ * Meshes sind unvernderlich und werden von allen GameObjects, Tiles und Partikeln, die sie verwenden, geteilt.
  * 
  * @author Lasse Huber-Saffer
- * @version 22.12.2021
+ * @version 07.01.2022
  */
 public class Mesh
 {
-    public ArrayList<Vector3> vertices;
-    public ArrayList<Pair<Integer, Integer>> lineIndices;
+    // Geteiltes leeres Mesh
+    public static final Mesh EMPTY = new Mesh();
+    
+    // Koordinaten aller Vertices, je drei Eintrge (x, y, z) pro Vertex
+    private final double[] _positions;
+    // Nullbasierte Vertexindizes aller Linien, je zwei Eintrge pro Linie
+    private final int[] _edges;
+    // Hllkugel aller Vertices im Modelspace
+    private final BoundingSphere _bounds;
 
     /**
-     * Konstruktor fr Objekte der Klasse Mesh
+     * Konstruktor fr ein leeres Mesh
      */
     public Mesh()
     {
-        vertices = new ArrayList<Vector3>();
-        lineIndices = new ArrayList<Pair<Integer, Integer>>();
+        _positions = new double[0];
+        _edges = new int[0];
+        _bounds = BoundingSphere.fromPositions(_positions);
     }
     
     /**
-     * Kopie-Konstruktor
-     * @param copy zu kopierendes Mesh. Wenn null, wird ein leeres Mesh erzeugt.
+     * Konstruiert ein Mesh aus primitiven Arrays. Die Arrays werden bernommen und nicht kopiert.
+     * @param positions Koordinaten der Vertices, je drei Eintrge (x, y, z) pro Vertex
+     * @param edges nullbasierte Vertexindizes der Linien, je zwei Eintrge pro Linie
      */
-    public Mesh(Mesh copy)
-    {        
-        vertices = new ArrayList<Vector3>();
-        lineIndices = new ArrayList<Pair<Integer, Integer>>();
+    public Mesh(double[] positions, int[] edges)
+    {
+        this(positions, edges, null);
+    }
+    
+    /**
+     * Konstruiert ein Mesh aus primitiven Arrays und einer bereits bekannten Hllkugel (z.B. aus einem Cache).
+     * Die Arrays werden bernommen und nicht kopiert.
+     * @param positions Koordinaten der Vertices, je drei Eintrge (x, y, z) pro Vertex
+     * @param edges nullbasierte Vertexindizes der Linien, je zwei Eintrge pro Linie
+     * @param bounds Hllkugel aller Vertices im Modelspace, wird bei null neu berechnet
+     */
+    public Mesh(double[] positions, int[] edges, BoundingSphere bounds)
+    {
+        if(positions == null || edges == null)
+        {
+            throw new IllegalArgumentException("mesh arrays must not be null");
+        }
+        if(positions.length % 3 != 0)
+        {
+            throw new IllegalArgumentException("position array length must be a multiple of 3, was " + positions.length);
+        }
+        if(edges.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("edge array length must be a multiple of 2, was " + edges.length);
+        }
         
-        if(copy != null)
+        int vertexCount = positions.length / 3;
+        for(int i = 0; i < edges.length; i++)
         {
-            for(int i = 0; i < copy.vertices.size(); i++)
+            if(edges[i] < 0 || edges[i] >= vertexCount)
             {
-                vertices.add(new Vector3(copy.vertices.get(i)));
+                throw new IllegalArgumentException("edge references vertex " + edges[i] + ", but mesh only has " + vertexCount + " vertices");
             }
-            
-            for(int i = 0; i < copy.lineIndices.size(); i++)
-            {
-                Pair<Integer, Integer> linePair = copy.lineIndices.get(i);
-                lineIndices.add(new Pair<Integer, Integer>(linePair.getKey(), linePair.getValue()));
-            } 
         }
+        
+        _positions = positions;
+        _edges = edges;
+        _bounds = (bounds != null) ? bounds : BoundingSphere.fromPositions(_positions);
+    }
+    
+    /**
+     * Kompatibilitts-Konstruktor fr das bisherige Listenformat
+     * @param vertices Liste der Vertices
+     * @param lineIndices Liste der Linien als Paare einsbasierter Vertexindizes (wie im Wavefront-Format)
+     */
+    public Mesh(List<Vector3> vertices, List<Pair<Integer, Integer>> lineIndices)
+    {
+        this(toPositionArray(vertices), toEdgeArray(lineIndices));
+    }
+    
+    /**
+     * Gibt das gegebene Mesh oder, falls es null ist, das geteilte leere Mesh zurck
+     * @param mesh Mesh oder null
+     * @return mesh, falls nicht null, ansonsten Mesh.EMPTY
+     */
+    public static Mesh orEmpty(Mesh mesh)
+    {
+        return (mesh != null) ? mesh : EMPTY;
+    }
+    
+    /**
+     * Gibt die Anzahl der Vertices zurck
+     * @return Anzahl der Vertices
+     */
+    public int getVertexCount()
+    {
+        return _positions.length / 3;
+    }
+    
+    /**
+     * Gibt die Anzahl der Linien zurck
+     * @return Anzahl der Linien
+     */
+    public int getEdgeCount()
+    {
+        return _edges.length / 2;
+    }
+    
+    /**
+     * Gibt eine Referenz auf das Koordinaten-Array zurck (je drei Eintrge (x, y, z) pro Vertex)
+     * @return Koordinaten-Array (nicht verndern)
+     */
+    public double[] getPositions()
+    {
+        return _positions;
+    }
+    
+    /**
+     * Gibt eine Referenz auf das Linien-Array zurck (je zwei nullbasierte Vertexindizes pro Linie)
+     * @return Linien-Array (nicht verndern)
+     */
+    public int[] getEdges()
+    {
+        return _edges;
+    }
+    
+    /**
+     * Gibt die beim Erstellen berechnete Hllkugel des Meshs im Modelspace zurck
+     * @return Hllkugel aller Vertices
+     */
+    public BoundingSphere getBounds()
+    {
+        return _bounds;
+    }
+    
+    /**
+     * Gibt einen Vertex als Vektor zurck
+     * @param index nullbasierter Index des Vertex
+     * @return neuer Vektor mit den Koordinaten des Vertex
+     */
+    public Vector3 getVertex(int index)
+    {
+        return new Vector3(_positions[index * 3], _positions[index * 3 + 1], _positions[index * 3 + 2]);
+    }
+    
+    /**
+     * Wandelt eine Liste von Vertices in ein Koordinaten-Array um
+     */
+    private static double[] toPositionArray(List<Vector3> vertices)
+    {
+        double[] result = new double[vertices.size() * 3];
+        for(int i = 0; i < vertices.size(); i++)
+        {
+            Vector3 v = vertices.get(i);
+            result[i * 3] = v.getX();
+            result[i * 3 + 1] = v.getY();
+            result[i * 3 + 2] = v.getZ();
+        }
+        return result;
+    }
+    
+    /**
+     * Wandelt eine Liste einsbasierter Indexpaare in ein nullbasiertes Linien-Array um
+     */
+    private static int[] toEdgeArray(List<Pair<Integer, Integer>> lineIndices)
+    {
+        int[] result = new int[lineIndices.size() * 2];
+        for(int i = 0; i < lineIndices.size(); i++)
+        {
+            Pair<Integer, Integer> line = lineIndices.get(i);
+            result[i * 2] = line.getKey() - 1;
+            result[i * 2 + 1] = line.getValue() - 1;
+        }
+        return result;
     }
 }
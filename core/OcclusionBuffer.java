@@ -0,0 +1,325 @@
+package core;
+
+import maths.*;
+import java.util.*;
+
+/**
+ * Grober Software-Tiefenpuffer zur Verdeckungsprfung (Occlusion Culling).
+ * Verdeckende Flchen (z.B. Wnde) werden mit geringer Auflsung rasterisiert.
+ * Objekte, deren Hllkugel vollstndig hinter diesen Flchen liegt, mssen nicht gezeichnet werden.
+ * Gespeichert wird je Pixel der Kehrwert der Sichtdistanz, da dieser im Screen Space linear interpoliert werden kann.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 06.01.2022
+ */
+public class OcclusionBuffer
+{
+    /**
+     * Standardauflsung des Puffers (Breite und Hhe in Pixeln)
+     */
+    public static final int DEFAULT_SIZE = 128;
+    
+    private final int _size;
+    private final float[] _inverseDepth;
+    
+    // Zeilen der View-Projection-Matrix, die fr x, y und w bentigt werden
+    private final double[] _rowX = new double[4];
+    private final double[] _rowY = new double[4];
+    private final double[] _rowW = new double[4];
+    private double _wScale;
+    private double _near;
+    
+    // Zwischenspeicher fr das Clipping der Flchen (x, y, w je Vertex)
+    private double[] _polygon = new double[3 * 8];
+    private double[] _clipped = new double[3 * 8];
+    
+    /**
+     * Konstruktor fr Objekte der Klasse OcclusionBuffer
+     * @param size Breite und Hhe des Puffers in Pixeln
+     */
+    public OcclusionBuffer(int size)
+    {
+        if(size <= 0)
+        {
+            throw new IllegalArgumentException("occlusion buffer size must be positive");
+        }
+        
+        _size = size;
+        _inverseDepth = new float[size * size];
+    }
+    
+    /**
+     * Leert den Puffer und bernimmt die Kameradaten eines Renderkontexts
+     * @param context Renderkontext, aus dessen Perspektive geprft wird
+     */
+    public void clear(RenderContext context)
+    {
+        Matrix4 viewProjection = context.getViewProjectionMatrix(false);
+        for(int i = 0; i < 4; i++)
+        {
+            _rowX[i] = viewProjection.get(i, 0);
+            _rowY[i] = viewProjection.get(i, 1);
+            _rowW[i] = viewProjection.get(i, 3);
+        }
+        _wScale = Math.sqrt(_rowW[0] * _rowW[0] + _rowW[1] * _rowW[1] + _rowW[2] * _rowW[2]);
+        _near = context.getNear();
+        
+        Arrays.fill(_inverseDepth, 0.0f);
+    }
+    
+    /**
+     * Rasterisiert ein ebenes, konvexes Viereck als verdeckende Flche in den Puffer
+     * @param a erste Ecke im World Space
+     * @param b zweite Ecke im World Space
+     * @param c dritte Ecke im World Space
+     * @param d vierte Ecke im World Space
+     */
+    public void addOccluder(Vector3 a, Vector3 b, Vector3 c, Vector3 d)
+    {
+        toClipSpace(a, 0);
+        toClipSpace(b, 1);
+        toClipSpace(c, 2);
+        toClipSpace(d, 3);
+        
+        int count = clipNear(4);
+        if(count < 3)
+        {
+            return;
+        }
+        
+        rasterizePolygon(count);
+    }
+    
+    /**
+     * Prft, ob eine Hllkugel vollstndig von den bisher rasterisierten Flchen verdeckt wird
+     * @param bounds Hllkugel im World Space
+     * @return true, wenn das Objekt sicher verdeckt ist, false, wenn es sichtbar sein kann oder keine Hlle hat
+     */
+    public boolean isOccluded(BoundingSphere bounds)
+    {
+        if(bounds == null)
+        {
+            return false;
+        }
+        
+        double x = bounds.getX(), y = bounds.getY(), z = bounds.getZ(), r = bounds.getRadius();
+        
+        // Geringste Sichtdistanz der Kugel; schneidet sie die Near-Ebene, gilt sie als sichtbar
+        double nearestDistance = -(_rowW[0] * x + _rowW[1] * y + _rowW[2] * z + _rowW[3]) - r * _wScale;
+        if(nearestDistance <= _near)
+        {
+            return false;
+        }
+        
+        // Bildschirmrechteck aus den Ecken des umschlieenden Wrfels bestimmen
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int corner = 0; corner < 8; corner++)
+        {
+            double cx = x + (((corner & 1) == 0) ? -r : r);
+            double cy = y + (((corner & 2) == 0) ? -r : r);
+            double cz = z + (((corner & 4) == 0) ? -r : r);
+            
+            double w = _rowW[0] * cx + _rowW[1] * cy + _rowW[2] * cz + _rowW[3];
+            if(-w <= _near)
+            {
+                return false;
+            }
+            
+            double sx = toScreen((_rowX[0] * cx + _rowX[1] * cy + _rowX[2] * cz + _rowX[3]) / w);
+            double sy = toScreen((_rowY[0] * cx + _rowY[1] * cy + _rowY[2] * cz + _rowY[3]) / w);
+            minX = Math.min(minX, sx);
+            minY = Math.min(minY, sy);
+            maxX = Math.max(maxX, sx);
+            maxY = Math.max(maxY, sy);
+        }
+        
+        // Um einen Pixel erweitern, da die Flchen nur an den Pixelmitten abgetastet werden
+        int x0 = (int)Math.floor(minX) - 1, y0 = (int)Math.floor(minY) - 1;
+        int x1 = (int)Math.floor(maxX) + 1, y1 = (int)Math.floor(maxY) + 1;
+        
+        // Auerhalb des Bildschirms entscheidet das Frustum Culling
+        if(x1 < 0 || y1 < 0 || x0 >= _size || y0 >= _size)
+        {
+            return false;
+        }
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, _size - 1);
+        y1 = Math.min(y1, _size - 1);
+        
+        // Verdeckt, wenn jede Flche im Rechteck nher liegt als der nchste Punkt der Kugel
+        float inverseNearest = (float)(1.0 / nearestDistance);
+        for(int py = y0; py <= y1; py++)
+        {
+            int row = py * _size;
+            for(int px = x0; px <= x1; px++)
+            {
+                if(_inverseDepth[row + px] <= inverseNearest)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Gibt die Breite und Hhe des Puffers zurck
+     * @return Breite und Hhe in Pixeln
+     */
+    public int getSize()
+    {
+        return _size;
+    }
+    
+    /**
+     * Transformiert einen Punkt in den Clipspace und legt ihn im Polygon-Zwischenspeicher ab
+     * @param p Punkt im World Space
+     * @param index Index des Vertex im Polygon
+     */
+    private void toClipSpace(Vector3 p, int index)
+    {
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        _polygon[index * 3]     = _rowX[0] * x + _rowX[1] * y + _rowX[2] * z + _rowX[3];
+        _polygon[index * 3 + 1] = _rowY[0] * x + _rowY[1] * y + _rowY[2] * z + _rowY[3];
+        _polygon[index * 3 + 2] = _rowW[0] * x + _rowW[1] * y + _rowW[2] * z + _rowW[3];
+    }
+    
+    /**
+     * Schneidet das Polygon im Zwischenspeicher an der Near-Ebene ab (Sutherland-Hodgman).
+     * Das Ergebnis steht anschlieend wieder im Polygon-Zwischenspeicher.
+     * @param count Anzahl der Vertices
+     * @return Anzahl der Vertices nach dem Clipping
+     */
+    private int clipNear(int count)
+    {
+        int result = 0;
+        for(int i = 0; i < count; i++)
+        {
+            int j = (i + 1) % count;
+            double di = -_polygon[i * 3 + 2] - _near;
+            double dj = -_polygon[j * 3 + 2] - _near;
+            
+            if(di >= 0.0)
+            {
+                _clipped[result * 3]     = _polygon[i * 3];
+                _clipped[result * 3 + 1] = _polygon[i * 3 + 1];
+                _clipped[result * 3 + 2] = _polygon[i * 3 + 2];
+                result++;
+            }
+            if((di >= 0.0) != (dj >= 0.0))
+            {
+                double t = di / (di - dj);
+                for(int k = 0; k < 3; k++)
+                {
+                    _clipped[result * 3 + k] = _polygon[i * 3 + k] + t * (_polygon[j * 3 + k] - _polygon[i * 3 + k]);
+                }
+                result++;
+            }
+        }
+        
+        double[] temp = _polygon;
+        _polygon = _clipped;
+        _clipped = temp;
+        return result;
+    }
+    
+    /**
+     * Rasterisiert das konvexe Polygon im Zwischenspeicher, das vollstndig vor der Near-Ebene liegt
+     * @param count Anzahl der Vertices
+     */
+    private void rasterizePolygon(int count)
+    {
+        // Projektion in Pufferkoordinaten, die dritte Komponente wird zur inversen Distanz
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < count; i++)
+        {
+            double w = _polygon[i * 3 + 2];
+            _polygon[i * 3]     = toScreen(_polygon[i * 3] / w);
+            _polygon[i * 3 + 1] = toScreen(_polygon[i * 3 + 1] / w);
+            _polygon[i * 3 + 2] = -1.0 / w;
+            minX = Math.min(minX, _polygon[i * 3]);
+            minY = Math.min(minY, _polygon[i * 3 + 1]);
+            maxX = Math.max(maxX, _polygon[i * 3]);
+            maxY = Math.max(maxY, _polygon[i * 3 + 1]);
+        }
+        
+        // Orientierung des Polygons (doppelte vorzeichenbehaftete Flche)
+        double area = 0.0;
+        for(int i = 0; i < count; i++)
+        {
+            int j = (i + 1) % count;
+            area += _polygon[i * 3] * _polygon[j * 3 + 1] - _polygon[j * 3] * _polygon[i * 3 + 1];
+        }
+        if(Math.abs(area) < 1e-9)
+        {
+            return;
+        }
+        double orientation = Math.signum(area);
+        
+        // Ebene der inversen Distanz im Screen Space aus dem grten Fcherdreieck bestimmen
+        double ax = _polygon[0], ay = _polygon[1], az = _polygon[2];
+        double bestCross = 0.0, planeX = 0.0, planeY = 0.0;
+        for(int i = 1; i < count - 1; i++)
+        {
+            double ux = _polygon[i * 3] - ax, uy = _polygon[i * 3 + 1] - ay, uz = _polygon[i * 3 + 2] - az;
+            double vx = _polygon[(i + 1) * 3] - ax, vy = _polygon[(i + 1) * 3 + 1] - ay, vz = _polygon[(i + 1) * 3 + 2] - az;
+            double cross = ux * vy - uy * vx;
+            if(Math.abs(cross) > Math.abs(bestCross))
+            {
+                bestCross = cross;
+                planeX = (uz * vy - vz * uy) / cross;
+                planeY = (vz * ux - uz * vx) / cross;
+            }
+        }
+        if(bestCross == 0.0)
+        {
+            return;
+        }
+        
+        // Pixel, deren Mittelpunkt im Polygon liegt
+        int x0 = Math.max((int)Math.ceil(minX - 0.5), 0), x1 = Math.min((int)Math.floor(maxX - 0.5), _size - 1);
+        int y0 = Math.max((int)Math.ceil(minY - 0.5), 0), y1 = Math.min((int)Math.floor(maxY - 0.5), _size - 1);
+        
+        for(int py = y0; py <= y1; py++)
+        {
+            double sy = py + 0.5;
+            int row = py * _size;
+            for(int px = x0; px <= x1; px++)
+            {
+                double sx = px + 0.5;
+                
+                boolean inside = true;
+                for(int i = 0; i < count && inside; i++)
+                {
+                    int j = (i + 1) % count;
+                    double ex = _polygon[j * 3] - _polygon[i * 3], ey = _polygon[j * 3 + 1] - _polygon[i * 3 + 1];
+                    double edge = ex * (sy - _polygon[i * 3 + 1]) - ey * (sx - _polygon[i * 3]);
+                    inside = edge * orientation >= 0.0;
+                }
+                if(!inside)
+                {
+                    continue;
+                }
+                
+                float inverseDepth = (float)(az + planeX * (sx - ax) + planeY * (sy - ay));
+                if(inverseDepth > _inverseDepth[row + px])
+                {
+                    _inverseDepth[row + px] = inverseDepth;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Wandelt eine Koordinate in Normalized Device Coordinates in eine Pufferkoordinate um
+     * @param ndc Koordinate in [-1, 1]
+     * @return Koordinate in [0, Gre]
+     */
+    private double toScreen(double ndc)
+    {
+        return (ndc + 1.0) * 0.5 * _size;
+    }
+}
@@ -44,7 +44,7 @@ public class Particle implements IParticle
     public Particle(Room room, Mesh mesh, TurtleColor color, Vector3 position, Vector3 rotation, Vector3 scale, Vector3 velocity, Vector3 gravity, Double lifeTime)
     {
         _room = room;
-        _mesh = new Mesh(mesh);
+        _mesh = Mesh.orEmpty(mesh);
         _position = new Vector3(position);
         _rotation = new Vector3(rotation);
         _scale = new Vector3(scale);
@@ -187,6 +187,14 @@ public class Particle implements IParticle
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return _mesh.getBounds().transform(getModelMatrix());
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -0,0 +1,119 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Backend, das Linien in einem Befehlspuffer sammelt und sie am Ende des Frames mit einem Rasterisierer
+ * direkt in das Pixel-Array des Hintergrundpuffers schreibt, ohne Java2D zu verwenden.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 03.01.2022
+ */
+public class RasterRenderBackend implements IRenderBackend
+{
+    private LineCommandBuffer _buffer;
+    private ILineRasterizer _rasterizer;
+    
+    // Farben aller TurtleColors im Format 0xRRGGBB, indiziert ber ihre ID
+    private int[] _palette;
+    
+    // Ausstehende Fllfarbe, die vor den Linien gezeichnet wird (-1, falls keine)
+    private int _clearColor;
+    
+    /**
+     * Konstruiert ein neues Raster-Backend
+     * @param rasterizer Rasterisierer, mit dem die Linien gezeichnet werden
+     */
+    public RasterRenderBackend(ILineRasterizer rasterizer)
+    {
+        if(rasterizer == null)
+        {
+            throw new IllegalArgumentException("rasterizer was null");
+        }
+        
+        _buffer = new LineCommandBuffer();
+        _rasterizer = rasterizer;
+        _clearColor = -1;
+        
+        TurtleColor[] colors = TurtleColor.values();
+        _palette = new int[colors.length];
+        for(TurtleColor color : colors)
+        {
+            _palette[color.getID()] = color.getAwtColor().getRGB() & 0xFFFFFF;
+        }
+    }
+    
+    /**
+     * Nimmt eine farbige Linie in den Befehlspuffer auf
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param color Farbe der Linie
+     */
+    public void drawLine(double x1, double y1, double x2, double y2, TurtleColor color)
+    {
+        _buffer.add(x1, y1, x2, y2, color.getID());
+    }
+    
+    /**
+     * Merkt die Fllfarbe fr das Ende des Frames vor.
+     * Bereits gesammelte Linien wrden bermalt und werden daher verworfen.
+     * @param r Rotkanal der Farbe [0, 255]
+     * @param g Grnkanal der Farbe [0, 255]
+     * @param b Blaukanal der Farbe [0, 255]
+     */
+    public void clear(int r, int g, int b)
+    {
+        _buffer.reset();
+        _clearColor = (r & 0xFF) << 16 | (g & 0xFF) << 8 | (b & 0xFF);
+    }
+    
+    /**
+     * Rasterisiert den gesamten Befehlspuffer in den Hintergrundpuffer und zeigt den Frame an
+     */
+    public void present()
+    {
+        int[] pixels = TurtleWelt.GLOBALEWELT.gibHintergrundPixel();
+        
+        if(_clearColor != -1)
+        {
+            Arrays.fill(pixels, _clearColor);
+            _clearColor = -1;
+        }
+        
+        rasterize(_buffer, _palette, pixels, TurtleWelt.WIDTH, TurtleWelt.HEIGHT);
+        _buffer.reset();
+        
+        TurtleWelt.GLOBALEWELT.tauschePuffer();
+    }
+    
+    /**
+     * Rasterisiert alle Linien des Befehlspuffers in Reihenfolge in das Pixel-Array
+     * @param buffer Befehlspuffer mit den Linien des Frames
+     * @param palette Farben im Format 0xRRGGBB, indiziert ber die Farb-ID
+     * @param pixels Pixel-Array, in das geschrieben wird
+     * @param width Breite des Bildes in Pixeln
+     * @param height Hhe des Bildes in Pixeln
+     */
+    protected void rasterize(LineCommandBuffer buffer, int[] palette, int[] pixels, int width, int height)
+    {
+        float[] coords = buffer.getCoords();
+        int[] colors = buffer.getColors();
+        
+        for(int i = 0; i < buffer.size(); i++)
+        {
+            int offset = i * 4;
+            _rasterizer.rasterizeLine(pixels, width, coords[offset], coords[offset + 1], coords[offset + 2], coords[offset + 3], palette[colors[i]], 0, 0, width, height);
+        }
+    }
+    
+    /**
+     * Gibt den verwendeten Rasterisierer zurck
+     * @return Rasterisierer
+     */
+    public ILineRasterizer getRasterizer()
+    {
+        return _rasterizer;
+    }
+}
@@ -0,0 +1,23 @@
+package core;
+
+
+/**
+ * Verfgbare Zeichen-Backends des Renderers
+ * 
+ * @author  Lasse Huber-Saffer
+ * @version 02.01.2022
+ */
+public enum RenderBackendType
+{
+    // Zeichnet jede Linie einzeln ber eine Turtle (Kompatibilittsmodus)
+    TURTLE,
+    
+    // Sammelt alle Linien eines Frames in einem Befehlspuffer und zeichnet sie am Ende gesammelt
+    COMMAND_BUFFER,
+    
+    // Schreibt die gesammelten Linien mit dem Bresenham-Algorithmus direkt in das Pixel-Array
+    RASTER,
+    
+    // Wie RASTER, aber mit Kantenglttung nach Xiaolin Wu
+    RASTER_ANTIALIASED
+}
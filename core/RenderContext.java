@@ -0,0 +1,101 @@
+package core;
+
+import maths.*;
+
+/**
+ * Pro Frame berechnete Renderdaten einer Kamera.
+ * Enthlt die View-Projection-Matrix und das Sichtvolumen der Kamera sowie die Varianten fr ViewModels,
+ * bei denen die ViewMatrix der Kamera ignoriert wird.
+ * ndert sich die Kamera, whrend der Kontext aktiv ist, wird dies erst im nchsten Frame bercksichtigt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 05.01.2022
+ */
+public class RenderContext
+{
+    private final Camera _camera;
+    
+    // Normale Variante (mit ViewMatrix der Kamera)
+    private final Matrix4 _viewProjection;
+    
+    // ViewModel-Variante (ohne ViewMatrix der Kamera)
+    private final Matrix4 _viewModelProjection;
+    
+    // Sichtvolumen mit und ohne ViewMatrix der Kamera
+    private final Frustum _frustum;
+    private final Frustum _viewModelFrustum;
+    
+    // Abstnde der Near- und Far-Clipping-Ebene
+    private final double _near;
+    private final double _far;
+    
+    /**
+     * Berechnet den Renderkontext einer Kamera
+     * @param camera Kamera, aus deren Perspektive gerendert wird
+     */
+    public RenderContext(Camera camera)
+    {
+        if(camera == null)
+        {
+            throw new IllegalArgumentException("camera was null");
+        }
+        
+        _camera = camera;
+        
+        _viewProjection = camera.getProjectionMatrix().multiply(camera.getViewMatrix());
+        _viewModelProjection = new Matrix4(camera.getProjectionMatrix());
+        
+        _near = camera.getNear();
+        _far = camera.getFar();
+        
+        _frustum = new Frustum(_viewProjection, camera.getNear(), camera.getFar());
+        _viewModelFrustum = new Frustum(_viewModelProjection, camera.getNear(), camera.getFar());
+    }
+    
+    /**
+     * Gibt die Kamera zurck, fr die der Kontext berechnet wurde
+     * @return Kamera des Kontexts
+     */
+    public Camera getCamera()
+    {
+        return _camera;
+    }
+    
+    /**
+     * Gibt die Transformationsmatrix aus dem Worldspace in den Clipspace zurck
+     * @param ignoreViewMatrix wenn true, wird die Variante ohne ViewMatrix der Kamera zurckgegeben
+     * @return View-Projection-Matrix (nicht verndern)
+     */
+    public Matrix4 getViewProjectionMatrix(boolean ignoreViewMatrix)
+    {
+        return ignoreViewMatrix ? _viewModelProjection : _viewProjection;
+    }
+    
+    /**
+     * Gibt das Sichtvolumen der Kamera im Worldspace zurck
+     * @param ignoreViewMatrix wenn true, wird die Variante ohne ViewMatrix der Kamera zurckgegeben
+     * @return Frustum der Kamera
+     */
+    public Frustum getFrustum(boolean ignoreViewMatrix)
+    {
+        return ignoreViewMatrix ? _viewModelFrustum : _frustum;
+    }
+    
+    /**
+     * Gibt den Abstand der Near-Clipping-Ebene der Kamera zurck
+     * @return Abstand der Near-Clipping-Ebene
+     */
+    public double getNear()
+    {
+        return _near;
+    }
+    
+    /**
+     * Gibt den Abstand der Far-Clipping-Ebene der Kamera zurck
+     * @return Abstand der Far-Clipping-Ebene
+     */
+    public double getFar()
+    {
+        return _far;
+    }
+}
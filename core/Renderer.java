@@ -10,16 +10,141 @@ import maths.*;
  */
 public class Renderer
 {
-    // Turtle, die zum Zeichnen verwendet wird
-    private Turtle _turtle;
+    // Backend, das die zweidimensionalen Linien zeichnet
+    private IRenderBackend _backend;
+    
+    // Renderkontext des aktuellen Frames (null auerhalb von beginFrame/endFrame)
+    private RenderContext _context;
+    
+    // Zwischenspeicher fr die Clipspace-Koordinaten (x, y, w) der Vertices eines Meshs
+    private double[] _clipScratch = new double[3 * 64];
     
     /**
      * Der leere explizite Konstruktor von Renderer.
+     * Verwendet das in Game.RENDER_BACKEND eingestellte Backend.
      */
     public Renderer()
     {
-        _turtle = new Turtle(0, 0);
-        _turtle.setzeGeschwindigkeit(10);
+        this(createBackend(Game.RENDER_BACKEND));
+    }
+    
+    /**
+     * Konstruiert einen Renderer mit einem gegebenen Backend
+     * @param backend Backend, das die zweidimensionalen Linien zeichnet
+     */
+    public Renderer(IRenderBackend backend)
+    {
+        if(backend == null)
+        {
+            throw new IllegalArgumentException("render backend was null");
+        }
+        
+        _backend = backend;
+    }
+    
+    /**
+     * Erzeugt ein Backend des gegebenen Typs
+     * @param type Typ des Backends
+     * @return neues Backend
+     */
+    public static IRenderBackend createBackend(RenderBackendType type)
+    {
+        switch(type)
+        {
+            case TURTLE:
+                return new TurtleRenderBackend();
+            case COMMAND_BUFFER:
+                return new CommandBufferRenderBackend();
+            case RASTER:
+                return createRasterBackend(new BresenhamLineRasterizer());
+            case RASTER_ANTIALIASED:
+                return createRasterBackend(new WuLineRasterizer());
+            default:
+                throw new IllegalArgumentException("unknown render backend type: " + type);
+        }
+    }
+    
+    /**
+     * Erzeugt ein Raster-Backend, das je nach Game.MULTITHREADED_RASTERIZATION seriell oder kachelbasiert parallel arbeitet
+     * @param rasterizer Rasterisierer, mit dem die Linien gezeichnet werden
+     * @return neues Raster-Backend
+     */
+    private static IRenderBackend createRasterBackend(ILineRasterizer rasterizer)
+    {
+        if(Game.MULTITHREADED_RASTERIZATION)
+        {
+            return new TiledRasterRenderBackend(rasterizer);
+        }
+        return new RasterRenderBackend(rasterizer);
+    }
+    
+    /**
+     * Beginnt einen Frame aus der Perspektive einer Kamera.
+     * View-Projection-Matrix, Kameraposition und -richtung werden einmalig berechnet und von allen folgenden
+     * 3D-Zeichenaufrufen mit dieser Kamera bis zum Aufruf von endFrame() wiederverwendet.
+     * @param camera Kamera, aus deren Perspektive der Frame gerendert wird
+     */
+    public void beginFrame(Camera camera)
+    {
+        _context = new RenderContext(camera);
+    }
+    
+    /**
+     * Beendet den mit beginFrame() begonnenen Frame und verwirft den Renderkontext
+     */
+    public void endFrame()
+    {
+        _context = null;
+    }
+    
+    /**
+     * Gibt den Renderkontext fr eine Kamera zurck.
+     * Auerhalb eines Frames oder fr eine andere Kamera wird ein temporrer Kontext berechnet.
+     * @param camera Kamera, aus deren Perspektive gerendert wird
+     * @return Renderkontext der Kamera
+     */
+    public RenderContext getRenderContext(Camera camera)
+    {
+        if(_context != null && _context.getCamera() == camera)
+        {
+            return _context;
+        }
+        return new RenderContext(camera);
+    }
+    
+    /**
+     * Gibt das Sichtvolumen einer Kamera im Worldspace zurck
+     * @param camera Kamera
+     * @return Frustum der Kamera
+     */
+    public Frustum getFrustum(Camera camera)
+    {
+        return getRenderContext(camera).getFrustum(false);
+    }
+    
+    /**
+     * Prft anhand der Hllkugel eines GameObjects, ob es im Sichtfeld einer Kamera liegen kann.
+     * GameObjects ohne Hllkugel gelten immer als sichtbar.
+     * @param object zu prfendes GameObject
+     * @param camera Kamera
+     * @return false, wenn das GameObject sicher auerhalb des Sichtfelds liegt, ansonsten true
+     */
+    public boolean isVisible(IGameObject object, Camera camera)
+    {
+        return isVisible(object, getFrustum(camera));
+    }
+    
+    /**
+     * Prft anhand der Hllkugel eines GameObjects, ob es in einem gegebenen Sichtvolumen liegen kann.
+     * GameObjects ohne Hllkugel gelten immer als sichtbar.
+     * @param object zu prfendes GameObject
+     * @param frustum Sichtvolumen, z.B. ein durch ein Portal eingeengtes Frustum
+     * @return false, wenn das GameObject sicher auerhalb des Sichtvolumens liegt, ansonsten true
+     */
+    public boolean isVisible(IGameObject object, Frustum frustum)
+    {
+        BoundingSphere bounds = object.getBounds();
+        return bounds == null || frustum.intersects(bounds);
     }
     
     /**
@@ -45,10 +170,118 @@ public class Renderer
      */
     public void drawMesh(Mesh meshRef, Matrix4 modelMatrix, TurtleColor color, Camera camera, boolean ignoreViewMatrix)
     {
-        for(int i = 0; i < meshRef.lineIndices.size(); i++)
+        if(color == null)
         {
-            drawLine3D(meshRef.vertices.get(meshRef.lineIndices.get(i).getKey() - 1), meshRef.vertices.get(meshRef.lineIndices.get(i).getValue() - 1), color, modelMatrix, camera, ignoreViewMatrix);
+            throw new IllegalArgumentException("color was null when drawing mesh");
         }
+        
+        RenderContext context = getRenderContext(camera);
+        
+        // Meshes auerhalb des Sichtfelds vor jeder Transformation verwerfen
+        BoundingSphere bounds = (modelMatrix != null) ? meshRef.getBounds().transform(modelMatrix) : meshRef.getBounds();
+        if(!context.getFrustum(ignoreViewMatrix).intersects(bounds))
+        {
+            return;
+        }
+        
+        Matrix4 transform = context.getViewProjectionMatrix(ignoreViewMatrix);
+        if(modelMatrix != null)
+        {
+            transform = transform.multiply(modelMatrix);
+        }
+        
+        // Alle Vertices einmalig in den Clipspace transformieren (z wird nicht bentigt)
+        double[] positions = meshRef.getPositions();
+        int vertexCount = meshRef.getVertexCount();
+        if(_clipScratch.length < vertexCount * 3)
+        {
+            _clipScratch = new double[Math.max(vertexCount * 3, _clipScratch.length * 2)];
+        }
+        double[] clip = _clipScratch;
+        
+        double m00 = transform.get(0, 0), m10 = transform.get(1, 0), m20 = transform.get(2, 0), m30 = transform.get(3, 0);
+        double m01 = transform.get(0, 1), m11 = transform.get(1, 1), m21 = transform.get(2, 1), m31 = transform.get(3, 1);
+        double m03 = transform.get(0, 3), m13 = transform.get(1, 3), m23 = transform.get(2, 3), m33 = transform.get(3, 3);
+        
+        for(int i = 0; i < vertexCount; i++)
+        {
+            double x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            clip[i * 3] = m00 * x + m10 * y + m20 * z + m30;
+            clip[i * 3 + 1] = m01 * x + m11 * y + m21 * z + m31;
+            clip[i * 3 + 2] = m03 * x + m13 * y + m23 * z + m33;
+        }
+        
+        // Kanten aus den transformierten Vertices zeichnen
+        double near = context.getNear();
+        double far = context.getFar();
+        int[] edges = meshRef.getEdges();
+        for(int i = 0; i < edges.length; i += 2)
+        {
+            int a = edges[i] * 3;
+            int b = edges[i + 1] * 3;
+            drawClipSpaceLine(clip[a], clip[a + 1], clip[a + 2], clip[b], clip[b + 1], clip[b + 2], near, far, color);
+        }
+    }
+    
+    /**
+     * Schneidet eine Linie im homogenen Clipspace mit dem Verfahren von Liang und Barsky am gesamten Sichtvolumen
+     * (links, rechts, unten, oben, near, far) zu und zeichnet den sichtbaren Teil.
+     * Sichtbare Punkte haben in dieser Engine ein negatives w, die Sichtdistanz ist daher -w.
+     * Vollstndig auerhalb liegende Linien werden frh verworfen.
+     * @param ax x-Komponente des Startpunkts im Clipspace
+     * @param ay y-Komponente des Startpunkts im Clipspace
+     * @param aw w-Komponente des Startpunkts im Clipspace
+     * @param bx x-Komponente des Endpunkts im Clipspace
+     * @param by y-Komponente des Endpunkts im Clipspace
+     * @param bw w-Komponente des Endpunkts im Clipspace
+     * @param near Abstand der Near-Clipping-Ebene
+     * @param far Abstand der Far-Clipping-Ebene
+     * @param color Farbe
+     */
+    private void drawClipSpaceLine(double ax, double ay, double aw, double bx, double by, double bw, double near, double far, TurtleColor color)
+    {
+        double t0 = 0.0;
+        double t1 = 1.0;
+        
+        // Abstnde beider Punkte zu den sechs Ebenen (>= 0 bedeutet innerhalb)
+        for(int plane = 0; plane < 6; plane++)
+        {
+            double distanceA, distanceB;
+            switch(plane)
+            {
+                case 0: distanceA = -aw + ax; distanceB = -bw + bx; break;
+                case 1: distanceA = -aw - ax; distanceB = -bw - bx; break;
+                case 2: distanceA = -aw + ay; distanceB = -bw + by; break;
+                case 3: distanceA = -aw - ay; distanceB = -bw - by; break;
+                case 4: distanceA = -aw - near; distanceB = -bw - near; break;
+                default: distanceA = far + aw; distanceB = far + bw; break;
+            }
+            
+            if(distanceA < 0.0 && distanceB < 0.0)
+            {
+                return;
+            }
+            if(distanceA < 0.0)
+            {
+                t0 = Math.max(t0, distanceA / (distanceA - distanceB));
+            }
+            else if(distanceB < 0.0)
+            {
+                t1 = Math.min(t1, distanceA / (distanceA - distanceB));
+            }
+            if(t0 > t1)
+            {
+                return;
+            }
+        }
+        
+        double dx = bx - ax, dy = by - ay, dw = bw - aw;
+        double x1 = ax + t0 * dx, y1 = ay + t0 * dy, w1 = aw + t0 * dw;
+        double x2 = ax + t1 * dx, y2 = ay + t1 * dy, w2 = aw + t1 * dw;
+        
+        double halfWidth = TurtleWelt.WIDTH / 2.0;
+        double halfHeight = TurtleWelt.HEIGHT / 2.0;
+        _backend.drawLine((x1 / w1 + 1.0) * halfWidth, (y1 / w1 + 1.0) * halfHeight, (x2 / w2 + 1.0) * halfWidth, (y2 / w2 + 1.0) * halfHeight, color);
     }
     
     /**
@@ -74,12 +307,7 @@ public class Renderer
             throw new IllegalArgumentException("color was null when drawing line");
         }
         
-        _turtle.hinterlasseKeineSpur();
-        _turtle.geheZu(a.getX(), a.getY());
-        _turtle.setzeFarbe(colorToString(color));
-        _turtle.hinterlasseSpur();
-        _turtle.geheZu(b.getX(), b.getY());
-        _turtle.hinterlasseKeineSpur();
+        _backend.drawLine(a.getX(), a.getY(), b.getX(), b.getY(), color);
     }
     
     /**
@@ -123,57 +351,6 @@ public class Renderer
         drawLine3D(a, b, color, null, camera, false);
     }
     
-    /**
-     * Gibt den Schnittpunkt einer Strecke mit einer Ebene zurck
-     * @param lineP1 erster Punkt der Linie
-     * @param lineP2 zweiter Punkt der Linie
-     * @param planeP1 Ortsvektor der Ebene
-     * @param planeNormal Normalenvektor der Ebene
-     * @return null, wenn es keinen Schnittpunkt gibt, ansonsten den Schnittpunkt
-     */
-    private Vector3 getLinePlaneIntersection(Vector3 lineP1, Vector3 lineP2, Vector3 planeP1, Vector3 planeNormal)
-    {
-        Vector3 u = lineP2.subtract(lineP1);
-        double dot = planeNormal.dot(u);
-        final double eps = 1e-6;
-        if (Math.abs(dot) > eps)
-        {
-            Vector3 w = lineP1.subtract(planeP1);
-            double fac = -planeNormal.dot(w) / dot;
-            u = u.multiply(fac);
-            return lineP1.add(u);
-        }
-        
-        return null;
-    }
-    
-    /**
-     * Gibt zurck ob ein Punkt im Frustum der Kamera liegt
-     * @param p Punkt
-     * @param camPos Position der Kamera im Raum
-     * @param camDir Richtungsvektor der Kamera
-     * @return true, wenn Punkt innerhalb des Frustums liegt
-     */
-    private boolean isPointInFrustum(Vector3 p, Vector3 camPos, Vector3 camDir)
-    {
-        Vector3 pDir = p.subtract(camPos);
-        double pDot = pDir.dot(camDir);
-        return pDot < 0.0;
-    }
-    
-    /**
-     * Gibt zurck ob eine Linie im Frustum der Kamera liegt
-     * @param a erster Punkt der Linie
-     * @param b zweiter Punkt der Linie
-     * @param camPos Position der Kamera im Raum
-     * @param camDir Richtungsvektor der Kamera
-     * @return true, wenn Linie innerhalb des Frustums liegt
-     */
-    private boolean isLineInFrustum(Vector3 a, Vector3 b, Vector3 camPos, Vector3 camDir)
-    {   
-        return isPointInFrustum(a, camPos, camDir) && isPointInFrustum(b, camPos, camDir);
-    }
-    
     /**
      * Zeichnet eine beliebigfarbige Linie zwischen zwei Punkten im dreidimensionalen Raum
      * @param a Startpunkt
@@ -185,61 +362,22 @@ public class Renderer
      */
     public void drawLine3D(Vector3 a, Vector3 b, TurtleColor color, Matrix4 model, Camera camera, boolean ignoreViewMatrix)
     {
-        Vector3 camPos = camera.getPosition();
-        Vector3 camDir = camera.getDirection();
-        Matrix4 viewMatrix = camera.getViewMatrix();
-
-        if (model != null)
+        if(color == null)
         {
-            a = model.multiply(new Vector4(a, 1.0)).getXYZ();
-            b = model.multiply(new Vector4(b, 1.0)).getXYZ();
+            throw new IllegalArgumentException("color was null when drawing line");
         }
-
-        if (ignoreViewMatrix)
+        
+        RenderContext context = getRenderContext(camera);
+        Matrix4 transform = context.getViewProjectionMatrix(ignoreViewMatrix);
+        if (model != null)
         {
-            viewMatrix = new Matrix4();
-            camPos = new Vector3(0.0, 0.0, 0.0);
-            camDir = new Vector3(0.0, 0.0, 1.0);
+            transform = transform.multiply(model);
         }
-
-        Matrix4 transform = camera.getProjectionMatrix().multiply(viewMatrix);
-
-        if (isLineInFrustum(a, b, camPos, camDir))
-        {
-            Vector4 pA = MatrixGenerator.viewportTransform(transform.multiply(new Vector4(a, 1.0)));
-            Vector4 pB = MatrixGenerator.viewportTransform(transform.multiply(new Vector4(b, 1.0)));
         
-            drawLine(new Vector2(pA.getX(), pA.getY()), new Vector2(pB.getX(), pB.getY()), color);
-        }
-        else
-        {
-            Vector3 frustumIntersection = getLinePlaneIntersection(a, b, camPos, camDir);
-            if (frustumIntersection != null)
-            {
-                Vector3 pInside;
-                if (isPointInFrustum(a, camPos, camDir))
-                {
-                    pInside = a;
-                }
-                else if (isPointInFrustum(b, camPos, camDir))
-                {
-                    pInside = b;
-                }
-                else // Wenn beide Punkte hinter der Camera liegen, soll die Linie gar nicht gerendert werden.
-                {
-                    return;
-                }
+        Vector4 pA = transform.multiply(new Vector4(a, 1.0));
+        Vector4 pB = transform.multiply(new Vector4(b, 1.0));
         
-                // NOTE(sven): Wir mssen den Schnittpunkt um den Wert epsilon (aus getLinePlaneIntersection) verschieben, 
-                // weil durch Gleitkommarundungsfehler teilweise die Punkte trotzdem noch hinter der Kamera liegen.
-                Vector3 precisionError = pInside.subtract(frustumIntersection).multiply(1e-6);
-                
-                Vector4 pA = MatrixGenerator.viewportTransform(transform.multiply(new Vector4(frustumIntersection.add(precisionError), 1.0)));
-                Vector4 pB = MatrixGenerator.viewportTransform(transform.multiply(new Vector4(pInside, 1.0)));
-            
-                drawLine(new Vector2(pA.getX(), pA.getY()), new Vector2(pB.getX(), pB.getY()), color);
-            }
-        }
+        drawClipSpaceLine(pA.getX(), pA.getY(), pA.getW(), pB.getX(), pB.getY(), pB.getW(), context.getNear(), context.getFar(), color);
     }
     
     
@@ -437,7 +575,7 @@ public class Renderer
      */
     public void clear()
     {
-        TurtleWelt.GLOBALEWELT.loescheAlleSpuren();
+        _backend.clear(16, 68, 116);
     }
     
     /**
@@ -448,7 +586,16 @@ public class Renderer
      */
     public void clear(int r, int g, int b)
     {
-        TurtleWelt.GLOBALEWELT.bildschirmEinfaerben(r, g, b);
+        _backend.clear(r, g, b);
+    }
+    
+    /**
+     * Zeigt den fertig gezeichneten Frame an, indem Vorder- und Hintergrundpuffer getauscht werden.
+     * Sollte genau einmal am Ende jedes Frames aufgerufen werden.
+     */
+    public void present()
+    {
+        _backend.present();
     }
     
     /**
@@ -27,7 +27,7 @@ public class SimpleDynamicGameObject implements IDynamicGameObject
      */
     public SimpleDynamicGameObject(Mesh mesh, TurtleColor color, Vector3 position, Vector3 rotation, Vector3 scale)
     {
-        _mesh = new Mesh(mesh);
+        _mesh = Mesh.orEmpty(mesh);
         _color = color;
         _position = new Vector3(position);
         _rotation = new Vector3(rotation);
@@ -91,12 +91,12 @@ public class SimpleDynamicGameObject implements IDynamicGameObject
     }
     
     /**
-     * Gibt eine Kopie des Meshs (3D-Modell) zurck
+     * Gibt das (geteilte, unvernderliche) Mesh (3D-Modell) zurck
      * @return Mesh (3D-Modell)
      */
     public Mesh getMesh()
     {
-        return new Mesh(_mesh);
+        return _mesh;
     }
     
     /**
@@ -116,6 +116,14 @@ public class SimpleDynamicGameObject implements IDynamicGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return _mesh.getBounds().transform(getModelMatrix());
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -162,7 +170,7 @@ public class SimpleDynamicGameObject implements IDynamicGameObject
      */
     public void setMesh(Mesh mesh)
     {
-        _mesh = new Mesh(mesh);
+        _mesh = Mesh.orEmpty(mesh);
     }
     
     /**
@@ -1,21 +1,28 @@
 package core;
 
 import java.util.*;
+import java.util.concurrent.*;
 import javafx.scene.media.*;
 import java.io.*;
 import javafx.embed.swing.*;
 import java.net.MalformedURLException;
+import util.*;
 
 /**
- * Ldt, speichert und spielt Sounddateien sowie Quellen
+ * Ldt, speichert und spielt Sounddateien sowie Quellen.
+ * Registrierte Quellen werden beim ersten Abspielen geladen und bis zu einem Speicherbudget im LRU-Cache gehalten.
+ * Quellen und Gruppen drfen nebenlufig geladen werden, das Abspielen erfolgt im Spiel-Thread.
  * 
  * @author Lasse Huber-Saffer 
- * @version 03.01.2022
+ * @version 12.01.2022
  */
 public class SoundEngine
 {
-    private HashMap<String, Media> _soundSources;
-    private HashMap<String, String[]> _soundGroups;
+    // Geladene Soundquellen
+    private LRUCache<String, Media> _soundSources;
+    // Registrierte Dateipfade aller bekannten Soundquellen
+    private ConcurrentHashMap<String, String> _sourcePaths;
+    private ConcurrentHashMap<String, String[]> _soundGroups;
     private ArrayList<Sound> _currentSounds;
     private Random _random;
 
@@ -24,8 +31,18 @@ public class SoundEngine
      */
     public SoundEngine()
     {
-        _soundSources = new HashMap<String, Media>();
-        _soundGroups = new HashMap<String, String[]>();
+        this(Game.SOUND_MEMORY_BUDGET);
+    }
+    
+    /**
+     * Konstruktor fr Objekte der Klasse SoundPlayer
+     * @param sourceBudget Speicherbudget fr geladene Soundquellen in Bytes (geschtzt ber die Dateigre)
+     */
+    public SoundEngine(long sourceBudget)
+    {
+        _soundSources = new LRUCache<String, Media>(sourceBudget);
+        _sourcePaths = new ConcurrentHashMap<String, String>();
+        _soundGroups = new ConcurrentHashMap<String, String[]>();
         _currentSounds = new ArrayList<Sound>();
         _random = new Random();
         
@@ -41,13 +58,14 @@ public class SoundEngine
      */
     public Sound playSound(String sourceKey, double volume, boolean loop)
     {
-        if(!_soundSources.containsKey(sourceKey))
+        Media source = getSource(sourceKey);
+        if(source == null)
         {
             throw new IllegalArgumentException("Tried to play a sound with nonexistant source key \"" + sourceKey + "\"");
         }
         
         // Sound instanziieren
-        Sound sound = new Sound(_soundSources.get(sourceKey), sourceKey, volume, true, loop);
+        Sound sound = new Sound(source, sourceKey, volume, true, loop);
         
         _currentSounds.add(sound);
         
@@ -62,13 +80,12 @@ public class SoundEngine
      */
     public Sound playSoundFromGroup(String groupKey, double volume, boolean loop)
     {
-        if(!_soundGroups.containsKey(groupKey))
+        String[] soundKeys = _soundGroups.get(groupKey);
+        if(soundKeys == null)
         {
             throw new IllegalArgumentException("Tried to play a sound with from nonexistant group with key \"" + groupKey + "\"");
         }
         
-        String[] soundKeys = _soundGroups.get(groupKey);
-        
         // Zuflligen Sound auswhlen
         int chosenID = _random.nextInt(soundKeys.length);
         
@@ -125,6 +142,16 @@ public class SoundEngine
         _soundGroups.clear();
     }
     
+    /**
+     * Gibt zurck, ob eine Gruppe mit einem bestimmten Schlssel registriert ist
+     * @param key Bezeichner der Gruppe
+     * @return Wahrheitswert der Aussage "Die Gruppe ist registriert"
+     */
+    public boolean containsGroup(String key)
+    {
+        return _soundGroups.containsKey(key);
+    }
+    
     /**
      * Erstellt eine Sound-Gruppe, aus der Sounds zufllig gespielt werden knnen
      * @param key Bezeichner der Gruppe
@@ -142,29 +169,39 @@ public class SoundEngine
             throw new IllegalArgumentException("Group subkeys were empty when creating group " + key);
         }
         
-        if(_soundGroups.containsKey(key))
+        if(_soundGroups.putIfAbsent(key, (String[])subkeys.clone()) != null)
         {
             System.out.println("[Error] Soundregistry already contains a group with key " + key);
-            return;
         }
-        
-        _soundGroups.put(key, (String[])subkeys.clone());
     }
     
     /**
-     * Ldt eine Soundquelle von einem Dateipfad unter einem Namen in das Register
+     * Registriert den Dateipfad einer Soundquelle, ohne sie zu laden. Sie wird beim ersten Abspielen geladen.
+     * @param key Name, unter dem die Soundquelle im Register gespeichert wird
+     * @param filePath Dateipfad der Soundquelle
+     */
+    public void registerSource(String key, String filePath)
+    {
+        _sourcePaths.put(key, filePath);
+    }
+    
+    /**
+     * Ldt eine Soundquelle von einem Dateipfad unter einem Namen in das Register.
+     * Darf aus beliebigen Threads aufgerufen werden.
      * @param key Name, unter dem die Soundquelle im Register gespeichert wird
      * @param filePath Dateipfad der Soundquelle
      */
     public void loadSource(String key, String filePath)
     {
+        registerSource(key, filePath);
+        
         File mediaFile = new File(filePath);
         try
         {
             String url = mediaFile.toURI().toURL().toString();
 
             Media media = new Media(url);
-            _soundSources.put(key, media);
+            _soundSources.put(key, media, mediaFile.length());
         }
         catch (MalformedURLException e)
         {
@@ -172,16 +209,34 @@ public class SoundEngine
         }
     }
     
+    /**
+     * Gibt eine Soundquelle zurck und ldt sie ggf. vom registrierten Dateipfad
+     * @param key Name der Soundquelle
+     * @return Soundquelle oder null, falls sie nicht registriert ist
+     */
+    private Media getSource(String key)
+    {
+        Media source = _soundSources.get(key);
+        if(source == null)
+        {
+            String filePath = _sourcePaths.get(key);
+            if(filePath != null)
+            {
+                loadSource(key, filePath);
+                source = _soundSources.get(key);
+            }
+        }
+        return source;
+    }
+    
     /**
      * Entfernt eine bestimmte Soundquelle aus dem Register
      * @param key Name der zu lschenden Soundquelle
      */
     public void clearSource(String key)
     {
-        if(_soundSources.containsKey(key))
-        {
-            _soundSources.remove(key);
-        }
+        _soundSources.remove(key);
+        _sourcePaths.remove(key);
     }
     
     /**
@@ -189,6 +244,16 @@ public class SoundEngine
      * @return Wahrheitswert der Aussage "Die Soundquelle mit dem gegebenen Schlssel ist im Register vorhanden"
      */
     public boolean containsSource(String key)
+    {
+        return _sourcePaths.containsKey(key);
+    }
+    
+    /**
+     * Gibt zurck, ob eine Soundquelle bereits geladen im Speicher liegt
+     * @param key Name der Soundquelle
+     * @return Wahrheitswert der Aussage "Die Soundquelle ist geladen"
+     */
+    public boolean isSourceLoaded(String key)
     {
         return _soundSources.containsKey(key);
     }
@@ -199,5 +264,6 @@ public class SoundEngine
     public void clearSources()
     {
         _soundSources.clear();
+        _sourcePaths.clear();
     }
 }
@@ -0,0 +1,197 @@
+package core;
+
+import maths.*;
+import physics.*;
+import java.util.*;
+
+/**
+ * Ein GameObject, das mehrere statische GameObjects zu vortransformierten Meshes im World Space zusammenfasst.
+ * Pro Farbe entsteht ein Mesh, das ohne Modelmatrix gezeichnet wird.
+ * So wird ein ganzer Abschnitt der Mapgeometrie mit wenigen Draw Calls und einer einzigen Sichtbarkeitsprfung gezeichnet.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 08.01.2022
+ */
+public class StaticBatchGameObject implements IGameObject
+{
+    private Mesh[] _meshes;
+    private TurtleColor[] _colors;
+    private BoundingSphere _bounds;
+    private Vector3 _position;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse StaticBatchGameObject.
+     * Die Meshes der Objekte werden einmalig mit ihrer Modelmatrix transformiert und nach Farbe zusammengefhrt.
+     * @param objects statische GameObjects, die zusammengefasst werden sollen
+     */
+    public StaticBatchGameObject(List<StaticGameObject> objects)
+    {
+        if(objects == null || objects.isEmpty())
+        {
+            throw new IllegalArgumentException("static batch requires at least one object");
+        }
+        
+        // Objekte nach Farbe gruppieren (Reihenfolge des ersten Auftretens bleibt erhalten)
+        LinkedHashMap<TurtleColor, ArrayList<StaticGameObject>> groups = new LinkedHashMap<TurtleColor, ArrayList<StaticGameObject>>();
+        for(StaticGameObject obj : objects)
+        {
+            ArrayList<StaticGameObject> group = groups.get(obj.getColor());
+            if(group == null)
+            {
+                group = new ArrayList<StaticGameObject>();
+                groups.put(obj.getColor(), group);
+            }
+            group.add(obj);
+        }
+        
+        _meshes = new Mesh[groups.size()];
+        _colors = new TurtleColor[groups.size()];
+        _bounds = null;
+        
+        int index = 0;
+        for(Map.Entry<TurtleColor, ArrayList<StaticGameObject>> entry : groups.entrySet())
+        {
+            _meshes[index] = bake(entry.getValue());
+            _colors[index] = entry.getKey();
+            _bounds = BoundingSphere.union(_bounds, _meshes[index].getBounds());
+            index++;
+        }
+        
+        _position = _bounds.getCenter();
+    }
+    
+    /**
+     * Transformiert die Meshes einer Gruppe in den World Space und fgt sie zu einem Mesh zusammen
+     * @param group GameObjects derselben Farbe
+     * @return zusammengefhrtes Mesh im World Space
+     */
+    private static Mesh bake(ArrayList<StaticGameObject> group)
+    {
+        int vertexCount = 0, edgeCount = 0;
+        for(StaticGameObject obj : group)
+        {
+            vertexCount += obj.getMeshRef().getVertexCount();
+            edgeCount += obj.getMeshRef().getEdgeCount();
+        }
+        
+        double[] positions = new double[vertexCount * 3];
+        int[] edges = new int[edgeCount * 2];
+        int vertexOffset = 0, edgeOffset = 0;
+        
+        for(StaticGameObject obj : group)
+        {
+            Mesh mesh = obj.getMeshRef();
+            Matrix4 model = obj.getModelMatrix();
+            double m00 = model.get(0, 0), m10 = model.get(1, 0), m20 = model.get(2, 0), m30 = model.get(3, 0);
+            double m01 = model.get(0, 1), m11 = model.get(1, 1), m21 = model.get(2, 1), m31 = model.get(3, 1);
+            double m02 = model.get(0, 2), m12 = model.get(1, 2), m22 = model.get(2, 2), m32 = model.get(3, 2);
+            
+            double[] source = mesh.getPositions();
+            for(int i = 0; i < mesh.getVertexCount(); i++)
+            {
+                double x = source[i * 3], y = source[i * 3 + 1], z = source[i * 3 + 2];
+                int target = (vertexOffset + i) * 3;
+                positions[target]     = m00 * x + m10 * y + m20 * z + m30;
+                positions[target + 1] = m01 * x + m11 * y + m21 * z + m31;
+                positions[target + 2] = m02 * x + m12 * y + m22 * z + m32;
+            }
+            
+            int[] sourceEdges = mesh.getEdges();
+            for(int i = 0; i < sourceEdges.length; i++)
+            {
+                edges[edgeOffset + i] = sourceEdges[i] + vertexOffset;
+            }
+            
+            vertexOffset += mesh.getVertexCount();
+            edgeOffset += sourceEdges.length;
+        }
+        
+        return new Mesh(positions, edges);
+    }
+    
+    /**
+     * @see IGameObject#update()
+     */
+    public void update(double deltaTime, double runTime, Vector3 cameraPosition)
+    {
+        return;
+    }
+    
+    /**
+     * @see IGameObject#draw()
+     */
+    public void draw(Renderer renderer, Camera camera)
+    {
+        for(int i = 0; i < _meshes.length; i++)
+        {
+            renderer.drawMesh(_meshes[i], null, _colors[i], camera);
+        }
+    }
+    
+    /**
+     * @see IGameObject#getCollider()
+     */
+    public ICollider getCollider()
+    {
+        return null;
+    }
+    
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return _bounds;
+    }
+    
+    /**
+     * Gibt die Anzahl der zusammengefhrten Meshes (eines pro Farbe) zurck
+     * @return Anzahl der Meshes
+     */
+    public int getMeshCount()
+    {
+        return _meshes.length;
+    }
+    
+    /**
+     * @see IGameObject#getPosition()
+     */
+    public Vector3 getPosition()
+    {
+        return new Vector3(_position);
+    }
+    
+    /**
+     * @see IGameObject#getRotation()
+     */
+    public Vector3 getRotation()
+    {
+        return new Vector3();
+    }
+    
+    /**
+     * @see IGameObject#getScale()
+     */
+    public Vector3 getScale()
+    {
+        return new Vector3(1.0, 1.0, 1.0);
+    }
+    
+    /**
+     * Gibt die Farbe des ersten zusammengefhrten Meshs zurck
+     * @see IGameObject#getColor()
+     */
+    public TurtleColor getColor()
+    {
+        return _colors[0];
+    }
+    
+    /**
+     * Frbt alle zusammengefhrten Meshes in einer Farbe ein
+     * @see IGameObject#setColor()
+     */
+    public void setColor(TurtleColor color)
+    {
+        Arrays.fill(_colors, color);
+    }
+}
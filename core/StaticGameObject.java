@@ -17,6 +17,7 @@ public class StaticGameObject implements IGameObject
     private Vector3 _scale;
     private TurtleColor _color;
     private Matrix4 _model;
+    private BoundingSphere _bounds;
     
     /**
      * Konstruktor fr GameObjects mit gegebenem Mesh (3D-Modell), Position, Rotation und Skalierung
@@ -28,7 +29,7 @@ public class StaticGameObject implements IGameObject
      */
     public StaticGameObject(Mesh mesh, TurtleColor color, Vector3 position, Vector3 rotation, Vector3 scale)
     {
-        _mesh = new Mesh(mesh);
+        _mesh = Mesh.orEmpty(mesh);
         _color = color;
         _position = new Vector3(position);
         _rotation = new Vector3(rotation);
@@ -56,7 +57,7 @@ public class StaticGameObject implements IGameObject
      * Generiert die Modelmatrix aller Transformationen auf dem GameObject
      * @return Modelmatrix
      */
-    private Matrix4 getModelMatrix()
+    public Matrix4 getModelMatrix()
     {
         if(_model == null)
         {
@@ -80,6 +81,27 @@ public class StaticGameObject implements IGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        if(_bounds == null)
+        {
+            _bounds = _mesh.getBounds().transform(getModelMatrix());
+        }
+        return _bounds;
+    }
+    
+    /**
+     * Gibt eine Referenz auf das geteilte Mesh (3D-Modell) zurck
+     * @return Mesh (3D-Modell)
+     */
+    public Mesh getMeshRef()
+    {
+        return _mesh;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -19,6 +19,7 @@ public class StaticLODGameObject implements IGameObject, ILODGameObject
     private Vector3 _rotation;
     private Vector3 _scale;
     private TurtleColor _color;
+    private BoundingSphere _bounds;
 
     /**
      * Konstruktor fr GameObjects mit gegebenem Mesh (3D-Modell), Position, Rotation und Skalierung
@@ -34,7 +35,7 @@ public class StaticLODGameObject implements IGameObject, ILODGameObject
         
         for(Pair<Double, Mesh> pair : lodLevels)
         {
-            _lodLevels.add(new Pair<Double, Mesh>(pair.getKey(), new Mesh(pair.getValue())));
+            _lodLevels.add(new Pair<Double, Mesh>(pair.getKey(), Mesh.orEmpty(pair.getValue())));
         }
         
         _color = color;
@@ -87,6 +88,15 @@ public class StaticLODGameObject implements IGameObject, ILODGameObject
         return _lodLevel;
     }
     
+    /**
+     * Gibt die LOD-Stufen des GameObjects zurck
+     * @return Kopie der Liste aus Distanzen und zugehrigen Meshes (aufsteigend sortiert)
+     */
+    public ArrayList<Pair<Double, Mesh>> getLODLevels()
+    {
+        return new ArrayList<Pair<Double, Mesh>>(_lodLevels);
+    }
+    
     /**
      * Generiert die Modelmatrix aller Transformationen auf dem GameObject
      * @return Modelmatrix
@@ -111,6 +121,23 @@ public class StaticLODGameObject implements IGameObject, ILODGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        if(_bounds == null)
+        {
+            BoundingSphere modelBounds = null;
+            for(Pair<Double, Mesh> pair : _lodLevels)
+            {
+                modelBounds = BoundingSphere.union(modelBounds, pair.getValue().getBounds());
+            }
+            _bounds = modelBounds.transform(getModelMatrix());
+        }
+        return _bounds;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
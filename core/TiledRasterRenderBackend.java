@@ -0,0 +1,215 @@
+package core;
+
+import java.util.concurrent.*;
+
+/**
+ * Raster-Backend, das den Bildschirm in ein Raster aus Kacheln aufteilt, die Linien anhand ihrer Bounding Box
+ * den Kacheln zuordnet und die Kacheln parallel auf einem ForkJoinPool rasterisiert.
+ * Jede Kachel beschreibt nur ihre eigenen Pixel und arbeitet ihre Linien in Eingabereihenfolge ab,
+ * daher ist keine Synchronisation ntig und das Ergebnis ist pixelgenau identisch zur seriellen Rasterisierung.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 04.01.2022
+ */
+public class TiledRasterRenderBackend extends RasterRenderBackend
+{
+    // Anzahl der Kacheln pro Achse
+    public static final int TILES_PER_AXIS = 8;
+    // Unterhalb dieser Linienanzahl wird seriell rasterisiert, da sich die Aufteilung nicht lohnt
+    public static final int PARALLEL_THRESHOLD = 256;
+    // Sicherheitsabstand der Bounding Box in Pixeln (Rundung der Endpunkte und zweiter Pixel bei Kantenglttung)
+    private static final int BOUNDS_MARGIN = 2;
+    
+    private ForkJoinPool _pool;
+    
+    // Linienindizes pro Kachel, werden zwischen Frames wiederverwendet
+    private int[][] _bins;
+    private int[] _binSizes;
+    
+    /**
+     * Konstruiert ein neues kachelbasiertes Raster-Backend, das den gemeinsamen ForkJoinPool nutzt
+     * @param rasterizer Rasterisierer, mit dem die Linien gezeichnet werden
+     */
+    public TiledRasterRenderBackend(ILineRasterizer rasterizer)
+    {
+        this(rasterizer, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Konstruiert ein neues kachelbasiertes Raster-Backend
+     * @param rasterizer Rasterisierer, mit dem die Linien gezeichnet werden
+     * @param pool ForkJoinPool, auf dem die Kacheln rasterisiert werden
+     */
+    public TiledRasterRenderBackend(ILineRasterizer rasterizer, ForkJoinPool pool)
+    {
+        super(rasterizer);
+        
+        if(pool == null)
+        {
+            throw new IllegalArgumentException("pool was null");
+        }
+        
+        _pool = pool;
+        _bins = new int[TILES_PER_AXIS * TILES_PER_AXIS][64];
+        _binSizes = new int[TILES_PER_AXIS * TILES_PER_AXIS];
+    }
+    
+    /**
+     * Ordnet die Linien des Befehlspuffers den Kacheln zu und rasterisiert diese parallel
+     * @param buffer Befehlspuffer mit den Linien des Frames
+     * @param palette Farben im Format 0xRRGGBB, indiziert ber die Farb-ID
+     * @param pixels Pixel-Array, in das geschrieben wird
+     * @param width Breite des Bildes in Pixeln
+     * @param height Hhe des Bildes in Pixeln
+     */
+    @Override
+    protected void rasterize(LineCommandBuffer buffer, int[] palette, int[] pixels, int width, int height)
+    {
+        if(buffer.size() < PARALLEL_THRESHOLD)
+        {
+            super.rasterize(buffer, palette, pixels, width, height);
+            return;
+        }
+        
+        int tileWidth = (width + TILES_PER_AXIS - 1) / TILES_PER_AXIS;
+        int tileHeight = (height + TILES_PER_AXIS - 1) / TILES_PER_AXIS;
+        
+        binLines(buffer, width, height, tileWidth, tileHeight);
+        
+        _pool.invoke(new TileRangeTask(buffer, palette, pixels, width, height, tileWidth, tileHeight, 0, _bins.length));
+    }
+    
+    /**
+     * Ordnet jede Linie allen Kacheln zu, die ihre auf den Bildschirm begrenzte Bounding Box berlappt
+     */
+    private void binLines(LineCommandBuffer buffer, int width, int height, int tileWidth, int tileHeight)
+    {
+        float[] coords = buffer.getCoords();
+        
+        for(int i = 0; i < _binSizes.length; i++)
+        {
+            _binSizes[i] = 0;
+        }
+        
+        for(int i = 0; i < buffer.size(); i++)
+        {
+            int offset = i * 4;
+            float x1 = coords[offset];
+            float y1 = coords[offset + 1];
+            float x2 = coords[offset + 2];
+            float y2 = coords[offset + 3];
+            
+            int minTileX = 0, minTileY = 0, maxTileX = TILES_PER_AXIS - 1, maxTileY = TILES_PER_AXIS - 1;
+            
+            // Ungltige Koordinaten werden konservativ allen Kacheln zugeordnet
+            if(!Float.isNaN(x1 + y1 + x2 + y2))
+            {
+                float minX = Math.min(x1, x2) - BOUNDS_MARGIN;
+                float maxX = Math.max(x1, x2) + BOUNDS_MARGIN;
+                float minY = Math.min(y1, y2) - BOUNDS_MARGIN;
+                float maxY = Math.max(y1, y2) + BOUNDS_MARGIN;
+                
+                // Linien vollstndig auerhalb des Bildschirms werden verworfen
+                if(maxX < 0 || maxY < 0 || minX >= width || minY >= height)
+                {
+                    continue;
+                }
+                
+                minTileX = Math.max((int)minX, 0) / tileWidth;
+                minTileY = Math.max((int)minY, 0) / tileHeight;
+                maxTileX = Math.min((int)maxX, width - 1) / tileWidth;
+                maxTileY = Math.min((int)maxY, height - 1) / tileHeight;
+            }
+            
+            for(int tileY = minTileY; tileY <= maxTileY; tileY++)
+            {
+                for(int tileX = minTileX; tileX <= maxTileX; tileX++)
+                {
+                    addToBin(tileY * TILES_PER_AXIS + tileX, i);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Fgt einen Linienindex an eine Kachel an und vergrert deren Liste bei Bedarf
+     */
+    private void addToBin(int bin, int lineIndex)
+    {
+        if(_binSizes[bin] == _bins[bin].length)
+        {
+            int[] grown = new int[_bins[bin].length * 2];
+            System.arraycopy(_bins[bin], 0, grown, 0, _binSizes[bin]);
+            _bins[bin] = grown;
+        }
+        _bins[bin][_binSizes[bin]++] = lineIndex;
+    }
+    
+    /**
+     * Rasterisiert alle Linien einer Kachel in Eingabereihenfolge, beschrnkt auf die Pixel der Kachel
+     */
+    private void rasterizeTile(int bin, LineCommandBuffer buffer, int[] palette, int[] pixels, int width, int height, int tileWidth, int tileHeight)
+    {
+        int clipMinX = (bin % TILES_PER_AXIS) * tileWidth;
+        int clipMinY = (bin / TILES_PER_AXIS) * tileHeight;
+        int clipMaxX = Math.min(clipMinX + tileWidth, width);
+        int clipMaxY = Math.min(clipMinY + tileHeight, height);
+        if(clipMinX >= clipMaxX || clipMinY >= clipMaxY)
+        {
+            return;
+        }
+        
+        ILineRasterizer rasterizer = getRasterizer();
+        float[] coords = buffer.getCoords();
+        int[] colors = buffer.getColors();
+        int[] lines = _bins[bin];
+        
+        for(int i = 0; i < _binSizes[bin]; i++)
+        {
+            int line = lines[i];
+            int offset = line * 4;
+            rasterizer.rasterizeLine(pixels, width, coords[offset], coords[offset + 1], coords[offset + 2], coords[offset + 3], palette[colors[line]], clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+    }
+    
+    /**
+     * ForkJoin-Aufgabe, die einen Bereich von Kacheln rekursiv halbiert und die einzelnen Kacheln rasterisiert
+     */
+    private class TileRangeTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final LineCommandBuffer _buffer;
+        private final int[] _palette;
+        private final int[] _pixels;
+        private final int _width, _height, _tileWidth, _tileHeight;
+        private final int _begin, _end;
+        
+        TileRangeTask(LineCommandBuffer buffer, int[] palette, int[] pixels, int width, int height, int tileWidth, int tileHeight, int begin, int end)
+        {
+            _buffer = buffer;
+            _palette = palette;
+            _pixels = pixels;
+            _width = width;
+            _height = height;
+            _tileWidth = tileWidth;
+            _tileHeight = tileHeight;
+            _begin = begin;
+            _end = end;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if(_end - _begin == 1)
+            {
+                rasterizeTile(_begin, _buffer, _palette, _pixels, _width, _height, _tileWidth, _tileHeight);
+                return;
+            }
+            
+            int middle = (_begin + _end) / 2;
+            invokeAll(new TileRangeTask(_buffer, _palette, _pixels, _width, _height, _tileWidth, _tileHeight, _begin, middle),
+                new TileRangeTask(_buffer, _palette, _pixels, _width, _height, _tileWidth, _tileHeight, middle, _end));
+        }
+    }
+}
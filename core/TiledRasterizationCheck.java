@@ -0,0 +1,88 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Prft, ob TiledRasterRenderBackend pixelgenau dasselbe Bild erzeugt wie die serielle Rasterisierung von RasterRenderBackend.
+ * Fr jeden Rasterisierer werden zufllige Linienstze (inklusive Linien auerhalb des Bildschirms und ungltiger Koordinaten)
+ * mit beiden Backends gezeichnet und die Pixel-Arrays verglichen.
+ * Aufruf: java core.TiledRasterizationCheck [Durchlufe] [Seed]
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 04.01.2022
+ */
+public class TiledRasterizationCheck
+{
+    private static final int WIDTH = 500;
+    private static final int HEIGHT = 500;
+    private static final int LINES_PER_RUN = 5000;
+    
+    /**
+     * Fhrt den Vergleich aus und beendet das Programm mit Status 1, falls sich ein Bild unterscheidet
+     * @param args optional: Anzahl der Durchlufe pro Rasterisierer und Seed
+     */
+    public static void main(String[] args)
+    {
+        int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 20;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0L;
+        
+        int[] palette = new int[TurtleColor.values().length];
+        for(TurtleColor color : TurtleColor.values())
+        {
+            palette[color.getID()] = color.getAwtColor().getRGB() & 0xFFFFFF;
+        }
+        
+        int mismatches = 0;
+        for(ILineRasterizer rasterizer : new ILineRasterizer[] { new BresenhamLineRasterizer(), new WuLineRasterizer() })
+        {
+            RasterRenderBackend serial = new RasterRenderBackend(rasterizer);
+            TiledRasterRenderBackend tiled = new TiledRasterRenderBackend(rasterizer);
+            Random random = new Random(seed);
+            int failedRuns = 0;
+            
+            for(int run = 0; run < runs; run++)
+            {
+                LineCommandBuffer buffer = createLines(random, palette.length);
+                int[] expected = new int[WIDTH * HEIGHT];
+                int[] actual = new int[WIDTH * HEIGHT];
+                serial.rasterize(buffer, palette, expected, WIDTH, HEIGHT);
+                tiled.rasterize(buffer, palette, actual, WIDTH, HEIGHT);
+                
+                if(!Arrays.equals(expected, actual))
+                {
+                    failedRuns++;
+                }
+            }
+            
+            System.out.println(rasterizer.getClass().getSimpleName() + ": " + (runs - failedRuns) + "/" + runs + " runs identical");
+            mismatches += failedRuns;
+        }
+        
+        if(mismatches > 0)
+        {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Erzeugt einen Befehlspuffer mit zuflligen Linien, von denen einige ber den Bildschirmrand hinausragen
+     * @param random Zufallsgenerator
+     * @param colorCount Anzahl der Farb-IDs
+     * @return Befehlspuffer mit mehr Linien als TiledRasterRenderBackend.PARALLEL_THRESHOLD
+     */
+    private static LineCommandBuffer createLines(Random random, int colorCount)
+    {
+        LineCommandBuffer buffer = new LineCommandBuffer();
+        for(int i = 0; i < LINES_PER_RUN; i++)
+        {
+            double x = random.nextDouble() * (WIDTH + 300) - 150;
+            double y = random.nextDouble() * (HEIGHT + 300) - 150;
+            buffer.add(x, y, x + random.nextDouble() * 200 - 100, y + random.nextDouble() * 200 - 100, random.nextInt(colorCount));
+        }
+        
+        // Ungltige Koordinaten und extrem lange Linien
+        buffer.add(Double.NaN, 3, 4, 5, 1);
+        buffer.add(-1e9, HEIGHT / 2, 1e9, HEIGHT / 2 + 10, 2);
+        return buffer;
+    }
+}
@@ -9,6 +9,7 @@ import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -289,7 +290,13 @@ class TurtleWelt
     
     public static final TurtleWelt GLOBALEWELT = new TurtleWelt();
     
-    private final Graphics2D _graphics;
+    // Hintergrundpuffer, in den gezeichnet wird, und Vordergrundpuffer, der angezeigt wird
+    private BufferedImage _backBuffer;
+    private BufferedImage _frontBuffer;
+    private Graphics2D _graphics;
+    private Graphics2D _frontGraphics;
+    
+    private final ImagePanel _panel;
     private final JFrame _frame;
 
     /**
@@ -297,15 +304,14 @@ class TurtleWelt
      */
     public TurtleWelt()
     {
-        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        _backBuffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        _frontBuffer = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
 
-        _graphics = image.createGraphics();
-        _graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);            
-        _graphics.setColor(Color.WHITE);
-        _graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        _graphics = createBufferGraphics(_backBuffer);
+        _frontGraphics = createBufferGraphics(_frontBuffer);
         
-        JPanel panel = new ImagePanel(image);
-        panel.addMouseListener(new MouseAdapter()
+        _panel = new ImagePanel(_frontBuffer);
+        _panel.addMouseListener(new MouseAdapter()
         {
             public void mousePressed(MouseEvent e)
             {
@@ -317,25 +323,41 @@ class TurtleWelt
         });
 
         _frame = new JFrame("Turtle Graphics - the canvas can be cleared by right-clicking on it");
-        _frame.add(panel);
+        _frame.add(_panel);
         _frame.pack();
         _frame.setResizable(false);
         _frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         _frame.setVisible(true);
     }
+    
+    /**
+     * Erzeugt den Zeichenkontext eines Bildpuffers und fuellt den Puffer weiss.
+     * 
+     * @param buffer Bildpuffer, fuer den der Zeichenkontext erzeugt wird
+     * @return Zeichenkontext des Bildpuffers
+     */
+    private static Graphics2D createBufferGraphics(BufferedImage buffer)
+    {
+        Graphics2D graphics = buffer.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, WIDTH, HEIGHT);
+        return graphics;
+    }
 
     /**
      * Loescht alle Spuren, die Turtles bisher hinterlassen haben.
+     * Die Aenderung wird erst mit dem naechsten Aufruf von tauschePuffer() sichtbar.
      */
     public void loescheAlleSpuren()
     {
         _graphics.setColor(new Color(16, 68, 116));
         _graphics.fillRect(0, 0, WIDTH, HEIGHT);
-        _frame.repaint();
     }
     
     /**
      * Faerbt den Frame in einer bestimmten Farbe mit RGB Wert.
+     * Die Aenderung wird erst mit dem naechsten Aufruf von tauschePuffer() sichtbar.
      * 
      * @param r der Rotanteil
      * @param g der Gruenanteil
@@ -350,11 +372,11 @@ class TurtleWelt
    
         _graphics.setColor(new Color(r, g, b));
         _graphics.fillRect(0, 0, WIDTH, HEIGHT);
-        _frame.repaint();
     }
 
     /**
-     * Zeichnet eine farbige Linie von (x1/y1) nach (x2/y2).
+     * Zeichnet eine farbige Linie von (x1/y1) nach (x2/y2) in den Hintergrundpuffer.
+     * Die Linie wird erst mit dem naechsten Aufruf von tauschePuffer() sichtbar.
      * 
      * @param x1 x-Wert vom ersten Koordinatenpaar
      * @param y1 y-Wert vom ersten Koordinatenpaar
@@ -366,7 +388,67 @@ class TurtleWelt
     {
         _graphics.setColor(farbe);
         _graphics.drawLine((int) (x1 + 0.5), (int) (y1 + 0.5), (int) (x2 + 0.5), (int) (y2 + 0.5));
-        _frame.repaint();
+    }
+    
+    /**
+     * Zeichnet alle Linien eines Befehlspuffers in einem Durchlauf in den Hintergrundpuffer.
+     * Die Zeichenfarbe wird nur gewechselt, wenn sie sich zwischen zwei Linien aendert.
+     * 
+     * @param puffer Befehlspuffer mit den zu zeichnenden Linien
+     */
+    public void zeichneLinien(LineCommandBuffer puffer)
+    {
+        float[] coords = puffer.getCoords();
+        int[] colors = puffer.getColors();
+        TurtleColor[] palette = TurtleColor.values();
+        int aktuelleFarbe = -1;
+        
+        for (int i = 0; i < puffer.size(); i++)
+        {
+            if (colors[i] != aktuelleFarbe)
+            {
+                aktuelleFarbe = colors[i];
+                _graphics.setColor(palette[aktuelleFarbe].getAwtColor());
+            }
+            
+            int offset = i * 4;
+            _graphics.drawLine((int) (coords[offset] + 0.5f), (int) (coords[offset + 1] + 0.5f),
+                (int) (coords[offset + 2] + 0.5f), (int) (coords[offset + 3] + 0.5f));
+        }
+    }
+    
+    /**
+     * Gibt das Pixel-Array des aktuellen Hintergrundpuffers zurueck, damit direkt hineingezeichnet werden kann.
+     * Jeder Eintrag enthaelt eine Farbe im Format 0xRRGGBB, die Pixel liegen zeilenweise hintereinander.
+     * Das Array wechselt mit jedem Aufruf von tauschePuffer() und muss daher pro Frame neu abgefragt werden.
+     * 
+     * @return Pixel-Array des Hintergrundpuffers
+     */
+    public int[] gibHintergrundPixel()
+    {
+        return ((DataBufferInt) _backBuffer.getRaster().getDataBuffer()).getData();
+    }
+    
+    /**
+     * Tauscht Vorder- und Hintergrundpuffer und fordert genau ein Neuzeichnen des Fensters an.
+     * Der fertig gezeichnete Frame wird dadurch vollstaendig und ohne Flackern angezeigt,
+     * waehrend der naechste Frame in den anderen Puffer gezeichnet wird.
+     */
+    public void tauschePuffer()
+    {
+        synchronized (_panel.gibSperre())
+        {
+            BufferedImage tempBuffer = _frontBuffer;
+            _frontBuffer = _backBuffer;
+            _backBuffer = tempBuffer;
+            
+            Graphics2D tempGraphics = _frontGraphics;
+            _frontGraphics = _graphics;
+            _graphics = tempGraphics;
+            
+            _panel.setzeBild(_frontBuffer);
+        }
+        _panel.repaint();
     }
 }
 
@@ -381,7 +463,10 @@ class TurtleWelt
  */
 class ImagePanel extends JPanel
 {
-    private final BufferedImage _image;
+    private BufferedImage _image;
+    
+    // Sperre, die verhindert, dass ein Puffer getauscht wird, waehrend er angezeigt wird
+    private final Object _sperre = new Object();
 
     /**
      * Initialisiert ein neues ImagePanel mit dem angegebenen Bild.
@@ -394,6 +479,26 @@ class ImagePanel extends JPanel
         _image = image;
         setPreferredSize(new Dimension(_image.getWidth(), _image.getHeight()));
     }
+    
+    /**
+     * Setzt das angezeigte Bild. Muss unter der Sperre des Panels aufgerufen werden.
+     * 
+     * @param image das neue anzuzeigende Bild
+     */
+    public void setzeBild(BufferedImage image)
+    {
+        _image = image;
+    }
+    
+    /**
+     * Gibt die Sperre zurueck, unter der das angezeigte Bild gewechselt werden darf.
+     * 
+     * @return Sperrobjekt des Panels
+     */
+    public Object gibSperre()
+    {
+        return _sperre;
+    }
 
     /**
      * Zeichnet das ImagePanel.
@@ -402,6 +507,9 @@ class ImagePanel extends JPanel
      */
     public void paintComponent(Graphics g)
     {
-        g.drawImage(_image, 0, 0, null);
+        synchronized (_sperre)
+        {
+            g.drawImage(_image, 0, 0, null);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package core;
 
+import java.awt.Color;
 
 /**
  * Enumeration der verfgbaren Farben einer Turtle.
@@ -11,29 +12,40 @@ package core;
  */
 public enum TurtleColor
 {
-    BLACK(0),
-    BLUE(1),
-    CYAN(2),
-    DARK_GRAY(3),
-    GRAY(4),
-    GREEN(5),
-    LIGHT_GRAY(6),
-    MAGENTA(7),
-    ORANGE(8),
-    PINK(9),
-    RED(10),
-    WHITE(11),
-    YELLOW(12);
+    BLACK(0, Color.BLACK),
+    BLUE(1, Color.BLUE),
+    CYAN(2, Color.CYAN),
+    DARK_GRAY(3, Color.DARK_GRAY),
+    GRAY(4, Color.GRAY),
+    GREEN(5, Color.GREEN),
+    LIGHT_GRAY(6, Color.LIGHT_GRAY),
+    MAGENTA(7, Color.MAGENTA),
+    ORANGE(8, Color.ORANGE),
+    PINK(9, Color.PINK),
+    RED(10, Color.RED),
+    WHITE(11, Color.WHITE),
+    YELLOW(12, Color.YELLOW);
     
     private Integer _id;
+    private Color _color;
     
-    private TurtleColor(final Integer id)
+    private TurtleColor(final Integer id, final Color color)
     {
         this._id = id;
+        this._color = color;
     }
     
     public Integer getID()
     {
         return _id;
     }
+    
+    /**
+     * Gibt die zugehrige Farbe aus java.awt.Color zurck
+     * @return AWT-Farbe des Eintrags
+     */
+    public Color getAwtColor()
+    {
+        return _color;
+    }
 }
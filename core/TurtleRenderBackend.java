@@ -0,0 +1,60 @@
+package core;
+
+
+/**
+ * Kompatibilitts-Backend, das jede Linie wie bisher ber eine Turtle zeichnet
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 02.01.2022
+ */
+public class TurtleRenderBackend implements IRenderBackend
+{
+    // Turtle, die zum Zeichnen verwendet wird
+    private Turtle _turtle;
+    
+    /**
+     * Konstruiert ein neues Turtle-Backend
+     */
+    public TurtleRenderBackend()
+    {
+        _turtle = new Turtle(0, 0);
+        _turtle.setzeGeschwindigkeit(10);
+    }
+    
+    /**
+     * Zeichnet eine farbige Linie mithilfe der Turtle
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param color Farbe der Linie
+     */
+    public void drawLine(double x1, double y1, double x2, double y2, TurtleColor color)
+    {
+        _turtle.hinterlasseKeineSpur();
+        _turtle.geheZu(x1, y1);
+        _turtle.setzeFarbe(Renderer.colorToString(color));
+        _turtle.hinterlasseSpur();
+        _turtle.geheZu(x2, y2);
+        _turtle.hinterlasseKeineSpur();
+    }
+    
+    /**
+     * Leert das Bild und frbt es in einer bestimmten Farbe
+     * @param r Rotkanal der Farbe [0, 255]
+     * @param g Grnkanal der Farbe [0, 255]
+     * @param b Blaukanal der Farbe [0, 255]
+     */
+    public void clear(int r, int g, int b)
+    {
+        TurtleWelt.GLOBALEWELT.bildschirmEinfaerben(r, g, b);
+    }
+    
+    /**
+     * Zeigt den Frame an, indem die Puffer der TurtleWelt getauscht werden
+     */
+    public void present()
+    {
+        TurtleWelt.GLOBALEWELT.tauschePuffer();
+    }
+}
@@ -0,0 +1,148 @@
+package core;
+
+
+/**
+ * Rasterisiert kantengeglttete Linien mit dem Algorithmus von Xiaolin Wu.
+ * Jeder Pixel wird anteilig mit dem bisherigen Inhalt des Pixel-Arrays gemischt.
+ * Die Zwischenwerte werden pro Spalte in geschlossener Form berechnet, sodass jeder Ausschnitt dieselben Werte liefert.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 03.01.2022
+ */
+public class WuLineRasterizer implements ILineRasterizer
+{
+    // Koordinaten werden auf diesen Betrag begrenzt, damit die Pixelindizes nicht berlaufen
+    private static final double COORD_LIMIT = 1 << 20;
+    
+    /**
+     * Rasterisiert eine kantengeglttete Linie in ein Pixel-Array
+     * @param pixels Pixel-Array, in das geschrieben wird
+     * @param width Breite des Bildes in Pixeln
+     * @param x1 X-Koordinate des Startpunkts
+     * @param y1 Y-Koordinate des Startpunkts
+     * @param x2 X-Koordinate des Endpunkts
+     * @param y2 Y-Koordinate des Endpunkts
+     * @param rgb Farbe der Linie im Format 0xRRGGBB
+     * @param clipMinX kleinste beschreibbare X-Koordinate (inklusiv)
+     * @param clipMinY kleinste beschreibbare Y-Koordinate (inklusiv)
+     * @param clipMaxX grte beschreibbare X-Koordinate (exklusiv)
+     * @param clipMaxY grte beschreibbare Y-Koordinate (exklusiv)
+     */
+    public void rasterizeLine(int[] pixels, int width, float x1, float y1, float x2, float y2, int rgb, int clipMinX, int clipMinY, int clipMaxX, int clipMaxY)
+    {
+        double ax = clampCoord(x1);
+        double ay = clampCoord(y1);
+        double bx = clampCoord(x2);
+        double by = clampCoord(y2);
+        
+        // Bei steilen Linien werden X- und Y-Achse vertauscht, sodass immer entlang der Hauptachse gelaufen wird
+        boolean steep = Math.abs(by - ay) > Math.abs(bx - ax);
+        double major1 = steep ? ay : ax;
+        double minor1 = steep ? ax : ay;
+        double major2 = steep ? by : bx;
+        double minor2 = steep ? bx : by;
+        
+        if(major1 > major2)
+        {
+            double temp = major1;
+            major1 = major2;
+            major2 = temp;
+            temp = minor1;
+            minor1 = minor2;
+            minor2 = temp;
+        }
+        
+        double delta = major2 - major1;
+        double gradient = (delta == 0.0) ? 1.0 : (minor2 - minor1) / delta;
+        
+        // Clip-Rechteck in Haupt- und Nebenachse
+        int majorClipMin = steep ? clipMinY : clipMinX;
+        int majorClipMax = steep ? clipMaxY : clipMaxX;
+        int minorClipMin = steep ? clipMinX : clipMinY;
+        int minorClipMax = steep ? clipMaxX : clipMaxY;
+        
+        // Erster Endpunkt
+        double majorEnd = Math.floor(major1 + 0.5);
+        double minorEnd = minor1 + gradient * (majorEnd - major1);
+        double gap = 1.0 - fpart(major1 + 0.5);
+        int firstMajor = (int)majorEnd;
+        double firstMinor = minorEnd;
+        plotPair(pixels, width, steep, firstMajor, minorEnd, gap, rgb, majorClipMin, majorClipMax, minorClipMin, minorClipMax);
+        
+        // Zweiter Endpunkt
+        majorEnd = Math.floor(major2 + 0.5);
+        minorEnd = minor2 + gradient * (majorEnd - major2);
+        gap = fpart(major2 + 0.5);
+        int lastMajor = (int)majorEnd;
+        plotPair(pixels, width, steep, lastMajor, minorEnd, gap, rgb, majorClipMin, majorClipMax, minorClipMin, minorClipMax);
+        
+        // Innere Pixel, beschrnkt auf das Clip-Rechteck
+        int start = Math.max(firstMajor + 1, majorClipMin);
+        int end = Math.min(lastMajor - 1, majorClipMax - 1);
+        for(int major = start; major <= end; major++)
+        {
+            double minor = firstMinor + gradient * (major - firstMajor);
+            plotPair(pixels, width, steep, major, minor, 1.0, rgb, majorClipMin, majorClipMax, minorClipMin, minorClipMax);
+        }
+    }
+    
+    /**
+     * Zeichnet die beiden Pixel, auf die sich eine Spalte der Linie verteilt
+     */
+    private static void plotPair(int[] pixels, int width, boolean steep, int major, double minor, double coverage, int rgb, int majorClipMin, int majorClipMax, int minorClipMin, int minorClipMax)
+    {
+        if(major < majorClipMin || major >= majorClipMax)
+        {
+            return;
+        }
+        
+        int minorPixel = (int)Math.floor(minor);
+        double fraction = minor - minorPixel;
+        plot(pixels, width, steep, major, minorPixel, (1.0 - fraction) * coverage, rgb, minorClipMin, minorClipMax);
+        plot(pixels, width, steep, major, minorPixel + 1, fraction * coverage, rgb, minorClipMin, minorClipMax);
+    }
+    
+    /**
+     * Mischt die Linienfarbe mit einer gegebenen Deckkraft in einen Pixel
+     */
+    private static void plot(int[] pixels, int width, boolean steep, int major, int minor, double alpha, int rgb, int minorClipMin, int minorClipMax)
+    {
+        int a = (int)(alpha * 255.0 + 0.5);
+        if(a <= 0 || minor < minorClipMin || minor >= minorClipMax)
+        {
+            return;
+        }
+        
+        int index = steep ? major * width + minor : minor * width + major;
+        int dst = pixels[index];
+        
+        int dr = (dst >> 16) & 0xFF;
+        int dg = (dst >> 8) & 0xFF;
+        int db = dst & 0xFF;
+        int r = dr + ((((rgb >> 16) & 0xFF) - dr) * a) / 255;
+        int g = dg + ((((rgb >> 8) & 0xFF) - dg) * a) / 255;
+        int b = db + (((rgb & 0xFF) - db) * a) / 255;
+        
+        pixels[index] = (r << 16) | (g << 8) | b;
+    }
+    
+    /**
+     * Gibt den Nachkommaanteil einer Zahl zurck
+     */
+    private static double fpart(double value)
+    {
+        return value - Math.floor(value);
+    }
+    
+    /**
+     * Begrenzt eine Koordinate auf einen sicheren Wertebereich
+     */
+    private static double clampCoord(float value)
+    {
+        if(!(value > -COORD_LIMIT))
+        {
+            return -COORD_LIMIT;
+        }
+        return Math.min(value, COORD_LIMIT);
+    }
+}
@@ -80,9 +80,7 @@ public class AudioVisualizer implements AudioSpectrumListener, IGameObject
             }
         }
         
-        Mesh mesh = new Mesh();
-        mesh.vertices = vertices;
-        mesh.lineIndices = lineIndices;
+        Mesh mesh = new Mesh(vertices, lineIndices);
         
         synchronized(_mutex)
         {
@@ -130,6 +128,14 @@ public class AudioVisualizer implements AudioSpectrumListener, IGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
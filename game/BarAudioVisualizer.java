@@ -77,9 +77,7 @@ public class BarAudioVisualizer implements AudioSpectrumListener, IGameObject
             c += 2;
         }
         
-        Mesh mesh = new Mesh();
-        mesh.vertices = vertices;
-        mesh.lineIndices = lineIndices;
+        Mesh mesh = new Mesh(vertices, lineIndices);
         
         synchronized(_mutex)
         {
@@ -127,6 +125,14 @@ public class BarAudioVisualizer implements AudioSpectrumListener, IGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -3,6 +3,7 @@ package game;
 import maths.*;
 import core.*;
 import java.util.*;
+import util.*;
 
 /**
  * Credits des Spiels
@@ -26,7 +27,7 @@ public class CreditScene extends Scene
         _camera.setPosition(new Vector3(0.0, 2, 5.0));
         _camera.setFov(30.0);
         
-        HashMap<String, Mesh> titleScreenMeshes = _state.resourceManager.loadTitleScreenMeshes();
+        MeshSet titleScreenMeshes = _state.resourceManager.getMeshSet(ResourceManager.TITLE_SCREEN_MESHES);
         
         _title = new StaticGameObject(titleScreenMeshes.get("title"), TurtleColor.CYAN, new Vector3 (0.0, 5, -14), new Vector3(), new Vector3(1.0, 1.0, 1.0));
         
@@ -59,7 +60,9 @@ public class CreditScene extends Scene
     {
         _state.renderer.clear(10, 10, 10);
         
+        _state.renderer.beginFrame(_camera);
         _title.draw(_state.renderer, _camera);
+        _state.renderer.endFrame();
         _camera.setPosition(new Vector3(0.0, 14-_time*0.81, 5.0));
         _title.update(deltaTime, runTime, _camera.getPosition());
         
@@ -22,6 +22,7 @@ public class DoorGameObject implements IDoorGameObject, IGameObject, ILODGameObj
     private Vector3 _rotation;
     private Vector3 _scale;
     private Matrix4 _model;
+    private BoundingSphere _bounds;
     
     // Functionality
     private boolean _facingZ;
@@ -165,6 +166,47 @@ public class DoorGameObject implements IDoorGameObject, IGameObject, ILODGameObj
         }
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        if(_bounds == null)
+        {
+            BoundingSphere modelBounds = null;
+            for(ArrayList<Pair<Mesh, TurtleColor>> coloredMeshList : Arrays.asList(_coloredMeshesClosed, _coloredMeshesOpen))
+            {
+                if(coloredMeshList == null) continue;
+                for(Pair<Mesh, TurtleColor> coloredMesh : coloredMeshList)
+                {
+                    modelBounds = BoundingSphere.union(modelBounds, coloredMesh.getKey().getBounds());
+                }
+            }
+            
+            BoundingSphere bounds = (modelBounds != null) ? modelBounds.transform(getModelMatrix()) : null;
+            if(_lockObject != null)
+            {
+                bounds = BoundingSphere.union(bounds, _lockObject.getBounds());
+            }
+            for(ArrayList<IGameObject> objects : Arrays.asList(_floor, _walls))
+            {
+                if(objects == null) continue;
+                for(IGameObject obj : objects)
+                {
+                    BoundingSphere objBounds = obj.getBounds();
+                    if(objBounds == null)
+                    {
+                        // Teilobjekte ohne Hllkugel drfen nie verworfen werden
+                        return null;
+                    }
+                    bounds = BoundingSphere.union(bounds, objBounds);
+                }
+            }
+            _bounds = bounds;
+        }
+        return _bounds;
+    }
+    
     /**
      * @see IGameObject#draw()
      */
@@ -287,6 +329,14 @@ public class DoorGameObject implements IDoorGameObject, IGameObject, ILODGameObj
         return _facingZ;
     }
     
+    /**
+     * @see IDoorGameObject#isTriggeredBy()
+     */
+    public boolean isTriggeredBy(Vector2i tilePos)
+    {
+        return _doorTriggers.contains(tilePos);
+    }
+    
     /**
      * @see IDoorGameObject#getTilePosition()
      */
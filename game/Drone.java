@@ -43,7 +43,7 @@ public class Drone extends Enemy implements ILivingEntity, ICollisionListener, I
     private Sound _hoverSound;
     
     // Partikel
-    private HashMap<String, Mesh> _particleMeshes;
+    private MeshSet _particleMeshes;
     
     // Positionierung
     private Vector3 _scale;
@@ -101,7 +101,7 @@ public class Drone extends Enemy implements ILivingEntity, ICollisionListener, I
      * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
      * @param soundEngine Sound Engine, aus der die Sounds der Entity bezogen werden
      */
-    public Drone(Vector3 position, boolean active, Room room, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine)
+    public Drone(Vector3 position, boolean active, Room room, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine)
     {
         _room = room;
         
@@ -653,6 +653,15 @@ public class Drone extends Enemy implements ILivingEntity, ICollisionListener, I
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Das Mndungsfeuer reicht ber das Mesh hinaus, das Mesh selbst wird beim Zeichnen verworfen
+        return null;
+    }
+    
     /**
      * @see ILivingEntity#isAlive()
      */
@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Haupt-Szene des Spiels
@@ -17,29 +18,27 @@ public class GameScene extends Scene
     private Player _player;
     private PlayerViewModel _viewModel;
     
+    // Name der gespielten Map
+    public static final String MAP_NAME = "Level";
+    
     public GameScene(GameState state)
     {
         super(state);
         
-        // Meshes laden
-        HashMap<String, Mesh> entityMeshes = _state.resourceManager.loadEntityMeshes();
-        HashMap<String, Mesh> particleMeshes = _state.resourceManager.loadParticleMeshes();
-        HashMap<String, Mesh> tileMeshes = _state.resourceManager.loadTileMeshes();
-        HashMap<String, Mesh> viewModelMeshes = _state.resourceManager.loadViewModelMeshes();
+        // Soundquellen und -gruppen registrieren, geladen werden sie beim Laden der Map oder bei Bedarf
+        _state.resourceManager.registerSoundSources(_state.soundEngine);
         
-        _mapHandler = new MapHandler(tileMeshes, entityMeshes, particleMeshes, _state.soundEngine);
+        // Meshes werden erst beim ersten Zugriff geladen, sofern sie nicht bereits angefordert wurden
+        _mapHandler = new MapHandler(_state.resourceManager, _state.soundEngine);
         
-        _viewModel = new PlayerViewModel(viewModelMeshes, state, _mapHandler);
+        _viewModel = new PlayerViewModel(_state.resourceManager.getMeshSet(ResourceManager.VIEW_MODEL_MESHES), state, _mapHandler);
         
-        _mapHandler.load("Level");
+        _mapHandler.load(MAP_NAME);
         
         _player = new Player(_mapHandler.getMap().getPlayerSpawn(), new Vector3(0.0, _mapHandler.getMap().getPlayerSpawnAngle(), 0.0), _state.soundEngine);
         _mapHandler.getMap().globalColliders.add(_player.getCollider());
         _mapHandler.getMap().setPlayer(_player);
         
-        // Sounds aus Dateien laden
-        _state.resourceManager.loadSoundSources(_state.soundEngine);
-        
         // Musik-Loop starten
         _state.soundEngine.playSound("music1", 0.2, true);
         
@@ -153,12 +152,17 @@ public class GameScene extends Scene
         // Cleart das Bild
         _state.renderer.clear(0, 0, 0);
         
+        // Renderkontext der Spielerkamera fr diesen Frame berechnen
+        _state.renderer.beginFrame(playerCam);
+        
         // Map zeichnen
         _mapHandler.getMap().draw(_state.renderer, playerCam);
         
         // Viewmodel (Hnde, Waffe) zeichnen
         _viewModel.draw(_state.renderer, playerCam);
         
+        _state.renderer.endFrame();
+        
         // User Interface zeichnen
         _state.renderer.drawCrosshair(8.0, 6.0, TurtleColor.GREEN);
         _state.renderer.drawHealthbar(_player.getHealth());
@@ -4,7 +4,9 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import java.util.concurrent.*;
 import javafx.util.*;
+import util.*;
 
 /**
  * Beschreiben Sie hier die Klasse GridMap.
@@ -18,14 +20,28 @@ public class GridMap
     private ArrayList<Vector2i> _doorLocations;
     
     // Rohe Mapdaten
-    private ArrayList<ArrayList<Integer>> _tileLayer;
-    private ArrayList<ArrayList<Integer>> _functionLayer;
+    private MapLayer _tileLayer;
+    private MapLayer _functionLayer;
+    
+    // Raum-ID jeder Tile (zeilenweise wie die Mapdaten, -1 = kein Raum)
+    private int[] _roomGrid;
     
     // Spieler-Spawnpunkt
     private Vector3 _playerSpawn;
     private double _playerSpawnAngle;
     private Player _player;
     
+    // Vorberechnete Sichtbarkeit der Rume und aktuell sichtbare Rume/Tren
+    private PotentiallyVisibleSet _pvs;
+    private int[] _visibleRooms;
+    private ArrayList<IDoorGameObject> _visibleDoors;
+    
+    // Grober Tiefenpuffer der Wnde zur Verdeckungsprfung
+    private OcclusionBuffer _occlusionBuffer;
+    
+    // Nachladen und Entladen der Rume um den aktiven Raum, null, wenn alle Rume geladen sind
+    private RoomStreamer _streamer;
+    
     /**
      * Index des aktuell aktiven Raumes der GridMap
      */
@@ -53,33 +69,44 @@ public class GridMap
 
     /**
      * Konstruktor fr Objekte der Klasse GridMap
-     * @param tileLayer zweidimensionale Liste der Tile-Werte
-     * @param functionLayer zweidimensionale Liste der funktionalen Tiles
+     * @param tileLayer Ebene der Tile-Werte
+     * @param functionLayer Ebene der funktionalen Tiles
      */
-    public GridMap(ArrayList<ArrayList<Integer>> tileLayer, ArrayList<ArrayList<Integer>> functionLayer)
+    public GridMap(MapLayer tileLayer, MapLayer functionLayer)
     {
+        if(tileLayer == null || functionLayer == null)
+        {
+            throw new IllegalArgumentException("GridMap layers must not be null");
+        }
+        
         _tileLayer = tileLayer;
         _functionLayer = functionLayer;
+        _roomGrid = new int[tileLayer.getWidth() * tileLayer.getHeight()];
+        Arrays.fill(_roomGrid, -1);
         _doorLocations = new ArrayList<Vector2i>();
         doors = new ArrayList<IDoorGameObject>();
         rooms = new ArrayList<Room>();
         globalColliders = new ArrayList<ICollider>();
         _playerSpawn = new Vector3(0.0, 2.0, 0.0);
         _playerSpawnAngle = 0.0;
+        _pvs = null;
+        _visibleRooms = new int[0];
+        _visibleDoors = new ArrayList<IDoorGameObject>();
+        _occlusionBuffer = new OcclusionBuffer(OcclusionBuffer.DEFAULT_SIZE);
+        _streamer = null;
     }
     
     /**
      * Updated die GridMap.
-     * Levels of Detail und Draw Order werden neu berechnet.
+     * Levels of Detail werden neu berechnet.
      * @param deltaTime Deltazeit des Frames in Sekunden
      * @param runTime Laufzeit des Programms in Sekunden
      * @param cameraPosition Position der Kamera im World Space
      */
     public void update(double deltaTime, double runTime, Vector3 cameraPosition)
     {
-        // LODs und DrawOrder updaten
+        // LODs updaten
         updateLOD(cameraPosition);
-        reorderAroundCamera(cameraPosition);
         
         // Aktiven Raum updaten
         rooms.get(activeRoom).update(deltaTime, runTime, cameraPosition);
@@ -92,11 +119,54 @@ public class GridMap
         
         // ID des aktiven Raums neu berechnen
         Vector2i tilePos = MapHandler.worldPosToTilePos(cameraPosition);
-        Integer roomID = getRoomID(tilePos);
-        if(roomID != null && roomID != activeRoom)
+        int roomID = getRoomID(tilePos.getX(), tilePos.getY());
+        if(roomID != -1 && roomID != activeRoom)
         {
             activeRoom = roomID;
         }
+        
+        // Rume um den aktiven Raum und hinter ausgelsten Tren nachladen, entfernte Rume entladen
+        if(_streamer != null)
+        {
+            _streamer.update(activeRoom, tilePos);
+        }
+        
+        // Sichtbare Rume fr Trzustnde und aktiven Raum nach dem Update neu bestimmen
+        updateVisibleRooms();
+    }
+    
+    /**
+     * Bestimmt anhand des Potentially Visible Sets die aus dem aktiven Raum sichtbaren Rume und deren Tren neu.
+     * Die Liste wird nur neu aufgebaut, wenn sich der aktive Raum oder der Zustand einer Tr gendert hat.
+     */
+    private void updateVisibleRooms()
+    {
+        if(_pvs == null)
+        {
+            return;
+        }
+        
+        boolean doorsChanged = _pvs.updateDoorStates(doors);
+        int[] visibleRooms = _pvs.getVisibleRooms(activeRoom);
+        if(!doorsChanged && visibleRooms == _visibleRooms)
+        {
+            return;
+        }
+        
+        // Tren aller sichtbaren Rume einmalig sammeln
+        _visibleRooms = visibleRooms;
+        _visibleDoors.clear();
+        Set<IDoorGameObject> collected = Collections.newSetFromMap(new IdentityHashMap<IDoorGameObject, Boolean>());
+        for(int roomID : _visibleRooms)
+        {
+            for(IDoorGameObject door : rooms.get(roomID).getDoors())
+            {
+                if(collected.add(door))
+                {
+                    _visibleDoors.add(door);
+                }
+            }
+        }
     }
     
     /**
@@ -109,226 +179,365 @@ public class GridMap
     }
     
     /**
-     * Zeichnet die Mapgeometrie mit einem gegebenen Renderer in das Sichtfeld einer gegebenen Kamera
+     * Zeichnet die Mapgeometrie mit einem gegebenen Renderer in das Sichtfeld einer gegebenen Kamera.
+     * Ausgehend vom aktiven Raum werden nur Rume gezeichnet, die durch offene und sichtbare Tren (Portale) zu sehen sind.
+     * Die Objekte jedes Raums werden gegen das durch seine Portale eingeengte Sichtvolumen geprft.
      * @param renderer zu nutzender Renderer
      * @param camera zu benutzende Kamera
      */
     public void draw(Renderer renderer, Camera camera)
     {
-        HashSet<Integer> completedRooms = new HashSet<Integer>();
-        HashSet<Vector2i> completedDoors = new HashSet<Vector2i>();
+        RenderContext context = renderer.getRenderContext(camera);
+        
+        // Sichtbare Rume und ihre Bildschirmausschnitte bestimmen
+        LinkedHashMap<Integer, double[]> windows = computePortalWindows(context);
+        
+        // Wnde aller sichtbaren Rume in den Verdeckungspuffer rasterisieren
+        OcclusionBuffer occlusion = null;
+        if(Game.OCCLUSION_CULLING)
+        {
+            occlusion = _occlusionBuffer;
+            occlusion.clear(context);
+            for(int roomID : windows.keySet())
+            {
+                if(!isRoomResident(roomID))
+                {
+                    continue;
+                }
+                for(Vector3[] quad : rooms.get(roomID).getOccluders())
+                {
+                    occlusion.addOccluder(quad[0], quad[1], quad[2], quad[3]);
+                }
+            }
+        }
         
-        // Zeichnet rekursiv alle Rume, vom aktuellen Raum aus
-        drawConnectedRooms(activeRoom, completedRooms, completedDoors, renderer, camera);
+        // Jeden sichtbaren Raum einmalig mit seinem eingeengten Sichtvolumen zeichnen
+        HashSet<Vector2i> completedDoors = new HashSet<Vector2i>();
+        for(Map.Entry<Integer, double[]> entry : windows.entrySet())
+        {
+            double[] window = entry.getValue();
+            Frustum frustum = new Frustum(context.getViewProjectionMatrix(false), context.getNear(), context.getFar(), window[0], window[1], window[2], window[3]);
+            drawRoom(entry.getKey(), frustum, occlusion, completedDoors, renderer, camera);
+        }
     }
     
     /**
-     * Zeichnet einen gegebenen Raum und alle damit verknpften Rume und Tren
+     * Zeichnet einen Raum und seine Tren in einem gegebenen Sichtvolumen
      * @param roomID ID des Raums in der GridMap-Raumliste
-     * @param completedRooms HashSet der bereits gezeichneten RaumIDs
+     * @param frustum Sichtvolumen, gegen das die Objekte geprft werden
+     * @param occlusion Verdeckungspuffer, gegen den die Objekte geprft werden, darf null sein
      * @param completedDoors HashSet der bereits gezeichneten Trpositionen
      * @param renderer Renderer, der zum Zeichnen verwendet werden soll
      * @param camera Kamera, in deren Sichtfeld gerendert werden soll
      */
-    private void drawConnectedRooms(int roomID, HashSet<Integer> completedRooms, HashSet<Vector2i> completedDoors, Renderer renderer, Camera camera)
+    private void drawRoom(int roomID, Frustum frustum, OcclusionBuffer occlusion, HashSet<Vector2i> completedDoors, Renderer renderer, Camera camera)
     {
-        // Aktuellen Raum bekommen und rendern
+        // Nicht geladene Rume zeichnen nur ihre Tren
         Room room = rooms.get(roomID);
-        room.draw(renderer, camera);
+        if(isRoomResident(roomID))
+        {
+            room.draw(renderer, camera, frustum, occlusion);
+        }
         
         for(IDoorGameObject door : room.getDoors())
         {
             // Tr nur zeichnen, wenn sie im selben Frame nicht zuvor gezeichnet wurde
-            if(!completedDoors.contains(door.getTilePosition()))
+            if(!completedDoors.contains(door.getTilePosition()) && renderer.isVisible(door, frustum) && (occlusion == null || !occlusion.isOccluded(door.getBounds())))
             {
-                if(door instanceof IGameObject)
-                {
-                    ((IGameObject)door).draw(renderer, camera);
-                }
+                door.draw(renderer, camera);
                 completedDoors.add(door.getTilePosition());
             }
+        }
+    }
+    
+    /**
+     * Bestimmt ausgehend vom aktiven Raum alle durch offene Tren sichtbaren Rume.
+     * Jeder Raum erhlt einen Bildschirmausschnitt in Normalized Device Coordinates (minX, minY, maxX, maxY),
+     * der die Vereinigung aller Portalfenster ist, durch die er zu sehen ist.
+     * Ein Raum wird erneut betrachtet, sobald sich sein Ausschnitt vergrert.
+     * @param context Renderkontext der Kamera
+     * @return sichtbare Raum-IDs mit ihren Bildschirmausschnitten, in der Reihenfolge ihrer Entdeckung
+     */
+    private LinkedHashMap<Integer, double[]> computePortalWindows(RenderContext context)
+    {
+        LinkedHashMap<Integer, double[]> windows = new LinkedHashMap<Integer, double[]>();
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        
+        windows.put(activeRoom, new double[] { -1.0, -1.0, 1.0, 1.0 });
+        queue.add(activeRoom);
+        
+        while(!queue.isEmpty())
+        {
+            int roomID = queue.poll();
+            double[] window = windows.get(roomID);
             
-            // Raum dahinter nur behandeln, wenn die Tr offen ist
-            if(door.isOpen())
+            for(IDoorGameObject door : rooms.get(roomID).getDoors())
             {
-                // ID des Raums am anderen Ende der Tr feststellen
-                Integer otherRoom = null;
-                Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
-                if(doorConnection.getKey() != null && roomID == doorConnection.getKey())
+                // Raum dahinter nur behandeln, wenn die Tr offen ist
+                if(!door.isOpen())
+                {
+                    continue;
+                }
+                
+                // Nur Rume aus dem Potentially Visible Set des aktiven Raums betrachten
+                Integer otherRoom = getOtherRoomID(door, roomID);
+                if(otherRoom == null || (_pvs != null && !_pvs.isVisible(activeRoom, otherRoom)))
+                {
+                    continue;
+                }
+                
+                // Portalfenster der Tr mit dem aktuellen Ausschnitt schneiden
+                double[] portal = getPortalWindow(door, context);
+                if(portal == null)
                 {
-                    otherRoom = doorConnection.getValue();
+                    continue;
                 }
-                else if(doorConnection.getValue() != null && roomID == doorConnection.getValue())
+                double[] narrowed = new double[] {
+                    Math.max(window[0], portal[0]), Math.max(window[1], portal[1]),
+                    Math.min(window[2], portal[2]), Math.min(window[3], portal[3])
+                };
+                if(narrowed[0] >= narrowed[2] || narrowed[1] >= narrowed[3])
                 {
-                    otherRoom = doorConnection.getKey();
+                    continue;
                 }
                 
-                // Nchsten Raum nur zeichnen, wenn er existiert und nicht bereits gerendert wurde
-                if(otherRoom != null && !completedRooms.contains(otherRoom))
+                // Ausschnitt des Nachbarraums erweitern und ihn bei nderung erneut betrachten
+                double[] existing = windows.get(otherRoom);
+                if(existing == null)
                 {
-                    completedRooms.add(otherRoom);
-                    drawConnectedRooms(otherRoom, completedRooms, completedDoors, renderer, camera);
+                    windows.put(otherRoom, narrowed);
+                    queue.add(otherRoom);
+                }
+                else if(narrowed[0] < existing[0] || narrowed[1] < existing[1] || narrowed[2] > existing[2] || narrowed[3] > existing[3])
+                {
+                    existing[0] = Math.min(existing[0], narrowed[0]);
+                    existing[1] = Math.min(existing[1], narrowed[1]);
+                    existing[2] = Math.max(existing[2], narrowed[2]);
+                    existing[3] = Math.max(existing[3], narrowed[3]);
+                    if(!queue.contains(otherRoom))
+                    {
+                        queue.add(otherRoom);
+                    }
                 }
             }
         }
+        
+        return windows;
     }
     
     /**
-     * Updated die Levels-of-Detail der Mapgeometrie im Verhltnis zu einem Bezugspunkt
-     * @param cameraPosition Position der Kamera, die als Bezugspunkt der LOD-Berechnung genutzt wird
+     * Projiziert die ffnung einer Tr auf ein Rechteck in Normalized Device Coordinates.
+     * Als ffnung wird konservativ der Quader aus der Grundflche der Tr-Tile und der Hhe der Tr-Hllkugel genutzt.
+     * @param door Tr, deren ffnung projiziert wird
+     * @param context Renderkontext der Kamera
+     * @return Rechteck (minX, minY, maxX, maxY), den gesamten Bildschirm, wenn die ffnung die Near-Clipping-Ebene schneidet,
+     *         oder null, wenn die ffnung vollstndig hinter der Kamera liegt
      */
-    private void updateLOD(Vector3 cameraPosition)
+    private double[] getPortalWindow(IDoorGameObject door, RenderContext context)
     {
-        HashSet<Integer> completedRooms = new HashSet<Integer>();
-        HashSet<Vector2i> completedDoors = new HashSet<Vector2i>();
+        BoundingSphere bounds = door.getBounds();
+        if(bounds == null)
+        {
+            return new double[] { -1.0, -1.0, 1.0, 1.0 };
+        }
+        
+        Vector3 center = MapHandler.tilePosToWorldPos(door.getTilePosition());
+        double halfWidth = MapHandler.TILE_WIDTH / 2.0;
+        double minY = bounds.getY() - bounds.getRadius();
+        double maxY = bounds.getY() + bounds.getRadius();
+        
+        Matrix4 viewProjection = context.getViewProjectionMatrix(false);
+        double near = context.getNear();
+        double[] result = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        int cornersBehind = 0;
+        
+        for(int corner = 0; corner < 8; corner++)
+        {
+            double x = center.getX() + (((corner & 1) == 0) ? -halfWidth : halfWidth);
+            double y = ((corner & 2) == 0) ? minY : maxY;
+            double z = center.getZ() + (((corner & 4) == 0) ? -halfWidth : halfWidth);
+            
+            double clipX = viewProjection.get(0, 0) * x + viewProjection.get(1, 0) * y + viewProjection.get(2, 0) * z + viewProjection.get(3, 0);
+            double clipY = viewProjection.get(0, 1) * x + viewProjection.get(1, 1) * y + viewProjection.get(2, 1) * z + viewProjection.get(3, 1);
+            double clipW = viewProjection.get(0, 3) * x + viewProjection.get(1, 3) * y + viewProjection.get(2, 3) * z + viewProjection.get(3, 3);
+            
+            // Sichtbare Punkte haben ein negatives w
+            if(-clipW < near)
+            {
+                cornersBehind++;
+                continue;
+            }
+            
+            result[0] = Math.min(result[0], clipX / clipW);
+            result[1] = Math.min(result[1], clipY / clipW);
+            result[2] = Math.max(result[2], clipX / clipW);
+            result[3] = Math.max(result[3], clipY / clipW);
+        }
         
-        // Updated rekursiv die LODs aller Rume, vom aktuellen Raum aus
-        lodUpdateConnectedRooms(activeRoom, completedRooms, completedDoors, cameraPosition);
+        if(cornersBehind == 8)
+        {
+            return null;
+        }
+        if(cornersBehind > 0)
+        {
+            return new double[] { -1.0, -1.0, 1.0, 1.0 };
+        }
+        return result;
     }
     
     /**
-     * Updated die Levels-of-Detail fr einen gegebenen Raum und alle damit verknpften Rume und Tren
-     * @param roomID ID des Raums in der GridMap-Raumliste
-     * @param completedRooms HashSet der bereits gezeichneten RaumIDs
-     * @param completedDoors HashSet der bereits gezeichneten Trpositionen
+     * Gibt die ID des Raums am anderen Ende einer Tr zurck
+     * @param door Tr
+     * @param roomID ID des Raums auf dieser Seite der Tr
+     * @return ID des anderen Raums oder null, wenn die Tr nicht mit dem gegebenen Raum verbunden ist
+     */
+    private Integer getOtherRoomID(IDoorGameObject door, int roomID)
+    {
+        Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
+        if(doorConnection.getKey() != null && roomID == doorConnection.getKey())
+        {
+            return doorConnection.getValue();
+        }
+        else if(doorConnection.getValue() != null && roomID == doorConnection.getValue())
+        {
+            return doorConnection.getKey();
+        }
+        return null;
+    }
+    
+    /**
+     * Updated die Levels-of-Detail der Mapgeometrie im Verhltnis zu einem Bezugspunkt
      * @param cameraPosition Position der Kamera, die als Bezugspunkt der LOD-Berechnung genutzt wird
      */
-    private void lodUpdateConnectedRooms(int roomID, HashSet<Integer> completedRooms, HashSet<Vector2i> completedDoors, Vector3 cameraPosition)
+    private void updateLOD(Vector3 cameraPosition)
     {
-        // Aktuellen Raum bekommen und updaten
-        Room room = rooms.get(roomID);
-        room.updateLOD(cameraPosition);
-        
-        for(IDoorGameObject door : room.getDoors())
+        // LODs aller aus dem aktiven Raum sichtbaren Rume und ihrer Tren updaten
+        for(int roomID : _visibleRooms)
         {
-            // Tr nur updaten, wenn sie im selben Frame nicht zuvor geupdated wurde
-            if(!completedDoors.contains(door.getTilePosition()))
+            if(isRoomResident(roomID))
             {
-                if(door instanceof ILODGameObject)
-                {
-                    ((ILODGameObject)door).updateLOD(cameraPosition);                    
-                }
-                completedDoors.add(door.getTilePosition());
+                rooms.get(roomID).updateLOD(cameraPosition);
             }
-            
-            // Raum dahinter nur behandeln, wenn die Tr offen ist
-            if(door.isOpen())
+        }
+        for(IDoorGameObject door : _visibleDoors)
+        {
+            if(door instanceof ILODGameObject)
             {
-                // ID des Raums am anderen Ende der Tr feststellen
-                Integer otherRoom = null;
-                Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
-                if(roomID == doorConnection.getKey())
-                {
-                    otherRoom = doorConnection.getValue();
-                }
-                else if(roomID == doorConnection.getValue())
-                {
-                    otherRoom = doorConnection.getKey();
-                }
-                
-                // Nchsten Raum nur updaten, wenn er existiert und nicht bereits geupdated wurde
-                if(otherRoom != null && !completedRooms.contains(otherRoom))
-                {
-                    completedRooms.add(otherRoom);
-                    lodUpdateConnectedRooms(otherRoom, completedRooms, completedDoors, cameraPosition);
-                }
+                ((ILODGameObject)door).updateLOD(cameraPosition);
             }
         }
     }
     
     /**
-     * Sortiert die GameObjects, die Teil der Mapgeometrie sind, neu, sodass sie mit aufsteigender Distanz zur Kamera sortiert sind.
-     * Dies sorgt dafr, dass das Flackern, das durch das Fehlen des Back Buffers entsteht, mglichst entfernt von der Kamera stattfindet und somit weniger bemerkbar ist.
-     * @param cameraPosition Position der Kamera, im Bezug zu der die GameObjects sortiert werden sollen
+     * Verarbeitet die Tile-Werte und erstellt die spielbare Map.
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID.
+     * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
+     * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
+     * @param soundEngine Sound Engine
      */
-    private void reorderAroundCamera(Vector3 cameraPosition)
+    public void populate(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine)
     {
-        // Distanz-Komparator
-        Comparator gameObjectDistanceComparator = new Comparator<IGameObject>() {
-            @Override
-            public int compare(IGameObject obj1, IGameObject obj2)
-            {
-                double dist1 = obj1.getPosition().subtract(cameraPosition).getLength();
-                double dist2 = obj2.getPosition().subtract(cameraPosition).getLength();
-                
-                if(dist1 > dist2)
-                {
-                    return 1;
-                }
-                else if(dist1 < dist2)
-                {
-                    return -1;
-                }
-                else
-                {
-                    return 0;
-                }
-            }
-        };
-        
-        HashSet<Integer> completedRooms = new HashSet<Integer>();
-            
-        // Updated rekursiv die Draw-Reihenfolge aller Rume, vom aktuellen Raum aus
-        reorderConnectedRooms(activeRoom, completedRooms, cameraPosition);
+        populateGeometry(tileProviders, colliderProviders);
+        populateFunctions(tileProviders, entityMeshes, particleMeshes, soundEngine);
     }
     
     /**
-     * Updated den Draw Order fr einen gegebenen Raum und alle damit verknpften Rume
-     * @param roomID ID des Raums in der GridMap-Raumliste
-     * @param completedRooms HashSet der bereits gezeichneten RaumIDs
-     * @param cameraPosition Position der Kamera, die als Bezugspunkt der LOD-Berechnung genutzt wird
+     * Erster Teil von populate(): Bestimmt Spawnpunkt, Rume und Trpositionen und erstellt die statische Raumgeometrie
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID.
      */
-    private void reorderConnectedRooms(int roomID, HashSet<Integer> completedRooms, Vector3 cameraPosition)
+    public void populateGeometry(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders)
     {
-        // Aktuellen Raum bekommen und updaten
-        Room room = rooms.get(roomID);
-        room.reorderAroundCamera(cameraPosition);
-        
-        for(IDoorGameObject door : room.getDoors())
+        findRooms();
+        processRooms(tileProviders, colliderProviders, true);
+    }
+    
+    /**
+     * Wie populateGeometry(), fasst die Geometrie aber nicht zusammen.
+     * Das Ergebnis hngt nur von den Mapdaten ab und kann von CompiledMapLoader gespeichert und wiederhergestellt werden;
+     * anschlieend muss batchStaticGeometry() aufgerufen werden.
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID.
+     */
+    public void createGeometry(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders)
+    {
+        findRooms();
+        processRooms(tileProviders, colliderProviders, false);
+    }
+    
+    /**
+     * Fasst die statische Geometrie aller Rume zusammen (siehe Room.batchStaticGeometry())
+     */
+    public void batchStaticGeometry()
+    {
+        processRooms(null, null, true);
+    }
+    
+    /**
+     * Erzeugt die Geometrie aller Rume und/oder fasst sie zusammen, bei aktivierter Option parallel.
+     * Jeder Raum schreibt nur in seine eigenen Listen, daher ist das Ergebnis unabhngig von der Reihenfolge.
+     * @param tileProviders Hashmap der TileProvider oder null, wenn keine Geometrie erzeugt werden soll
+     * @param colliderProviders Hashmap der ColliderProvider oder null, wenn keine Geometrie erzeugt werden soll
+     * @param batch wenn true, wird die Geometrie anschlieend zusammengefasst
+     */
+    private void processRooms(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, boolean batch)
+    {
+        if(Game.PARALLEL_ROOM_POPULATION && rooms.size() > 1)
+        {
+            ForkJoinPool.commonPool().invoke(new RoomGeometryTask(rooms, _tileLayer, tileProviders, colliderProviders, batch, 0, rooms.size()));
+        }
+        else
         {
-            // Raum hinter Tr nur behandeln, wenn die Tr offen ist
-            if(door.isOpen())
+            for(Room room : rooms)
             {
-                // ID des Raums am anderen Ende der Tr feststellen
-                Integer otherRoom = null;
-                Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
-                if(roomID == doorConnection.getKey())
-                {
-                    otherRoom = doorConnection.getValue();
-                }
-                else if(roomID == doorConnection.getValue())
-                {
-                    otherRoom = doorConnection.getKey();
-                }
-                
-                // Nchsten Raum nur updaten, wenn er existiert und nicht bereits geupdated wurde
-                if(otherRoom != null && !completedRooms.contains(otherRoom))
-                {
-                    completedRooms.add(otherRoom);
-                    reorderConnectedRooms(otherRoom, completedRooms, cameraPosition);
-                }
+                RoomGeometryTask.process(room, _tileLayer, tileProviders, colliderProviders, batch);
             }
         }
     }
     
     /**
-     * Verarbeitet die Tile-Werte und erstellt die spielbare Map.
+     * Alternative zu populate(), bei der nur die Rume um den Spawnpunkt sofort erzeugt werden.
+     * Alle Rume und Tren werden bestimmt, Geometrie und Entities aber von einem RoomStreamer bei Bedarf nachgeladen.
      * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
      * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID.
      * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
      * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
      * @param soundEngine Sound Engine
+     * @param distance maximale Anzahl an Tren zwischen aktivem und geladenem Raum
      */
-    public void populate(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine)
-    {        
+    public void populateStreamed(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine, int distance)
+    {
+        findRooms();
+        createDoors(tileProviders);
+        
+        if(rooms.isEmpty())
+        {
+            return;
+        }
+        
+        // Mit dem Raum des Spawnpunkts beginnen
+        Vector2i spawnTile = MapHandler.worldPosToTilePos(_playerSpawn);
+        int spawnRoom = getRoomID(spawnTile.getX(), spawnTile.getY());
+        activeRoom = (spawnRoom != -1) ? spawnRoom : 0;
+        
+        _streamer = new RoomStreamer(this, tileProviders, colliderProviders, entityMeshes, particleMeshes, soundEngine, distance);
+        _streamer.start(activeRoom);
+    }
+    
+    /**
+     * Bestimmt Spawnpunkt, Rume und Trpositionen aus den Mapdaten, ohne Geometrie zu erzeugen
+     */
+    private void findRooms()
+    {
         ArrayList<Vector2i> roomFloodFills = new ArrayList<Vector2i>();
         
         // Funktionsebene (Nur nicht-raumeigene Funktionstiles werden ausgelesen)
-        for(int z = 0; z < _functionLayer.size(); z++)
+        for(int z = 0; z < _functionLayer.getHeight(); z++)
         {
-            for(int x = 0; x < _functionLayer.get(z).size(); x++)
+            for(int x = 0; x < _functionLayer.getWidth(); x++)
             {
-                int value = _functionLayer.get(z).get(x);
+                int value = _functionLayer.get(x, z);
                 switch(value)
                 {
                     case Tile.PLAYER_SPAWN_DOWN:
@@ -353,14 +562,14 @@ public class GridMap
             }
         }
         
-        // Rume aus Floodfills fllen und populaten
+        // Rume aus Floodfills fllen
+        RoomFloodFill floodFill = new RoomFloodFill(_tileLayer, _roomGrid, _doorLocations);
         for(int i = 0; i < roomFloodFills.size(); i++)
         {
             Vector2i source = roomFloodFills.get(i);
-            Room room = floodFillFromSource(source);
+            Room room = floodFill.fill(this, source.getX(), source.getY(), rooms.size());
             if(room != null)
             {
-                room.populate(tileProviders, colliderProviders, entityMeshes, particleMeshes, soundEngine, _tileLayer, _functionLayer);
                 rooms.add(room);
             }
             else
@@ -368,12 +577,71 @@ public class GridMap
                 System.out.println("Source #" + i + " at " + source.getX() + ", " + source.getY() + " is already contained in another room");
             }
         }
+    }
     
+    /**
+     * bernimmt Spawnpunkt, Rume und Trpositionen aus einem kompilierten Level anstelle von populateGeometry()
+     * @param playerSpawn Spawnpunkt des Spielers
+     * @param playerSpawnAngle Startrotation des Spielers
+     * @param restoredRooms Rume mit bereits wiederhergestellter Geometrie
+     * @param doorLocations Positionen der Tren im Grid
+     */
+    public void restoreGeometry(Vector3 playerSpawn, double playerSpawnAngle, ArrayList<Room> restoredRooms, ArrayList<Vector2i> doorLocations)
+    {
+        _playerSpawn = playerSpawn;
+        _playerSpawnAngle = playerSpawnAngle;
+        rooms.clear();
+        rooms.addAll(restoredRooms);
+        _doorLocations.clear();
+        _doorLocations.addAll(doorLocations);
+        
+        // Raum-Grid wie beim Floodfill befllen, geteilte Wandtiles gehren dem Raum mit der niedrigsten ID
+        Arrays.fill(_roomGrid, -1);
+        for(int i = 0; i < rooms.size(); i++)
+        {
+            Room room = rooms.get(i);
+            for(int z = room.getMinZ(); z <= room.getMaxZ(); z++)
+            {
+                for(int x = room.getMinX(); x <= room.getMaxX(); x++)
+                {
+                    if(room.contains(x, z))
+                    {
+                        assignRoomID(x, z, i);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Zweiter Teil von populate(): Erstellt Entities und Trobjekte und berechnet die Sichtbarkeit zwischen den Rumen.
+     * Diese Objekte haben einen vernderlichen Zustand und werden daher bei jedem Laden neu erzeugt.
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
+     * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
+     * @param soundEngine Sound Engine
+     */
+    public void populateFunctions(HashMap<Integer, ITileProvider> tileProviders, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine)
+    {
+        for(Room room : rooms)
+        {
+            room.populateFunctions(entityMeshes, particleMeshes, soundEngine, _functionLayer);
+        }
+        
+        createDoors(tileProviders);
+    }
+    
+    /**
+     * Erzeugt die Trobjekte an den gefundenen Trpositionen, verbindet sie mit den Rumen und berechnet die Sichtbarkeit zwischen den Rumen
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     */
+    private void createDoors(HashMap<Integer, ITileProvider> tileProviders)
+    {
         // Trobjekte (Verknpfungen zwischen Rumen) generieren
         for(Vector2i doorLocation : _doorLocations)
         {
             int x = doorLocation.getX(), z = doorLocation.getY();
-            int value = _tileLayer.get(z).get(x);
+            int value = _tileLayer.get(x, z);
             if(Tile.isDoor(value))
             {
                 if(!tileProviders.containsKey(value))
@@ -382,7 +650,7 @@ public class GridMap
                 }
                 else
                 {
-                    ArrayList<IGameObject> doorObjList = tileProviders.get(value).getTileObjects(new TileEnvironment(_tileLayer, getFunctionValue(new Vector2i(x, z)), x, z), x, z);
+                    ArrayList<IGameObject> doorObjList = tileProviders.get(value).getTileObjects(new TileEnvironment(_tileLayer, _functionLayer.get(x, z), x, z), x, z);
                     for(IGameObject obj : doorObjList)
                     {
                         if(!(obj instanceof IDoorGameObject))
@@ -400,6 +668,10 @@ public class GridMap
                 }
             }
         }
+        
+        // Sichtbarkeit zwischen den Rumen vorberechnen
+        _pvs = new PotentiallyVisibleSet(rooms, doors);
+        updateVisibleRooms();
     }
     
     /**
@@ -417,27 +689,16 @@ public class GridMap
         int x = pos.getX(), z = pos.getY();
         Integer firstRoom = null, secondRoom = null;
         
+        // Positionen auerhalb der Map liegen in keinem Raum
         if(door.isFacingZ())
         {
-            if(z > 0)
-            {
-                firstRoom = getRoomID(new Vector2i(x, z - 1));
-            }
-            if(z < _tileLayer.get(0).size()-1)
-            {
-                secondRoom = getRoomID(new Vector2i(x, z + 1));
-            }
+            firstRoom = getRoomID(new Vector2i(x, z - 1));
+            secondRoom = getRoomID(new Vector2i(x, z + 1));
         }
         else
         {
-            if(x > 0)
-            {
-                firstRoom = getRoomID(new Vector2i(x - 1, z));
-            }
-            if(x < _tileLayer.size()-1)
-            {
-                secondRoom = getRoomID(new Vector2i(x + 1, z));
-            }
+            firstRoom = getRoomID(new Vector2i(x - 1, z));
+            secondRoom = getRoomID(new Vector2i(x + 1, z));
         }
         
         if(firstRoom != null || secondRoom != null) {
@@ -457,92 +718,52 @@ public class GridMap
     }
     
     /**
-     * Fllt von einer Quell-Tile aus eine Raumflche auf
-     * @param source Quell-Tile
-     * @return entstandener Raum
+     * Trgt eine Tile im Raum-Grid ein. Bereits zugeordnete Tiles (geteilte Wnde) behalten den Raum mit der niedrigsten ID.
+     * @param x x-Position der Tile
+     * @param z z-Position der Tile
+     * @param roomID ID des Raums
      */
-    private Room floodFillFromSource(Vector2i source)
+    private void assignRoomID(int x, int z, int roomID)
     {
-        if(source == null)
+        if(!_tileLayer.contains(x, z))
         {
-            return null;
+            return;
         }
         
-        for(int i = 0; i < rooms.size(); i++)
+        int index = z * _tileLayer.getWidth() + x;
+        if(_roomGrid[index] == -1 || roomID < _roomGrid[index])
         {
-            if(rooms.get(i).contains(source.getX(), source.getY()))
-            {
-                System.out.println("Already contained in room" + i);
-            }
+            _roomGrid[index] = roomID;
         }
-        
-        Room result = new Room(this);
-        
-        floodFillStep(source, result);
-        
-        return result;
     }
     
     /**
-     * Einzelschritt des Floodfill-Algorithmus
-     * @param source Quell-Tile dieses Schrittes
-     * @param room bisheriger Raum
+     * Gibt zurck, ob die Geometrie eines Raums geladen ist. Ohne Streaming sind alle Rume geladen.
+     * @param roomID ID des Raums
+     * @return true, wenn der Raum gezeichnet und simuliert werden kann, sonst false
      */
-    private void floodFillStep(Vector2i source, Room room)
+    public boolean isRoomResident(int roomID)
     {
-        if(!room.contains(source))
-        {
-            room.addTile(source);
-        }
-        int x = source.getX(), z = source.getY();
-        // neg x
-        if(x > 0)
-        {
-            floodFillDirection(-1, 0, source, room);
-        }
-        // pos x
-        if(x < _tileLayer.get(0).size() - 1)
-        {
-            floodFillDirection(1, 0, source, room);
-        }
-        // neg z
-        if(z > 0)
-        {
-            floodFillDirection(0, -1, source, room);
-        }
-        // pos z
-        if(z < _tileLayer.size() - 1)
-        {
-            floodFillDirection(0, 1, source, room);
-        }
+        return _streamer == null || _streamer.isResident(roomID);
     }
     
     /**
-     * Einzelner direktionaler Schritt des Floodfill-Algorithmus
-     * @param dx x-Verschiebung von der Quell-Tile
-     * @param dz z-Verschiebung von der Quell-Tile
-     * @param source Quell-Tile
-     * @param room bisheriger Raum
+     * Gibt den RoomStreamer der Map zurck
+     * @return RoomStreamer oder null, wenn alle Rume geladen sind
      */
-    private void floodFillDirection(int dx, int dz, Vector2i source, Room room)
+    public RoomStreamer getRoomStreamer()
     {
-        int x = source.getX(), z = source.getY();
-        
-        if(!room.contains(new Vector2i(x + dx, z + dz)))
+        return _streamer;
+    }
+    
+    /**
+     * Gibt Hintergrundressourcen der Map frei, wenn sie nicht mehr verwendet wird
+     */
+    public void dispose()
+    {
+        if(_streamer != null)
         {
-            int val = _tileLayer.get(z + dz).get(x + dx);
-            if(!Tile.isDoor(val))
-            {
-                room.addTile(new Vector2i(x + dx, z + dz));
-                if(!Tile.isSolid(val))
-                {
-                    floodFillStep(new Vector2i(x + dx, z + dz), room);
-                }
-            }
-            else
-            {
-                _doorLocations.add(new Vector2i(x + dx, z + dz));
-            }
+            _streamer.shutdown();
         }
     }
     
@@ -553,14 +774,23 @@ public class GridMap
      */
     public Integer getRoomID(Vector2i pos)
     {
-        for(int i = 0; i < rooms.size(); i++)
+        int roomID = getRoomID(pos.getX(), pos.getY());
+        return (roomID != -1) ? Integer.valueOf(roomID) : null;
+    }
+    
+    /**
+     * Gibt zurck, ob, und in welchem Raum sich eine Tile befindet
+     * @param x x-Position der Tile im Grid
+     * @param z z-Position der Tile im Grid
+     * @return -1, wenn die Tile in keinem Raum liegt, ansonsten ID des Raums
+     */
+    public int getRoomID(int x, int z)
+    {
+        if(!_tileLayer.contains(x, z))
         {
-            if(rooms.get(i).contains(pos))
-            {
-                return i;
-            }
+            return -1;
         }
-        return null;
+        return _roomGrid[z * _tileLayer.getWidth() + x];
     }
     
     /**
@@ -570,14 +800,18 @@ public class GridMap
      */
     public int getTileValue(Vector2i pos)
     {
-        if(pos.getX() < 0 || pos.getY() < 0 || pos.getX() >= _tileLayer.get(0).size() || pos.getY() >= _tileLayer.size())
-        {
-            return Tile.NONE;
-        }
-        else
-        {
-            return _tileLayer.get(pos.getY()).get(pos.getX());
-        }
+        return _tileLayer.get(pos.getX(), pos.getY());
+    }
+    
+    /**
+     * Gibt den Wert des Tile-Layers an einer gegebenen Position zurck
+     * @param x x-Position im Grid
+     * @param z z-Position im Grid
+     * @return Wert des Tile-Layers an der Position, Tile.NONE fr Out-of-Bounds-Werte
+     */
+    public int getTileValue(int x, int z)
+    {
+        return _tileLayer.get(x, z);
     }
     
     /**
@@ -587,14 +821,45 @@ public class GridMap
      */
     public int getFunctionValue(Vector2i pos)
     {
-        if(pos.getX() < 0 || pos.getY() < 0 || pos.getX() >= _functionLayer.get(0).size() || pos.getY() >= _functionLayer.size())
-        {
-            return Tile.NONE;
-        }
-        else
-        {
-            return _functionLayer.get(pos.getY()).get(pos.getX());
-        }
+        return _functionLayer.get(pos.getX(), pos.getY());
+    }
+    
+    /**
+     * Gibt den Wert des Function-Layers an einer gegebenen Position zurck
+     * @param x x-Position im Grid
+     * @param z z-Position im Grid
+     * @return Wert des Function-Layers an der Position, Tile.NONE fr Out-of-Bounds-Werte
+     */
+    public int getFunctionValue(int x, int z)
+    {
+        return _functionLayer.get(x, z);
+    }
+    
+    /**
+     * Gibt die Positionen der Tren im Grid in der Reihenfolge ihrer Entdeckung zurck
+     * @return Liste der Trpositionen (nicht verndern)
+     */
+    public ArrayList<Vector2i> getDoorLocations()
+    {
+        return _doorLocations;
+    }
+    
+    /**
+     * Gibt den rohen Tile-Layer zurck
+     * @return Ebene der Tile-Werte (nicht verndern)
+     */
+    public MapLayer getTileLayer()
+    {
+        return _tileLayer;
+    }
+    
+    /**
+     * Gibt den rohen Function-Layer zurck
+     * @return Ebene der funktionalen Tiles (nicht verndern)
+     */
+    public MapLayer getFunctionLayer()
+    {
+        return _functionLayer;
     }
     
     /**
@@ -641,4 +906,59 @@ public class GridMap
     {
         _player = player;
     }
+    
+    /**
+     * ForkJoin-Aufgabe, die einen Bereich der Raumliste rekursiv halbiert und die Geometrie der einzelnen Rume erzeugt und/oder zusammenfasst
+     */
+    private static class RoomGeometryTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        
+        private final ArrayList<Room> _rooms;
+        private final MapLayer _tileLayer;
+        private final HashMap<Integer, ITileProvider> _tileProviders;
+        private final HashMap<Integer, IColliderProvider> _colliderProviders;
+        private final boolean _batch;
+        private final int _begin, _end;
+        
+        RoomGeometryTask(ArrayList<Room> rooms, MapLayer tileLayer, HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, boolean batch, int begin, int end)
+        {
+            _rooms = rooms;
+            _tileLayer = tileLayer;
+            _tileProviders = tileProviders;
+            _colliderProviders = colliderProviders;
+            _batch = batch;
+            _begin = begin;
+            _end = end;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if(_end - _begin == 1)
+            {
+                process(_rooms.get(_begin), _tileLayer, _tileProviders, _colliderProviders, _batch);
+                return;
+            }
+            
+            int middle = (_begin + _end) / 2;
+            invokeAll(new RoomGeometryTask(_rooms, _tileLayer, _tileProviders, _colliderProviders, _batch, _begin, middle),
+                new RoomGeometryTask(_rooms, _tileLayer, _tileProviders, _colliderProviders, _batch, middle, _end));
+        }
+        
+        /**
+         * Erzeugt die Geometrie eines Raums, sofern Provider bergeben wurden, und fasst sie ggf. zusammen
+         */
+        static void process(Room room, MapLayer tileLayer, HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, boolean batch)
+        {
+            if(tileProviders != null)
+            {
+                room.createGeometry(tileProviders, colliderProviders, tileLayer);
+            }
+            if(batch)
+            {
+                room.batchStaticGeometry();
+            }
+        }
+    }
 }
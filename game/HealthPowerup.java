@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Einsammelbares Powerup, das den Spieler heilt
@@ -54,7 +55,7 @@ public class HealthPowerup implements IDynamicGameObject, ICollisionListener
      * @param entityMeshes Register der EntityMeshes, aus dem die Meshes bezogen werden
      * @param soundEngine Sound Engine, aus der die Sounds der Entity bezogen werden
      */
-    public HealthPowerup(Vector3 position, Room room, HashMap<String, Mesh> entityMeshes, SoundEngine soundEngine)
+    public HealthPowerup(Vector3 position, Room room, MeshSet entityMeshes, SoundEngine soundEngine)
     {
         _room = room;
         
@@ -213,6 +214,14 @@ public class HealthPowerup implements IDynamicGameObject, ICollisionListener
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return _mesh.getBounds().transform(getModelMatrix());
+    }
+    
     /**
      * Gibt eine Kopie des Meshs (3D-Modell) zurck
      * @return Mesh (3D-Modell)
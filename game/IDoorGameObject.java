@@ -35,6 +35,13 @@ public interface IDoorGameObject extends IGameObject
      */
     public boolean isFacingZ();
     
+    /**
+     * Gibt zurck, ob die Tr von einer Tile-Position aus ausgelst (geffnet) wird
+     * @param tilePos Position im Grid
+     * @return true, wenn die Position eine Auslser-Tile der Tr ist, sonst false
+     */
+    public boolean isTriggeredBy(Vector2i tilePos);
+    
     /**
      * Setzt die Offenheit der Tr
      * @param isOpen Offenheit der Tr
@@ -0,0 +1,24 @@
+package game;
+
+import maths.*;
+import java.util.*;
+
+/**
+ * Interface fr TileProvider-Typen, die zustzlich zu ihren GameObjects verdeckende Flchen fr das Occlusion Culling bereitstellen
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 06.01.2022
+ */
+
+public interface IOccluderProvider
+{
+    /**
+     * Gibt die verdeckenden Flchen zurck, die der Provider in der gegebenen Umgebung generiert.
+     * Jede Flche ist ein ebenes, konvexes Viereck, das vollstndig innerhalb der undurchsichtigen Geometrie liegt.
+     * @param env Umgebung der Tile (null, wenn der Provider keine Umgebung bentigt)
+     * @param x x-Position der Tile
+     * @param z z-Position der Tile
+     * @return Liste an Vierecken, jeweils als Array der vier Ecken im World Space
+     */
+    public ArrayList<Vector3[]> getOccluders(TileEnvironment env, int x, int z);
+}
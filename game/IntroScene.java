@@ -2,6 +2,7 @@ package game;
 
 import maths.*;
 import core.*;
+import util.*;
 
 /**
  * Szene, in der dem Spieler seine Mission vorgestellt wird
@@ -25,6 +26,10 @@ public class IntroScene extends Scene
             
         _continuePrompt = "SPACE: I came prepared!";
         
+        // Ressourcen der ersten Map bereits im Hintergrund anfordern, whrend die Mission gelesen wird
+        _state.resourceManager.prefetchMap(GameScene.MAP_NAME, _state.soundEngine);
+        _state.resourceManager.prefetchMeshSet(ResourceManager.VIEW_MODEL_MESHES);
+        
         // Mauszeiger zentrieren
         _state.inputHandler.setKeepMouseInPlace(true);
     }
@@ -59,5 +64,12 @@ public class IntroScene extends Scene
         
         _state.textRenderer.write(new Vector2(45, 45), 6, _missionStatement, TurtleColor.WHITE);
         _state.textRenderer.write(new Vector2(45, 430), 6, _continuePrompt, TurtleColor.YELLOW);
+        
+        // Ladefortschritt anzeigen
+        if(_state.resourceManager.isLoading())
+        {
+            int percentage = (int)(_state.resourceManager.getProgress() * 100.0);
+            _state.textRenderer.write(new Vector2(45, 400), 4, "Loading: " + percentage + "%", TurtleColor.GRAY);
+        }
     }
 }
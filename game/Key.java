@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Einsammelbarer Schlssel, der Tren der gleichen Farbe ffnen kann
@@ -53,7 +54,7 @@ public class Key implements IDynamicGameObject, ICollisionListener
      * @param entityMeshes Register der EntityMeshes, aus dem die Meshes bezogen werden
      * @param soundEngine Sound Engine, aus der die Sounds der Entity bezogen werden
      */
-    public Key(Vector3 position, TurtleColor color, Room room, HashMap<String, Mesh> entityMeshes, SoundEngine soundEngine)
+    public Key(Vector3 position, TurtleColor color, Room room, MeshSet entityMeshes, SoundEngine soundEngine)
     {
         _room = room;
         
@@ -211,6 +212,14 @@ public class Key implements IDynamicGameObject, ICollisionListener
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return _mesh.getBounds().transform(getModelMatrix());
+    }
+    
     /**
      * Gibt eine Kopie des Meshs (3D-Modell) zurck
      * @return Mesh (3D-Modell)
@@ -10,7 +10,7 @@ import javafx.util.*;
  * Verwaltet die GridMap und stellt zustzliche Funktionalitt bereit, insbesondere zum Map-Loading und zur Performance-Optimierung
  * 
  * @author Lasse Huber-Saffer
- * @version 02.01.2022
+ * @version 12.01.2022
  */
 public class MapHandler
 {
@@ -20,22 +20,28 @@ public class MapHandler
     // Sound-Engine
     private SoundEngine _soundEngine;
     
+    // Ressourcenverwaltung, ber die Meshes und Sounds der Maps angefordert werden
+    private ResourceManager _resourceManager;
+    
     // Utility
     private CSVMapLoader _csvLoader;
+    private CompiledMapLoader _compiledLoader;
     private LODGenerator _lodGenerator;
     
     // Register der TileProvider fr Erstellung der Mapgeometrie
     private HashMap<Integer, ITileProvider> _tileProviders;
     // Register der ColliderProvider fr Bestimmung der Collider der Tiles
     private HashMap<Integer, IColliderProvider> _colliderProviders;
+    // Namentliches Register von Meshes, aus denen die TileProvider erstellt werden
+    private MeshSet _tileMeshes;
     // Namentliches Register von Meshes, die von Entities benutzt werden
-    private HashMap<String, Mesh> _entityMeshes;
+    private MeshSet _entityMeshes;
     // Namentliches Register von Meshes, die von Partikeln benutzt werden
-    private HashMap<String, Mesh> _particleMeshes;
+    private MeshSet _particleMeshes;
     
     // File-Loading
-    private static final String TILE_LAYER_SUFFIX = "_tile.csv";
-    private static final String FUNCTION_LAYER_SUFFIX = "_function.csv";
+    public static final String TILE_LAYER_SUFFIX = "_tile.csv";
+    public static final String FUNCTION_LAYER_SUFFIX = "_function.csv";
     
     // Generierungskonstanten
     public static final boolean MIRROR_Z_AXIS = true;
@@ -43,118 +49,236 @@ public class MapHandler
     
     /**
      * Konstruktor fr Objekte der Klasse MapHandler
-     * @param tileMeshes HashMap von namentlich aufgefhrten Meshes fr zu erstellende TileProvider
-     * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
-     * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
+     * @param resourceManager ResourceManager, aus dessen Asset-Manifest die Tile-, Entity- und Particle-Meshes bezogen werden
      * @param soundEngine SoundEngine fr Tile-Sounds
      */
-    public MapHandler(HashMap<String, Mesh> tileMeshes, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine)
+    public MapHandler(ResourceManager resourceManager, SoundEngine soundEngine)
     {
         _map = null;
         
         _soundEngine = soundEngine;
+        _resourceManager = resourceManager;
         
         _csvLoader = new CSVMapLoader();
+        _compiledLoader = new CompiledMapLoader(resourceManager);
         _lodGenerator = new LODGenerator();
         
         _tileProviders = new HashMap<Integer, ITileProvider>();
         _colliderProviders = new HashMap<Integer, IColliderProvider>();
         
-        _entityMeshes = entityMeshes;
-        _particleMeshes = particleMeshes;
+        _tileMeshes = resourceManager.getMeshSet(ResourceManager.TILE_MESHES);
+        _entityMeshes = resourceManager.getMeshSet(ResourceManager.ENTITY_MESHES);
+        _particleMeshes = resourceManager.getMeshSet(ResourceManager.PARTICLE_MESHES);
+        
+        // Initialisierung der ColliderProvider
+        _colliderProviders.put(Tile.BRICK_WALL, new WallColliderProvider());
+        _colliderProviders.put(Tile.INVISIBLE_WALL, new WallColliderProvider());
+    }
+    
+    /**
+     * Erstellt die noch fehlenden TileProvider fr die Tiles einer Map. Die dabei bentigten Meshes werden ber das Mesh-Set geladen,
+     * daher geschieht dies erst, nachdem die Map ihre Assets angefordert hat. Meshes von Tiles, die in keiner geladenen Map vorkommen, werden nie geladen.
+     * @param tileMeshes Mesh-Set, aus dem die Tile-Meshes bezogen werden
+     * @param tileLayer Tile-Ebene der Map
+     */
+    private void createTileProviders(MeshSet tileMeshes, MapLayer tileLayer)
+    {
+        HashSet<Integer> tiles = new HashSet<Integer>();
+        for(int tile : tileLayer.getValues())
+        {
+            tiles.add(tile);
+        }
         
         // Initialisierung der TileProvider
-        // Dirt floor
-        ArrayList<Pair<Double, Mesh>> dirtFloorLODs = new ArrayList<Pair<Double, Mesh>>();
-        dirtFloorLODs.add(new Pair<Double, Mesh>(0.0, tileMeshes.get("dirt_floor_borderless")));
-        dirtFloorLODs.add(new Pair<Double, Mesh>(30.0, tileMeshes.get("dirt_floor_borderless_lod1")));
-        dirtFloorLODs.add(new Pair<Double, Mesh>(40.0, tileMeshes.get("dirt_floor_borderless_lod2")));
-        dirtFloorLODs.add(new Pair<Double, Mesh>(50.0, tileMeshes.get("dirt_floor_borderless_lod3")));
-        _tileProviders.put(Tile.DIRT_FLOOR, new SimpleLODTileProvider(dirtFloorLODs, TurtleColor.ORANGE));
-        
-        // Brick wall
-        _tileProviders.put(Tile.BRICK_WALL, new WallTileProvider(
-            tileMeshes.get("brick_wall"), TurtleColor.GRAY, tileMeshes.get("simple_wall_pillar"), TurtleColor.GRAY)
-        );
+        // Dirt floor (wird auch von den Tren als Boden verwendet)
+        if(!_tileProviders.containsKey(Tile.DIRT_FLOOR))
+        {
+            ArrayList<Pair<Double, Mesh>> dirtFloorLODs = new ArrayList<Pair<Double, Mesh>>();
+            dirtFloorLODs.add(new Pair<Double, Mesh>(0.0, tileMeshes.get("dirt_floor_borderless")));
+            dirtFloorLODs.add(new Pair<Double, Mesh>(30.0, tileMeshes.get("dirt_floor_borderless_lod1")));
+            dirtFloorLODs.add(new Pair<Double, Mesh>(40.0, tileMeshes.get("dirt_floor_borderless_lod2")));
+            dirtFloorLODs.add(new Pair<Double, Mesh>(50.0, tileMeshes.get("dirt_floor_borderless_lod3")));
+            _tileProviders.put(Tile.DIRT_FLOOR, new SimpleLODTileProvider(dirtFloorLODs, TurtleColor.ORANGE));
+        }
+        
+        // Brick wall (wird auch von den Tren als Wand verwendet)
+        if(!_tileProviders.containsKey(Tile.BRICK_WALL))
+        {
+            _tileProviders.put(Tile.BRICK_WALL, new WallTileProvider(
+                tileMeshes.get("brick_wall"), TurtleColor.GRAY, tileMeshes.get("simple_wall_pillar"), TurtleColor.GRAY)
+            );
+        }
         
         // Wooden door
-        ArrayList<Pair<Mesh, TurtleColor>> woodenDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
-        woodenDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.ORANGE));
-        woodenDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.YELLOW));
-        ArrayList<Pair<Mesh, TurtleColor>> woodenDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
-        woodenDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.ORANGE));
-        woodenDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.YELLOW));
-        _tileProviders.put(Tile.WOODEN_DOOR, new DoorTileProvider(
-            woodenDoorClosed, woodenDoorOpen, false,
-            new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
-            tileMeshes.get("door_lock"), _tileProviders.get(Tile.DIRT_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
-            _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
-        ));
+        if(isMissing(Tile.WOODEN_DOOR, tiles))
+        {
+            ArrayList<Pair<Mesh, TurtleColor>> woodenDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
+            woodenDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.ORANGE));
+            woodenDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.YELLOW));
+            ArrayList<Pair<Mesh, TurtleColor>> woodenDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
+            woodenDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.ORANGE));
+            woodenDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.YELLOW));
+            _tileProviders.put(Tile.WOODEN_DOOR, new DoorTileProvider(
+                woodenDoorClosed, woodenDoorOpen, false,
+                new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
+                tileMeshes.get("door_lock"), _tileProviders.get(Tile.DIRT_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
+                _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
+            ));
+        }
         
         // Cyber floor
-        _tileProviders.put(Tile.CYBER_FLOOR, new SimpleTileProvider(tileMeshes.get("cyber_floor"), TurtleColor.DARK_GRAY));
+        if(!_tileProviders.containsKey(Tile.CYBER_FLOOR) && (tiles.contains(Tile.CYBER_FLOOR) || tiles.contains(Tile.CYBER_DOOR)))
+        {
+            _tileProviders.put(Tile.CYBER_FLOOR, new SimpleTileProvider(tileMeshes.get("cyber_floor"), TurtleColor.DARK_GRAY));
+        }
         
         // Cyber door
-        ArrayList<Pair<Mesh, TurtleColor>> cyberDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
-        cyberDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.ORANGE));
-        cyberDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.YELLOW));
-        ArrayList<Pair<Mesh, TurtleColor>> cyberDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
-        cyberDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.ORANGE));
-        cyberDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.YELLOW));
-        _tileProviders.put(Tile.CYBER_DOOR, new DoorTileProvider(
-            cyberDoorClosed, cyberDoorOpen, false,
-            new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
-            tileMeshes.get("door_lock"), _tileProviders.get(Tile.CYBER_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
-            _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
-        ));
+        if(isMissing(Tile.CYBER_DOOR, tiles))
+        {
+            ArrayList<Pair<Mesh, TurtleColor>> cyberDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
+            cyberDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.ORANGE));
+            cyberDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.YELLOW));
+            ArrayList<Pair<Mesh, TurtleColor>> cyberDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
+            cyberDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.ORANGE));
+            cyberDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.YELLOW));
+            _tileProviders.put(Tile.CYBER_DOOR, new DoorTileProvider(
+                cyberDoorClosed, cyberDoorOpen, false,
+                new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
+                tileMeshes.get("door_lock"), _tileProviders.get(Tile.CYBER_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
+                _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
+            ));
+        }
         
         // Dirt floor grass
-        ArrayList<Pair<Mesh, TurtleColor>> dirtFloorGrass = new ArrayList<Pair<Mesh, TurtleColor>>();
-        dirtFloorGrass.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_borderless"), TurtleColor.ORANGE));
-        dirtFloorGrass.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_grassdetail"), TurtleColor.GREEN));
-        _tileProviders.put(Tile.DIRT_FLOOR_GRASS, new MultiMeshTileProvider(dirtFloorGrass));
+        if(isMissing(Tile.DIRT_FLOOR_GRASS, tiles))
+        {
+            ArrayList<Pair<Mesh, TurtleColor>> dirtFloorGrass = new ArrayList<Pair<Mesh, TurtleColor>>();
+            dirtFloorGrass.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_borderless"), TurtleColor.ORANGE));
+            dirtFloorGrass.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_grassdetail"), TurtleColor.GREEN));
+            _tileProviders.put(Tile.DIRT_FLOOR_GRASS, new MultiMeshTileProvider(dirtFloorGrass));
+        }
         
         // Cracked brick wall
-        ArrayList<Pair<Mesh, TurtleColor>> secretDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
-        secretDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.RED));
-        secretDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.CYAN));
-        ArrayList<Pair<Mesh, TurtleColor>> secretDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
-        secretDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.RED));
-        secretDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.CYAN));
-        _tileProviders.put(Tile.CRACKED_BRICK_WALL_DOOR, new DoorTileProvider(
-            secretDoorClosed, secretDoorOpen, false,
-            new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
-            tileMeshes.get("door_lock"), _tileProviders.get(Tile.DIRT_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
-            _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
-        ));
+        if(isMissing(Tile.CRACKED_BRICK_WALL_DOOR, tiles))
+        {
+            ArrayList<Pair<Mesh, TurtleColor>> secretDoorClosed = new ArrayList<Pair<Mesh, TurtleColor>>();
+            secretDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door"), TurtleColor.RED));
+            secretDoorClosed.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle"), TurtleColor.CYAN));
+            ArrayList<Pair<Mesh, TurtleColor>> secretDoorOpen = new ArrayList<Pair<Mesh, TurtleColor>>();
+            secretDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_open"), TurtleColor.RED));
+            secretDoorOpen.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("wooden_door_handle_open"), TurtleColor.CYAN));
+            _tileProviders.put(Tile.CRACKED_BRICK_WALL_DOOR, new DoorTileProvider(
+                secretDoorClosed, secretDoorOpen, false,
+                new BlockedTunnelColliderProvider(), new TunnelColliderProvider(),
+                tileMeshes.get("door_lock"), _tileProviders.get(Tile.DIRT_FLOOR), (WallTileProvider)_tileProviders.get(Tile.BRICK_WALL),
+                _soundEngine, "wooden_door_open", "wooden_door_close", 0.2
+            ));
+        }
         
         // Road Markings X
-        _tileProviders.put(Tile.ROAD_MARKINGS_X, new SimpleTileProvider(tileMeshes.get("road_markings_x"), TurtleColor.YELLOW));
+        if(isMissing(Tile.ROAD_MARKINGS_X, tiles))
+        {
+            _tileProviders.put(Tile.ROAD_MARKINGS_X, new SimpleTileProvider(tileMeshes.get("road_markings_x"), TurtleColor.YELLOW));
+        }
         
         // Dirt floor grass 2
-        ArrayList<Pair<Mesh, TurtleColor>> dirtFloorGrass2 = new ArrayList<Pair<Mesh, TurtleColor>>();
-        dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_borderless"), TurtleColor.ORANGE));
-        dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_grassdetail2"), TurtleColor.GREEN));
-        dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_stonedetail"), TurtleColor.DARK_GRAY));
-        _tileProviders.put(Tile.DIRT_FLOOR_GRASS2, new MultiMeshTileProvider(dirtFloorGrass2));
+        if(isMissing(Tile.DIRT_FLOOR_GRASS2, tiles))
+        {
+            ArrayList<Pair<Mesh, TurtleColor>> dirtFloorGrass2 = new ArrayList<Pair<Mesh, TurtleColor>>();
+            dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_borderless"), TurtleColor.ORANGE));
+            dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_grassdetail2"), TurtleColor.GREEN));
+            dirtFloorGrass2.add(new Pair<Mesh, TurtleColor>(tileMeshes.get("dirt_floor_stonedetail"), TurtleColor.DARK_GRAY));
+            _tileProviders.put(Tile.DIRT_FLOOR_GRASS2, new MultiMeshTileProvider(dirtFloorGrass2));
+        }
         
         // Road Markings Z
-        _tileProviders.put(Tile.ROAD_MARKINGS_Z, new SimpleTileProvider(tileMeshes.get("road_markings_z"), TurtleColor.YELLOW));
-        
-        
-        // Initialisierung der ColliderProvider
-        _colliderProviders.put(Tile.BRICK_WALL, new WallColliderProvider());
-        _colliderProviders.put(Tile.INVISIBLE_WALL, new WallColliderProvider());
+        if(isMissing(Tile.ROAD_MARKINGS_Z, tiles))
+        {
+            _tileProviders.put(Tile.ROAD_MARKINGS_Z, new SimpleTileProvider(tileMeshes.get("road_markings_z"), TurtleColor.YELLOW));
+        }
     }
     
     /**
-     * Ldt eine Map
+     * Gibt zurck, ob eine Tile in der Map vorkommt, fr sie aber noch kein TileProvider existiert
+     * @param tileID ID der Tile
+     * @param tiles IDs aller Tiles der Map
+     * @return true, wenn der TileProvider erstellt werden muss, sonst false
+     */
+    private boolean isMissing(int tileID, HashSet<Integer> tiles)
+    {
+        return tiles.contains(tileID) && !_tileProviders.containsKey(tileID);
+    }
+    
+    /**
+     * Ldt eine Map mit den in Game eingestellten Ladeverfahren (ROOM_STREAMING, USE_LEVEL_CACHE)
      * @param mapName Name der Map (KEIN Pfad)
      */
     public void load(String mapName)
     {
-        _map = _csvLoader.loadFromFile(Directory.MAP + mapName + TILE_LAYER_SUFFIX, Directory.MAP + mapName + FUNCTION_LAYER_SUFFIX);
-        _map.populate(_tileProviders, _colliderProviders, _entityMeshes, _particleMeshes, _soundEngine);
+        load(mapName, Game.ROOM_STREAMING, Game.USE_LEVEL_CACHE);
+    }
+    
+    /**
+     * Ldt eine Map mit einem bestimmten Ladeverfahren, z.B. um die Verfahren zu vergleichen
+     * @param mapName Name der Map (KEIN Pfad)
+     * @param streaming wenn true, werden nur die Rume um den Spawnpunkt erzeugt und weitere bei Bedarf nachgeladen
+     * @param useLevelCache wenn true, wird die Geometrie (ohne Streaming) aus dem kompilierten Level bernommen bzw. dort abgelegt
+     */
+    public void load(String mapName, boolean streaming, boolean useLevelCache)
+    {
+        // Assets der Map laut Manifest im Hintergrund anfordern, whrend die Map eingelesen wird
+        _resourceManager.prefetchMap(mapName, _soundEngine);
+        
+        String tileFilePath = Directory.MAP + mapName + TILE_LAYER_SUFFIX;
+        String functionFilePath = Directory.MAP + mapName + FUNCTION_LAYER_SUFFIX;
+        String compiledFilePath = Directory.MAP + mapName + CompiledMapLoader.FILE_SUFFIX;
+        long geometryStamp = _resourceManager.getMeshSetStamp(ResourceManager.TILE_MESHES);
+        
+        // Hintergrundauftrge der vorigen Map beenden
+        if(_map != null)
+        {
+            _map.dispose();
+        }
+        
+        // Rume um den Spawnpunkt sofort, alle anderen bei Bedarf im Hintergrund erzeugen
+        if(streaming)
+        {
+            _map = _csvLoader.loadFromFile(tileFilePath, functionFilePath);
+            createTileProviders(_tileMeshes, _map.getTileLayer());
+            _map.populateStreamed(_tileProviders, _colliderProviders, _entityMeshes, _particleMeshes, _soundEngine, Game.ROOM_STREAMING_DISTANCE);
+            return;
+        }
+        
+        // Geometrie aus dem kompilierten Level bernehmen oder aus den CSV-Dateien erzeugen
+        _map = null;
+        if(useLevelCache)
+        {
+            _map = _compiledLoader.load(compiledFilePath, tileFilePath, functionFilePath, geometryStamp);
+        }
+        if(_map == null)
+        {
+            _map = _csvLoader.loadFromFile(tileFilePath, functionFilePath);
+            createTileProviders(_tileMeshes, _map.getTileLayer());
+            if(useLevelCache)
+            {
+                // Ungebatchte Quellobjekte speichern, damit das kompilierte Level proportional zur Tile-Anzahl bleibt
+                _map.createGeometry(_tileProviders, _colliderProviders);
+                _compiledLoader.save(_map, compiledFilePath, tileFilePath, functionFilePath, geometryStamp);
+                _map.batchStaticGeometry();
+            }
+            else
+            {
+                _map.populateGeometry(_tileProviders, _colliderProviders);
+            }
+        }
+        else
+        {
+            // Auch bei bernommener Geometrie werden die Tren aus ihren TileProvidern erzeugt
+            createTileProviders(_tileMeshes, _map.getTileLayer());
+        }
+        
+        // Zustandsbehaftete Objekte (Entities, Tren) werden immer neu erzeugt
+        _map.populateFunctions(_tileProviders, _entityMeshes, _particleMeshes, _soundEngine);
     }
     
     /**
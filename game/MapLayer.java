@@ -0,0 +1,114 @@
+package game;
+
+import java.util.*;
+
+/**
+ * Rechteckige Ebene von Tile-Werten einer Map, zeilenweise in einem flachen int-Array gespeichert
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 13.01.2022
+ */
+public class MapLayer
+{
+    private final int _width;
+    private final int _height;
+    // Wert an (x, z) liegt bei Index z * _width + x
+    private final int[] _values;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse MapLayer. Das Array wird bernommen und nicht kopiert.
+     * @param width Breite in Tiles (x-Richtung)
+     * @param height Hhe in Tiles (z-Richtung)
+     * @param values zeilenweise gespeicherte Werte (Lnge width * height)
+     */
+    public MapLayer(int width, int height, int[] values)
+    {
+        if(width < 0 || height < 0)
+        {
+            throw new IllegalArgumentException("map layer dimensions must not be negative, were " + width + "x" + height);
+        }
+        if(values == null || values.length != width * height)
+        {
+            throw new IllegalArgumentException("map layer requires " + (width * height) + " values");
+        }
+        
+        _width = width;
+        _height = height;
+        _values = values;
+    }
+    
+    /**
+     * Erzeugt eine Ebene aus Zeilen ggf. unterschiedlicher Lnge. Fehlende Werte werden mit Tile.NONE aufgefllt.
+     * @param rows Zeilen der Ebene
+     * @return Ebene mit der Breite der lngsten Zeile
+     */
+    public static MapLayer fromRows(List<int[]> rows)
+    {
+        int width = 0;
+        for(int[] row : rows)
+        {
+            width = Math.max(width, row.length);
+        }
+        
+        int[] values = new int[width * rows.size()];
+        Arrays.fill(values, Tile.NONE);
+        for(int z = 0; z < rows.size(); z++)
+        {
+            int[] row = rows.get(z);
+            System.arraycopy(row, 0, values, z * width, row.length);
+        }
+        
+        return new MapLayer(width, rows.size(), values);
+    }
+    
+    /**
+     * @return Breite in Tiles (x-Richtung)
+     */
+    public int getWidth()
+    {
+        return _width;
+    }
+    
+    /**
+     * @return Hhe in Tiles (z-Richtung)
+     */
+    public int getHeight()
+    {
+        return _height;
+    }
+    
+    /**
+     * Prft, ob eine Position innerhalb der Ebene liegt
+     * @param x x-Koordinate
+     * @param z z-Koordinate
+     * @return Wahrheitswert der Aussage "Die Position liegt in der Ebene"
+     */
+    public boolean contains(int x, int z)
+    {
+        return x >= 0 && z >= 0 && x < _width && z < _height;
+    }
+    
+    /**
+     * Gibt den Wert an einer Position zurck
+     * @param x x-Koordinate
+     * @param z z-Koordinate
+     * @return Wert an der Position, Tile.NONE fr Out-of-Bounds-Werte
+     */
+    public int get(int x, int z)
+    {
+        if(!contains(x, z))
+        {
+            return Tile.NONE;
+        }
+        return _values[z * _width + x];
+    }
+    
+    /**
+     * Gibt eine Referenz auf die zeilenweise gespeicherten Werte zurck
+     * @return Werte-Array (nicht verndern)
+     */
+    public int[] getValues()
+    {
+        return _values;
+    }
+}
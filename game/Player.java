@@ -175,6 +175,14 @@ public class Player implements ILivingEntity, IDynamicGameObject, ICollisionList
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        return null;
+    }
+    
     /**
      * Gibt zurck, ob der Spieler gestorben und hingefallen ist
      * @return true, wenn Spieler tot ist und bereits zu Boden gefallen ist
@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Viewmodel des Spielers.
@@ -29,7 +30,7 @@ public class PlayerViewModel implements IGameObject
      * @param state GameState, das das ViewModel benutzt
      * @param mapHandler Handler der aktuellen Map
      */
-    public PlayerViewModel(HashMap<String, Mesh> viewModelMeshes, GameState state, MapHandler mapHandler)
+    public PlayerViewModel(MeshSet viewModelMeshes, GameState state, MapHandler mapHandler)
     {
         _state = state;
         _mapHandler = mapHandler;
@@ -125,6 +126,15 @@ public class PlayerViewModel implements IGameObject
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // ViewModels werden im Viewspace gezeichnet und daher nie verworfen
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
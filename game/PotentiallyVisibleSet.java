@@ -0,0 +1,338 @@
+package game;
+
+import maths.*;
+import java.util.*;
+import javafx.util.*;
+
+/**
+ * Vorberechnete Sichtbarkeitsinformationen (Potentially Visible Set) der Rume einer GridMap.
+ * Fr jeden Raum werden beim Laden alle Rume bestimmt, die durch eine Kette von Tren hindurch sichtbar sein knnen,
+ * zusammen mit den Tren, die dafr geffnet sein mssen.
+ * Zur Laufzeit wird daraus anhand der aktuellen Trzustnde die Menge der sichtbaren Rume bestimmt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 03.01.2022
+ */
+public class PotentiallyVisibleSet
+{
+    // Toleranz der Schnitttests in Tile-Einheiten
+    private static final double EPSILON = 1e-9;
+    
+    // Tren, nach Tile-Position zusammengefasst
+    private ArrayList<Vector2i> _doorTiles;
+    private HashMap<Vector2i, Integer> _doorIndices;
+    private int _maskLength;
+    
+    // Sichtbedingungen je Raum: Zielraum und Bitmaske der Tren, die dafr geffnet sein mssen
+    private int[][] _targets;
+    private long[][][] _conditions;
+    
+    // Aktueller Trzustand als Bitmaske offener Tren
+    private long[] _openDoors;
+    
+    // Zuletzt ausgewertete Sichtbarkeit
+    private int _cachedRoom;
+    private int[] _visibleRooms;
+    private boolean[] _visibleFlags;
+
+    /**
+     * Konstruktor fr Objekte der Klasse PotentiallyVisibleSet.
+     * Berechnet die Sichtbarkeitsinformationen fr alle Rume der gegebenen Map.
+     * @param rooms Rume der Map, in der Reihenfolge ihrer IDs
+     * @param doors Trobjekte der Map
+     */
+    public PotentiallyVisibleSet(ArrayList<Room> rooms, ArrayList<IDoorGameObject> doors)
+    {
+        if(rooms == null) throw new IllegalArgumentException("PVS rooms must not be null");
+        if(doors == null) throw new IllegalArgumentException("PVS doors must not be null");
+        
+        // Tren nach Tile-Position indizieren
+        _doorTiles = new ArrayList<Vector2i>();
+        _doorIndices = new HashMap<Vector2i, Integer>();
+        for(IDoorGameObject door : doors)
+        {
+            if(!_doorIndices.containsKey(door.getTilePosition()))
+            {
+                _doorIndices.put(door.getTilePosition(), _doorTiles.size());
+                _doorTiles.add(door.getTilePosition());
+            }
+        }
+        _maskLength = (_doorTiles.size() + 63) / 64;
+        _openDoors = new long[_maskLength];
+        
+        // Sichtbedingungen fr jeden Raum berechnen
+        _targets = new int[rooms.size()][];
+        _conditions = new long[rooms.size()][][];
+        for(int roomID = 0; roomID < rooms.size(); roomID++)
+        {
+            computeRoom(roomID, rooms);
+        }
+        
+        _cachedRoom = -1;
+        _visibleRooms = new int[0];
+        _visibleFlags = new boolean[rooms.size()];
+    }
+    
+    /**
+     * bernimmt die aktuellen Trzustnde
+     * @param doors Trobjekte der Map
+     * @return true, wenn sich die Menge der offenen Tren gendert hat
+     */
+    public boolean updateDoorStates(ArrayList<IDoorGameObject> doors)
+    {
+        long[] previous = _openDoors.clone();
+        Arrays.fill(_openDoors, 0L);
+        
+        // Eine Tr-Tile gilt als offen, sobald eines ihrer Trobjekte offen ist
+        for(IDoorGameObject door : doors)
+        {
+            Integer index = _doorIndices.get(door.getTilePosition());
+            if(index != null && door.isOpen())
+            {
+                _openDoors[index >> 6] |= 1L << (index & 63);
+            }
+        }
+        
+        if(!Arrays.equals(previous, _openDoors))
+        {
+            _cachedRoom = -1;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Gibt die IDs aller Rume zurck, die aus einem gegebenen Raum beim aktuellen Trzustand sichtbar sein knnen.
+     * Der Raum selbst steht dabei an erster Stelle.
+     * @param roomID ID des Raums, aus dem gesehen wird
+     * @return Array der sichtbaren Raum-IDs (nicht verndern)
+     */
+    public int[] getVisibleRooms(int roomID)
+    {
+        if(roomID != _cachedRoom)
+        {
+            evaluate(roomID);
+        }
+        return _visibleRooms;
+    }
+    
+    /**
+     * Gibt zurck, ob ein Raum aus einem gegebenen Raum beim aktuellen Trzustand sichtbar sein kann
+     * @param roomID ID des Raums, aus dem gesehen wird
+     * @param otherRoomID ID des zu prfenden Raums
+     * @return true, wenn der Raum sichtbar sein kann
+     */
+    public boolean isVisible(int roomID, int otherRoomID)
+    {
+        if(roomID != _cachedRoom)
+        {
+            evaluate(roomID);
+        }
+        return _visibleFlags[otherRoomID];
+    }
+    
+    /**
+     * Wertet die Sichtbedingungen eines Raums mit dem aktuellen Trzustand aus
+     * @param roomID ID des Raums, aus dem gesehen wird
+     */
+    private void evaluate(int roomID)
+    {
+        Arrays.fill(_visibleFlags, false);
+        int[] result = new int[_targets[roomID].length + 1];
+        int count = 0;
+        
+        result[count++] = roomID;
+        _visibleFlags[roomID] = true;
+        
+        for(int i = 0; i < _targets[roomID].length; i++)
+        {
+            int target = _targets[roomID][i];
+            if(!_visibleFlags[target] && isSubset(_conditions[roomID][i], _openDoors))
+            {
+                result[count++] = target;
+                _visibleFlags[target] = true;
+            }
+        }
+        
+        _visibleRooms = Arrays.copyOf(result, count);
+        _cachedRoom = roomID;
+    }
+    
+    /**
+     * Berechnet die Sichtbedingungen eines Raums.
+     * Dazu werden alle Trketten ausgehend vom Raum verfolgt, solange eine Gerade durch alle Trffnungen der Kette existiert.
+     * @param roomID ID des Raums, aus dem gesehen wird
+     * @param rooms Rume der Map
+     */
+    private void computeRoom(int roomID, ArrayList<Room> rooms)
+    {
+        ArrayList<Integer> targets = new ArrayList<Integer>();
+        ArrayList<long[]> conditions = new ArrayList<long[]>();
+        
+        traverse(roomID, rooms, new long[_maskLength], new ArrayList<double[]>(), targets, conditions);
+        
+        _targets[roomID] = new int[targets.size()];
+        _conditions[roomID] = new long[targets.size()][];
+        for(int i = 0; i < targets.size(); i++)
+        {
+            _targets[roomID][i] = targets.get(i);
+            _conditions[roomID][i] = conditions.get(i);
+        }
+    }
+    
+    /**
+     * Verfolgt rekursiv alle Trketten, die von einem Raum ausgehen
+     * @param roomID ID des aktuellen Raums der Kette
+     * @param rooms Rume der Map
+     * @param chain Bitmaske der Tren in der bisherigen Kette
+     * @param portals Trffnungen der bisherigen Kette als Strecken (x1, z1, x2, z2) in Tile-Koordinaten
+     * @param targets bisher gefundene Zielrume
+     * @param conditions zu den Zielrumen gehrende Trmasken
+     */
+    private void traverse(int roomID, ArrayList<Room> rooms, long[] chain, ArrayList<double[]> portals, ArrayList<Integer> targets, ArrayList<long[]> conditions)
+    {
+        for(IDoorGameObject door : rooms.get(roomID).getDoors())
+        {
+            int index = _doorIndices.get(door.getTilePosition());
+            if((chain[index >> 6] & (1L << (index & 63))) != 0)
+            {
+                continue;
+            }
+            
+            // ID des Raums am anderen Ende der Tr feststellen
+            Integer otherRoom = null;
+            Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
+            if(doorConnection.getKey() != null && roomID == doorConnection.getKey())
+            {
+                otherRoom = doorConnection.getValue();
+            }
+            else if(doorConnection.getValue() != null && roomID == doorConnection.getValue())
+            {
+                otherRoom = doorConnection.getKey();
+            }
+            if(otherRoom == null)
+            {
+                continue;
+            }
+            
+            // Kette nur fortsetzen, wenn eine Sichtlinie durch alle ffnungen existiert
+            int portalCount = portals.size();
+            addPortals(door, portals);
+            if(existsStabbingLine(portals))
+            {
+                long[] nextChain = chain.clone();
+                nextChain[index >> 6] |= 1L << (index & 63);
+                addCondition(otherRoom, nextChain, targets, conditions);
+                traverse(otherRoom, rooms, nextChain, portals, targets, conditions);
+            }
+            while(portals.size() > portalCount)
+            {
+                portals.remove(portals.size() - 1);
+            }
+        }
+    }
+    
+    /**
+     * Registriert eine Sichtbedingung, sofern keine schwchere Bedingung fr denselben Zielraum existiert
+     * @param target Zielraum
+     * @param condition Bitmaske der Tren, die geffnet sein mssen
+     * @param targets bisher gefundene Zielrume
+     * @param conditions zu den Zielrumen gehrende Trmasken
+     */
+    private void addCondition(int target, long[] condition, ArrayList<Integer> targets, ArrayList<long[]> conditions)
+    {
+        for(int i = 0; i < targets.size(); i++)
+        {
+            if(targets.get(i) == target && isSubset(conditions.get(i), condition))
+            {
+                return;
+            }
+        }
+        targets.add(target);
+        conditions.add(condition);
+    }
+    
+    /**
+     * Fgt die ffnung einer Tr als zwei Strecken an den Rndern ihrer Tile hinzu
+     * @param door Tr
+     * @param portals Liste der ffnungen
+     */
+    private static void addPortals(IDoorGameObject door, ArrayList<double[]> portals)
+    {
+        Vector2i pos = door.getTilePosition();
+        int x = pos.getX(), z = pos.getY();
+        
+        if(door.isFacingZ())
+        {
+            portals.add(new double[] { x, z, x + 1, z });
+            portals.add(new double[] { x, z + 1, x + 1, z + 1 });
+        }
+        else
+        {
+            portals.add(new double[] { x, z, x, z + 1 });
+            portals.add(new double[] { x + 1, z, x + 1, z + 1 });
+        }
+    }
+    
+    /**
+     * Prft, ob eine Gerade existiert, die alle gegebenen Strecken schneidet.
+     * Existiert eine solche Gerade, so existiert auch eine, die durch zwei der Streckenendpunkte verluft.
+     * @param portals Strecken (x1, z1, x2, z2)
+     * @return true, wenn eine gemeinsame Gerade existiert
+     */
+    private static boolean existsStabbingLine(ArrayList<double[]> portals)
+    {
+        int pointCount = portals.size() * 2;
+        for(int i = 0; i < pointCount; i++)
+        {
+            double[] first = portals.get(i / 2);
+            double ax = first[(i % 2) * 2], az = first[(i % 2) * 2 + 1];
+            
+            for(int j = i + 1; j < pointCount; j++)
+            {
+                double[] second = portals.get(j / 2);
+                double bx = second[(j % 2) * 2], bz = second[(j % 2) * 2 + 1];
+                double dx = bx - ax, dz = bz - az;
+                if(Math.abs(dx) < EPSILON && Math.abs(dz) < EPSILON)
+                {
+                    continue;
+                }
+                
+                boolean stabsAll = true;
+                for(double[] portal : portals)
+                {
+                    double side1 = dx * (portal[1] - az) - dz * (portal[0] - ax);
+                    double side2 = dx * (portal[3] - az) - dz * (portal[2] - ax);
+                    if((side1 > EPSILON && side2 > EPSILON) || (side1 < -EPSILON && side2 < -EPSILON))
+                    {
+                        stabsAll = false;
+                        break;
+                    }
+                }
+                if(stabsAll)
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Prft, ob alle Bits einer Maske auch in einer anderen Maske gesetzt sind
+     * @param subset zu prfende Maske
+     * @param superset umfassende Maske
+     * @return true, wenn subset eine Teilmenge von superset ist
+     */
+    private static boolean isSubset(long[] subset, long[] superset)
+    {
+        for(int i = 0; i < subset.length; i++)
+        {
+            if((subset[i] & ~superset[i]) != 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Drehender Reaktorkern, der de-facto Endgegner des Spiels
@@ -35,7 +36,7 @@ public class ReactorCore extends Enemy implements ILivingEntity, ICollisionListe
     private CircleCollider _collider;
     
     // Partikel
-    private HashMap<String, Mesh> _particleMeshes;
+    private MeshSet _particleMeshes;
     
     // Positionierung
     private Vector3 _scale;
@@ -65,7 +66,7 @@ public class ReactorCore extends Enemy implements ILivingEntity, ICollisionListe
      * @param particleMeshes Register, aus dem die Partikel-Meshes bezogen werden
      * @param soundEngine Sound Engine, aus der die Sounds der Entity bezogen werden
      */
-    public ReactorCore(Vector3 position, Room room, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine)
+    public ReactorCore(Vector3 position, Room room, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine)
     {
         _room = room;
         
@@ -220,6 +221,15 @@ public class ReactorCore extends Enemy implements ILivingEntity, ICollisionListe
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Besteht aus mehreren Teilobjekten, die beim Zeichnen einzeln verworfen werden
+        return null;
+    }
+    
     /**
      * @see ILivingEntity#isAlive()
      */
@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Partikelsystem, das beim der Explosion des Reactor Cores benutzt wird.
@@ -38,7 +39,7 @@ public class ReactorExplosionParticleSystem implements IParticleSystem
      * @param room umschlieender Raum
      * @param particleMeshes HashMap der registrierten Partikel-Meshes
      */
-    public ReactorExplosionParticleSystem(Vector3 position, Room room, HashMap<String, Mesh> particleMeshes)
+    public ReactorExplosionParticleSystem(Vector3 position, Room room, MeshSet particleMeshes)
     {
         if(position == null)
         {
@@ -202,6 +203,15 @@ public class ReactorExplosionParticleSystem implements IParticleSystem
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Die einzelnen Partikel werden beim Zeichnen verworfen
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Partikelsystem, das beim Treffen von dem Reactor Core mit Schssen benutzt wird
@@ -37,7 +38,7 @@ public class ReactorHitParticleSystem implements IParticleSystem
      * @param room umschlieender Raum
      * @param particleMeshes HashMap der registrierten Partikel-Meshes
      */
-    public ReactorHitParticleSystem(Vector3 position, Room room, HashMap<String, Mesh> particleMeshes)
+    public ReactorHitParticleSystem(Vector3 position, Room room, MeshSet particleMeshes)
     {
         if(position == null)
         {
@@ -193,6 +194,15 @@ public class ReactorHitParticleSystem implements IParticleSystem
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Die einzelnen Partikel werden beim Zeichnen verworfen
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
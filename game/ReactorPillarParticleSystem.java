@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Partikelsystem, das aus der Sule des Reaktorkerns horizontale Sechsecke emittiert, die mit der Zeit grer werden
@@ -18,7 +19,7 @@ public class ReactorPillarParticleSystem implements IParticleSystem
     
     // Partikel
     private ArrayList<IParticle> _particles;
-    private HashMap<String, Mesh> _particleMeshes;
+    private MeshSet _particleMeshes;
     
     // Funktionalitt
     private double _elapsedTime;
@@ -40,7 +41,7 @@ public class ReactorPillarParticleSystem implements IParticleSystem
      * @param room umschlieender Raum
      * @param particleMeshes HashMap der registrierten Partikel-Meshes
      */
-    public ReactorPillarParticleSystem(Vector3 position, Room room, HashMap<String, Mesh> particleMeshes)
+    public ReactorPillarParticleSystem(Vector3 position, Room room, MeshSet particleMeshes)
     {
         if(position == null)
         {
@@ -203,6 +204,15 @@ public class ReactorPillarParticleSystem implements IParticleSystem
         return null;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Die einzelnen Partikel werden beim Zeichnen verworfen
+        return null;
+    }
+    
     /**
      * @see IGameObject#getPosition()
      */
@@ -4,12 +4,13 @@ import physics.*;
 import maths.*;
 import core.*;
 import java.util.*;
+import util.*;
 
 /**
  * Ein rumlich eingegrenzter Abschnitt einer Gridmap, innerhalb dessen Simulationen durchgefhrt werden
  * 
  * @author Lasse Huber-Saffer
- * @version 03.01.2022
+ * @version 12.01.2022
  */
 public class Room
 {
@@ -17,9 +18,11 @@ public class Room
     private GridMap _map;
     
     // Map Geometry & Physics
-    private HashSet<Vector2i> _tiles;
+    private BitSet _tileMask;
+    private int _tileCount;
     private ArrayList<IGameObject> _geometry;
     private ArrayList<ICollider> _staticColliders;
+    private ArrayList<Vector3[]> _occluders;
     
     // Functionality
     private ArrayList<Vector2i> _doorLocations;
@@ -39,6 +42,9 @@ public class Room
     private int _maxZ;
     
     private static final boolean DEBUG_SHOW_MISSING_TILE_MESHES = false;
+    
+    // Kantenlnge der Abschnitte (in Tiles), zu denen statische Geometrie zusammengefasst wird
+    private static final int BATCH_CHUNK_SIZE = 4;
 
     /**
      * Konstruktor fr Objekte der Klasse Room
@@ -49,9 +55,11 @@ public class Room
         if(map == null) throw new IllegalArgumentException("Room parent GridMap must not be null");
         _map = map;
         
-        _tiles = new HashSet<Vector2i>();
+        _tileMask = new BitSet();
+        _tileCount = 0;
         _geometry = new ArrayList<IGameObject>();
         _staticColliders = new ArrayList<ICollider>();
+        _occluders = new ArrayList<Vector3[]>();
         
         _doorLocations = new ArrayList<Vector2i>();
         _doors = new ArrayList<IDoorGameObject>();
@@ -73,19 +81,43 @@ public class Room
      * @param tileLayer rohe Geometrie-Mapdaten
      * @param functionLayer rohe Funktions-Mapdaten
      */
-    public void populate(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine, ArrayList<ArrayList<Integer>> tileLayer, ArrayList<ArrayList<Integer>> functionLayer)
+    public void populate(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine, MapLayer tileLayer, MapLayer functionLayer)
+    {
+        populateGeometry(tileProviders, colliderProviders, tileLayer);
+        populateFunctions(entityMeshes, particleMeshes, soundEngine, functionLayer);
+    }
+    
+    /**
+     * Erstellt die statische Geometrie, Collider und Occluder des Raums aus dem Tile-Layer und fasst die Geometrie zusammen
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID
+     * @param tileLayer rohe Geometrie-Mapdaten
+     */
+    public void populateGeometry(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MapLayer tileLayer)
+    {
+        createGeometry(tileProviders, colliderProviders, tileLayer);
+        batchStaticGeometry();
+    }
+    
+    /**
+     * Erstellt die statische Geometrie, Collider und Occluder des Raums aus dem Tile-Layer, ohne die Geometrie zusammenzufassen.
+     * Das Ergebnis hngt nur von den Mapdaten ab und kann daher in einem kompilierten Level gespeichert werden.
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID
+     * @param tileLayer rohe Geometrie-Mapdaten
+     */
+    public void createGeometry(HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MapLayer tileLayer)
     {
         // Null-Check der Parameter
         if(tileProviders == null)       throw new IllegalArgumentException("tileProviders was null when populating room");
         if(colliderProviders == null)   throw new IllegalArgumentException("colliderProviders was null when populating room");
-        if(entityMeshes == null)        throw new IllegalArgumentException("entityMeshes was null when populating room");
         
         // Geometrieebene (Iteriert nur innerhalb der Bounds)
         for(int z = _minZ; z <= _maxZ; z++)
         {
             for(int x = _minX; x <= _maxX; x++)
             {
-                int value = _map.getTileValue(new Vector2i(x, z));
+                int value = tileLayer.get(x, z);
                 if(value != -1 && this.contains(x, z))
                 {
                     if(!tileProviders.containsKey(value))
@@ -98,10 +130,16 @@ public class Room
                         TileEnvironment env = null;
                         if(provider.requiresEnvironment())
                         {
-                            env = new TileEnvironment(tileLayer, _map.getFunctionValue(new Vector2i(x, z)), this, x, z);
+                            env = new TileEnvironment(tileLayer, _map.getFunctionValue(x, z), this, x, z);
                         }
                         
                         _geometry.addAll(provider.getTileObjects(env, x, z));
+                        
+                        // Verdeckende Flchen fr das Occlusion Culling
+                        if(provider instanceof IOccluderProvider)
+                        {
+                            _occluders.addAll(((IOccluderProvider)provider).getOccluders(env, x, z));
+                        }
                     }
                     
                     if(colliderProviders.containsKey(value))
@@ -110,7 +148,7 @@ public class Room
                         TileEnvironment env = null;
                         if(provider.requiresEnvironment())
                         {
-                            env = new TileEnvironment(tileLayer, _map.getFunctionValue(new Vector2i(x, z)), this, x, z);
+                            env = new TileEnvironment(tileLayer, _map.getFunctionValue(x, z), this, x, z);
                         }
                         
                         _staticColliders.addAll(provider.getColliders(env, x, z));
@@ -118,6 +156,62 @@ public class Room
                 }
             }
         }
+    }
+    
+    /**
+     * bernimmt Gebiet, Geometrie, Collider und Occluder des Raums aus einem kompilierten Level, statt sie neu zu erzeugen.
+     * Die Geometrie wird nicht zusammengefasst; dafr muss anschlieend batchStaticGeometry() aufgerufen werden.
+     * @param tiles im Raum enthaltene Tiles
+     * @param minX unterer inklusiver x-Wert der Bounding Box
+     * @param minZ unterer inklusiver z-Wert der Bounding Box
+     * @param maxX oberer inklusiver x-Wert der Bounding Box
+     * @param maxZ oberer inklusiver z-Wert der Bounding Box
+     * @param geometry statische Geometrie des Raums
+     * @param staticColliders statische Collider des Raums
+     * @param occluders verdeckende Flchen des Raums
+     */
+    public void restoreGeometry(Collection<Vector2i> tiles, int minX, int minZ, int maxX, int maxZ, ArrayList<IGameObject> geometry, ArrayList<ICollider> staticColliders, ArrayList<Vector3[]> occluders)
+    {
+        BitSet mask = new BitSet();
+        int width = maxX - minX + 1;
+        for(Vector2i tile : tiles)
+        {
+            int x = tile.getX(), z = tile.getY();
+            if(x < minX || x > maxX || z < minZ || z > maxZ)
+            {
+                throw new IllegalArgumentException("Restored room tile lies outside of the room bounds");
+            }
+            mask.set((z - minZ) * width + (x - minX));
+        }
+        setTiles(minX, minZ, maxX, maxZ, mask);
+        
+        _geometry = geometry;
+        _staticColliders = staticColliders;
+        _occluders = occluders;
+    }
+    
+    /**
+     * Gibt Geometrie, Collider und Occluder des Raums frei, um Speicher zu sparen.
+     * Gebiet, Tren und Entities bleiben erhalten, sodass die Geometrie spter mit populateGeometry() neu erzeugt werden kann.
+     */
+    public void unloadGeometry()
+    {
+        _geometry = new ArrayList<IGameObject>();
+        _staticColliders = new ArrayList<ICollider>();
+        _occluders = new ArrayList<Vector3[]>();
+    }
+    
+    /**
+     * Verarbeitet den Function-Layer des Raums: Fokuspunkte, Patrouillenroute und Entities.
+     * Entities haben einen vernderlichen Zustand und werden daher bei jedem Laden neu erzeugt.
+     * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
+     * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
+     * @param soundEngine Sound Engine
+     * @param functionLayer rohe Funktions-Mapdaten
+     */
+    public void populateFunctions(MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine, MapLayer functionLayer)
+    {
+        if(entityMeshes == null)        throw new IllegalArgumentException("entityMeshes was null when populating room");
         
         // Funktionsebene (Nur im Kontext des Raumes wichtige Tiles, iteriert nur innerhalb der Bounds)
         // Erster Lauf:
@@ -125,7 +219,7 @@ public class Room
         {
             for(int x = _minX; x <= _maxX; x++)
             {
-                int value = functionLayer.get(z).get(x);
+                int value = functionLayer.get(x, z);
                 if(value != -1 && this.contains(x, z))
                 {
                     switch(value)
@@ -195,7 +289,7 @@ public class Room
         {
             for(int x = _minX; x <= _maxX; x++)
             {
-                int value = functionLayer.get(z).get(x);
+                int value = functionLayer.get(x, z);
                 if(value != -1 && this.contains(x, z))
                 {
                     switch(value)
@@ -244,6 +338,55 @@ public class Room
         }
     }
     
+    /**
+     * Fasst alle StaticGameObjects der Raumgeometrie abschnittsweise (BATCH_CHUNK_SIZE x BATCH_CHUNK_SIZE Tiles) zu StaticBatchGameObjects zusammen,
+     * sofern Game.STATIC_GEOMETRY_BATCHING aktiv ist.
+     * Objekte mit mehreren Levels of Detail bleiben einzeln erhalten, da ihr Mesh zur Laufzeit wechselt.
+     */
+    public void batchStaticGeometry()
+    {
+        if(!Game.STATIC_GEOMETRY_BATCHING)
+        {
+            return;
+        }
+        
+        LinkedHashMap<Vector2i, ArrayList<StaticGameObject>> chunks = new LinkedHashMap<Vector2i, ArrayList<StaticGameObject>>();
+        ArrayList<IGameObject> result = new ArrayList<IGameObject>();
+        
+        for(IGameObject obj : _geometry)
+        {
+            if(!(obj instanceof StaticGameObject))
+            {
+                result.add(obj);
+                continue;
+            }
+            
+            // Leere Meshes zeichnen nichts und werden verworfen
+            StaticGameObject staticObj = (StaticGameObject)obj;
+            if(staticObj.getMeshRef().getVertexCount() == 0)
+            {
+                continue;
+            }
+            
+            Vector2i tilePos = MapHandler.worldPosToTilePos(staticObj.getPosition());
+            Vector2i chunkPos = new Vector2i(Math.floorDiv(tilePos.getX(), BATCH_CHUNK_SIZE), Math.floorDiv(tilePos.getY(), BATCH_CHUNK_SIZE));
+            ArrayList<StaticGameObject> chunk = chunks.get(chunkPos);
+            if(chunk == null)
+            {
+                chunk = new ArrayList<StaticGameObject>();
+                chunks.put(chunkPos, chunk);
+            }
+            chunk.add(staticObj);
+        }
+        
+        for(ArrayList<StaticGameObject> chunk : chunks.values())
+        {
+            result.add(new StaticBatchGameObject(chunk));
+        }
+        
+        _geometry = result;
+    }
+    
     /**
      * Verarbeitet die Kollisionen eines Colliders mit den Collidern des Raums
      * @param collider Collider, dessen Kollisionen verarbeitet werden
@@ -278,22 +421,43 @@ public class Room
      */
     public void draw(Renderer renderer, Camera camera)
     {
-        // Raumgeometrie zeichnen
+        draw(renderer, camera, renderer.getFrustum(camera), null);
+    }
+    
+    /**
+     * Zeichnet alle Objekte des Raums, die in einem gegebenen Sichtvolumen liegen und nicht verdeckt sind
+     * @param renderer Renderer, der zum Zeichnen verwendet werden soll
+     * @param camera Kamera, in deren Sichtfeld gerendert werden soll
+     * @param frustum Sichtvolumen, gegen das die Objekte geprft werden (z.B. durch ein Portal eingeengt)
+     * @param occlusion Verdeckungspuffer, gegen den Geometrie und Entities geprft werden, darf null sein
+     */
+    public void draw(Renderer renderer, Camera camera, Frustum frustum, OcclusionBuffer occlusion)
+    {
+        // Raumgeometrie zeichnen, die im Sichtfeld der Kamera liegt und nicht verdeckt ist
         for(IGameObject obj : _geometry)
         {
-            obj.draw(renderer, camera);
+            if(renderer.isVisible(obj, frustum) && (occlusion == null || !occlusion.isOccluded(obj.getBounds())))
+            {
+                obj.draw(renderer, camera);
+            }
         }
         
-        // Entities zeichnen
+        // Entities zeichnen, die im Sichtfeld der Kamera liegen und nicht verdeckt sind
         for(IGameObject entity : _entities)
         {
-            entity.draw(renderer, camera);
+            if(renderer.isVisible(entity, frustum) && (occlusion == null || !occlusion.isOccluded(entity.getBounds())))
+            {
+                entity.draw(renderer, camera);
+            }
         }
         
         // Partikelsysteme zeichnen
         for(IParticleSystem particleSystem : _particleSystems)
         {
-            particleSystem.draw(renderer, camera);
+            if(renderer.isVisible(particleSystem, frustum))
+            {
+                particleSystem.draw(renderer, camera);
+            }
         }
     }
     
@@ -343,42 +507,6 @@ public class Room
         }
     }
     
-    /**
-     * Sortiert die GameObjects, die Teil der Raumgeometrie sind, neu, sodass sie mit aufsteigender Distanz zur Kamera sortiert sind.
-     * Dies sorgt dafr, dass das Flackern, das durch das Fehlen des Back Buffers entsteht, mglichst entfernt von der Kamera stattfindet und somit weniger bemerkbar ist.
-     * @param cameraPosition Position der Kamera, im Bezug zu der die GameObjects sortiert werden sollen
-     */
-    public void reorderAroundCamera(Vector3 cameraPosition)
-    {
-        // Distanz-Komparator
-        Comparator gameObjectDistanceComparator = new Comparator<IGameObject>() {
-            @Override
-            public int compare(IGameObject obj1, IGameObject obj2)
-            {
-                double dist1 = obj1.getPosition().subtract(cameraPosition).getLength();
-                double dist2 = obj2.getPosition().subtract(cameraPosition).getLength();
-                
-                if(dist1 > dist2)
-                {
-                    return 1;
-                }
-                else if(dist1 < dist2)
-                {
-                    return -1;
-                }
-                else
-                {
-                    return 0;
-                }
-            }
-        };
-        
-        // Sortiert die Collection
-        Collections.sort(_geometry,
-             gameObjectDistanceComparator        
-        );
-    }
-    
     /**
      * Fgt eine bestimmte Tile zum Gebiet dieses Raumes hinzu
      * @param x x-Koordinate der Tile
@@ -386,37 +514,72 @@ public class Room
      */
     public void addTile(int x, int z)
     {
-        if(!_tiles.contains(new Vector2i(x, z)))
+        if(contains(x, z))
         {
-            if(_tiles.size() == 0)
-            {
-                _minX = x;
-                _maxX = x;
-                _minZ = z;
-                _maxZ = z;
-            }
-            else if(x < _minX)
-            {
-                _minX = x;
-            }
-            else if(x > _maxX)
-            {
-                _maxX = x;
-            }
-            else if(z < _minZ)
-            {
-                _minZ = z;
-            }
-            else if(z > _maxZ)
-            {
-                _maxZ = z;
-            }
-            _tiles.add(new Vector2i(x, z));
+            System.out.println("Already contains element");
+            return;
         }
-        else
+        
+        if(_tileCount == 0)
         {
-            System.out.println("Already contains element");
+            _minX = x;
+            _maxX = x;
+            _minZ = z;
+            _maxZ = z;
+            _tileMask.clear();
         }
+        else if(x < _minX || x > _maxX || z < _minZ || z > _maxZ)
+        {
+            // Bitmaske auf die vergrerten Bounds umkopieren
+            int minX = Math.min(x, _minX), maxX = Math.max(x, _maxX);
+            int minZ = Math.min(z, _minZ), maxZ = Math.max(z, _maxZ);
+            int width = maxX - minX + 1;
+            BitSet mask = new BitSet();
+            for(Vector2i tile : getTiles())
+            {
+                mask.set((tile.getY() - minZ) * width + (tile.getX() - minX));
+            }
+            _tileMask = mask;
+            _minX = minX;
+            _maxX = maxX;
+            _minZ = minZ;
+            _maxZ = maxZ;
+        }
+        
+        _tileMask.set(getMaskIndex(x, z));
+        _tileCount++;
+    }
+    
+    /**
+     * Ersetzt das Gebiet dieses Raumes durch eine Bitmaske ber die gegebenen Bounds.
+     * Bit (z - minZ) * (maxX - minX + 1) + (x - minX) ist genau dann gesetzt, wenn die Tile (x, z) zum Raum gehrt.
+     * @param minX unterer inklusiver x-Wert der Bounding Box
+     * @param minZ unterer inklusiver z-Wert der Bounding Box
+     * @param maxX oberer inklusiver x-Wert der Bounding Box
+     * @param maxZ oberer inklusiver z-Wert der Bounding Box
+     * @param mask Bitmaske der enthaltenen Tiles (wird bernommen und nicht kopiert)
+     */
+    public void setTiles(int minX, int minZ, int maxX, int maxZ, BitSet mask)
+    {
+        if(mask == null) throw new IllegalArgumentException("Room tile mask must not be null");
+        
+        _minX = minX;
+        _minZ = minZ;
+        _maxX = maxX;
+        _maxZ = maxZ;
+        _tileMask = mask;
+        _tileCount = mask.cardinality();
+    }
+    
+    /**
+     * Gibt den Index einer Tile in der Bitmaske zurck
+     * @param x x-Koordinate (muss innerhalb der Bounds liegen)
+     * @param z z-Koordinate (muss innerhalb der Bounds liegen)
+     * @return Index der Tile in _tileMask
+     */
+    private int getMaskIndex(int x, int z)
+    {
+        return (z - _minZ) * (_maxX - _minX + 1) + (x - _minX);
     }
     
     /**
@@ -439,7 +602,11 @@ public class Room
      */
     public boolean contains(int x, int z)
     {
-        return _tiles.contains(new Vector2i(x, z));
+        if(_tileCount == 0 || x < _minX || x > _maxX || z < _minZ || z > _maxZ)
+        {
+            return false;
+        }
+        return _tileMask.get(getMaskIndex(x, z));
     }
     
     /**
@@ -478,9 +645,10 @@ public class Room
     {
         HashSet<Vector2i> result = new HashSet<Vector2i>();
         
-        for(Vector2i tile : _tiles)
+        int width = _maxX - _minX + 1;
+        for(int i = _tileMask.nextSetBit(0); i >= 0; i = _tileMask.nextSetBit(i + 1))
         {
-            result.add(new Vector2i(tile));
+            result.add(new Vector2i(_minX + i % width, _minZ + i / width));
         }
         
         return result;
@@ -495,13 +663,15 @@ public class Room
     {
         HashSet<Vector2i> result = new HashSet<Vector2i>();
         
-        for(Vector2i tile : _tiles)
+        int width = _maxX - _minX + 1;
+        for(int i = _tileMask.nextSetBit(0); i >= 0; i = _tileMask.nextSetBit(i + 1))
         {
-            int tileValue = getMap().getTileValue(tile);
+            int x = _minX + i % width, z = _minZ + i / width;
+            int tileValue = _map.getTileValue(x, z);
             
             if(filter.evaluate(tileValue))
             {
-                result.add(new Vector2i(tile));
+                result.add(new Vector2i(x, z));
             }
         }
         
@@ -554,6 +724,15 @@ public class Room
         return _doors;
     }
     
+    /**
+     * Gibt die statische Geometrie des Raums zurck
+     * @return Liste der GameObjects der Mapgeometrie
+     */
+    public ArrayList<IGameObject> getGeometry()
+    {
+        return _geometry;
+    }
+    
     /**
      * Gibt die statischen Collider des Raums zurck
      * @return Liste der Collider des Raums
@@ -563,6 +742,15 @@ public class Room
         return _staticColliders;
     }
     
+    /**
+     * Gibt die verdeckenden Flchen des Raums zurck
+     * @return Liste der Vierecke (jeweils vier Ecken im World Space)
+     */
+    public ArrayList<Vector3[]> getOccluders()
+    {
+        return _occluders;
+    }
+    
     /**
      * Gibt die Collider der Entities im Raum zurck.
      * Nicht jede Entity hat einen Collider.
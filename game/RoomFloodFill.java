@@ -0,0 +1,300 @@
+package game;
+
+import maths.*;
+import java.util.*;
+
+/**
+ * Iterativer Scanline-Floodfill, der die Rume einer GridMap aus dem dichten Tile-Grid bestimmt.
+ * Ein Raum besteht aus allen von der Quell-Tile aus erreichbaren begehbaren Tiles und den angrenzenden Wnden.
+ * Tren gehren zu keinem Raum und werden stattdessen einmalig als Trposition registriert.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 14.01.2022
+ */
+public class RoomFloodFill
+{
+    // Mapdaten
+    private final int _width;
+    private final int _height;
+    private final int[] _values;
+    
+    // Ausgaben: Raum-ID jeder Tile und gefundene Trpositionen
+    private final int[] _roomGrid;
+    private final ArrayList<Vector2i> _doorLocations;
+    private final BitSet _foundDoors;
+    
+    // Markierung jeder Tile mit (Raum-ID + 1) der letzten Fllung, die sie erreicht hat
+    private final int[] _marks;
+    
+    // Stapel der noch zu fllenden Startpunkte (Tile-Indizes)
+    private int[] _stack;
+    private int _stackSize;
+    
+    // Zustand der aktuellen Fllung
+    private int _roomID;
+    private int _mark;
+    private int _minX;
+    private int _minZ;
+    private int _maxX;
+    private int _maxZ;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse RoomFloodFill
+     * @param tileLayer Ebene der Tile-Werte
+     * @param roomGrid Raum-ID jeder Tile (zeilenweise wie tileLayer, -1 = kein Raum), wird befllt
+     * @param doorLocations Liste, in die gefundene Trpositionen eingetragen werden
+     */
+    public RoomFloodFill(MapLayer tileLayer, int[] roomGrid, ArrayList<Vector2i> doorLocations)
+    {
+        _width = tileLayer.getWidth();
+        _height = tileLayer.getHeight();
+        _values = tileLayer.getValues();
+        _roomGrid = roomGrid;
+        _doorLocations = doorLocations;
+        _foundDoors = new BitSet(_values.length);
+        _marks = new int[_values.length];
+        _stack = new int[64];
+        _stackSize = 0;
+    }
+    
+    /**
+     * Fllt von einer Quell-Tile aus einen neuen Raum auf.
+     * Die Quell-Tile selbst wird immer aufgenommen und erweitert, auch wenn sie nicht begehbar ist.
+     * @param map GridMap, zu der der Raum gehrt
+     * @param sourceX x-Position der Quell-Tile
+     * @param sourceZ z-Position der Quell-Tile
+     * @param roomID ID, die der Raum in der Raumliste erhalten wird (aufsteigend je Fllung)
+     * @return entstandener Raum oder null, wenn die Quell-Tile auerhalb der Map oder bereits in einem Raum liegt
+     */
+    public Room fill(GridMap map, int sourceX, int sourceZ, int roomID)
+    {
+        if(sourceX < 0 || sourceZ < 0 || sourceX >= _width || sourceZ >= _height)
+        {
+            return null;
+        }
+        int source = sourceZ * _width + sourceX;
+        if(_roomGrid[source] != -1)
+        {
+            return null;
+        }
+        
+        _roomID = roomID;
+        _mark = roomID + 1;
+        _minX = sourceX;
+        _maxX = sourceX;
+        _minZ = sourceZ;
+        _maxZ = sourceZ;
+        _stackSize = 0;
+        
+        if(isFillable(source))
+        {
+            push(source);
+        }
+        else
+        {
+            // Nicht begehbare Quell-Tile wird wie ein einzelner begehbarer Abschnitt behandelt
+            markTile(source);
+            visitNeighbour(sourceX - 1, sourceZ);
+            visitNeighbour(sourceX + 1, sourceZ);
+            visitNeighbour(sourceX, sourceZ - 1);
+            visitNeighbour(sourceX, sourceZ + 1);
+        }
+        
+        while(_stackSize > 0)
+        {
+            int start = _stack[--_stackSize];
+            if(!isFillable(start))
+            {
+                continue;
+            }
+            
+            // Zusammenhngenden begehbaren Abschnitt der Zeile bestimmen und fllen
+            int z = start / _width;
+            int row = z * _width;
+            int left = start - row, right = left;
+            while(left > 0 && isFillable(row + left - 1))
+            {
+                left--;
+            }
+            while(right < _width - 1 && isFillable(row + right + 1))
+            {
+                right++;
+            }
+            for(int x = left; x <= right; x++)
+            {
+                markTile(row + x);
+            }
+            
+            // Begrenzungen links und rechts des Abschnitts
+            if(left > 0)
+            {
+                visitBoundary(row + left - 1);
+            }
+            if(right < _width - 1)
+            {
+                visitBoundary(row + right + 1);
+            }
+            
+            // Benachbarte Zeilen: je zusammenhngendem begehbarem Abschnitt einen Startpunkt vormerken
+            if(z > 0)
+            {
+                scanRow(row - _width, left, right);
+            }
+            if(z < _height - 1)
+            {
+                scanRow(row + _width, left, right);
+            }
+        }
+        
+        return createRoom(map);
+    }
+    
+    /**
+     * Prft eine Nachbarzeile eines gefllten Abschnitts
+     * @param row Index der ersten Tile der Zeile
+     * @param left linker inklusiver x-Wert des Abschnitts
+     * @param right rechter inklusiver x-Wert des Abschnitts
+     */
+    private void scanRow(int row, int left, int right)
+    {
+        boolean inSpan = false;
+        for(int x = left; x <= right; x++)
+        {
+            int index = row + x;
+            if(isFillable(index))
+            {
+                if(!inSpan)
+                {
+                    push(index);
+                    inSpan = true;
+                }
+            }
+            else
+            {
+                inSpan = false;
+                visitBoundary(index);
+            }
+        }
+    }
+    
+    /**
+     * Behandelt eine direkte Nachbar-Tile der nicht begehbaren Quell-Tile
+     * @param x x-Position der Nachbar-Tile
+     * @param z z-Position der Nachbar-Tile
+     */
+    private void visitNeighbour(int x, int z)
+    {
+        if(x < 0 || z < 0 || x >= _width || z >= _height)
+        {
+            return;
+        }
+        
+        int index = z * _width + x;
+        if(isFillable(index))
+        {
+            push(index);
+        }
+        else
+        {
+            visitBoundary(index);
+        }
+    }
+    
+    /**
+     * Behandelt eine nicht begehbare Tile am Rand des Raums: Wnde werden aufgenommen, Tren registriert
+     * @param index Index der Tile
+     */
+    private void visitBoundary(int index)
+    {
+        if(_marks[index] == _mark)
+        {
+            return;
+        }
+        
+        int value = _values[index];
+        if(Tile.isDoor(value))
+        {
+            // Jede Tr nur einmal registrieren, auch wenn sie von mehreren Seiten oder Rumen erreicht wird
+            if(!_foundDoors.get(index))
+            {
+                _foundDoors.set(index);
+                _doorLocations.add(new Vector2i(index % _width, index / _width));
+            }
+        }
+        else if(Tile.isSolid(value))
+        {
+            markTile(index);
+        }
+    }
+    
+    /**
+     * Prft, ob eine Tile in der aktuellen Fllung noch aufgenommen und erweitert werden kann
+     * @param index Index der Tile
+     * @return true, wenn die Tile begehbar und noch nicht gefllt ist
+     */
+    private boolean isFillable(int index)
+    {
+        int value = _values[index];
+        return _marks[index] != _mark && !Tile.isSolid(value) && !Tile.isDoor(value);
+    }
+    
+    /**
+     * Nimmt eine Tile in den aktuellen Raum auf
+     * @param index Index der Tile
+     */
+    private void markTile(int index)
+    {
+        _marks[index] = _mark;
+        
+        // Geteilte Wandtiles behalten den Raum mit der niedrigsten ID
+        if(_roomGrid[index] == -1)
+        {
+            _roomGrid[index] = _roomID;
+        }
+        
+        int x = index % _width, z = index / _width;
+        if(x < _minX) _minX = x;
+        if(x > _maxX) _maxX = x;
+        if(z < _minZ) _minZ = z;
+        if(z > _maxZ) _maxZ = z;
+    }
+    
+    /**
+     * Legt einen Startpunkt auf den Stapel
+     * @param index Index der Tile
+     */
+    private void push(int index)
+    {
+        if(_stackSize == _stack.length)
+        {
+            _stack = Arrays.copyOf(_stack, _stack.length * 2);
+        }
+        _stack[_stackSize++] = index;
+    }
+    
+    /**
+     * Erzeugt den Raum aus den Markierungen der aktuellen Fllung
+     * @param map GridMap, zu der der Raum gehrt
+     * @return Raum mit allen markierten Tiles
+     */
+    private Room createRoom(GridMap map)
+    {
+        int roomWidth = _maxX - _minX + 1;
+        BitSet mask = new BitSet(roomWidth * (_maxZ - _minZ + 1));
+        for(int z = _minZ; z <= _maxZ; z++)
+        {
+            int row = z * _width;
+            for(int x = _minX; x <= _maxX; x++)
+            {
+                if(_marks[row + x] == _mark)
+                {
+                    mask.set((z - _minZ) * roomWidth + (x - _minX));
+                }
+            }
+        }
+        
+        Room room = new Room(map);
+        room.setTiles(_minX, _minZ, _maxX, _maxZ, mask);
+        return room;
+    }
+}
@@ -0,0 +1,362 @@
+package game;
+
+import maths.*;
+import core.*;
+import util.*;
+import javafx.util.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Hlt nur die Rume einer GridMap im Speicher, die hchstens eine bestimmte Anzahl an Tren vom aktiven Raum entfernt sind.
+ * Steht der Spieler auf der Auslser-Tile einer Tr, werden auch die Rume um den Raum dahinter vorgeladen.
+ * Die Geometrie wird auf einem Hintergrund-Thread erzeugt und erst im Hauptthread freigegeben; entfernte Rume werden entladen.
+ * Entities werden beim ersten Laden eines Raums erzeugt und danach behalten, damit ihr Zustand erhalten bleibt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 15.01.2022
+ */
+public class RoomStreamer
+{
+    // Map und Quellen der Raumgeometrie
+    private GridMap _map;
+    private HashMap<Integer, ITileProvider> _tileProviders;
+    private HashMap<Integer, IColliderProvider> _colliderProviders;
+    
+    // Quellen der Entities
+    private MeshSet _entityMeshes;
+    private MeshSet _particleMeshes;
+    private SoundEngine _soundEngine;
+    
+    // Maximale Anzahl an Tren zwischen aktivem und geladenem Raum
+    private int _distance;
+    
+    // Zustand der Rume: geladen und fr den Hauptthread freigegeben, gewnscht, Entities erzeugt
+    private boolean[] _resident;
+    private boolean[] _desired;
+    private boolean[] _functionsPopulated;
+    
+    // Laufende Hintergrundauftrge je Raum-ID
+    private HashMap<Integer, Future<?>> _pending;
+    private ExecutorService _executor;
+    
+    // Raum-IDs, fr die die gewnschten Rume zuletzt bestimmt wurden
+    private ArrayList<Integer> _lastCenters;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse RoomStreamer
+     * @param map GridMap, deren Rume (mit Trverbindungen, aber ohne Geometrie) verwaltet werden
+     * @param tileProviders Hashmap der TileProvider. Der Key entspricht der Tile-ID.
+     * @param colliderProviders Hashmap der ColliderProvider. Der Key entspricht der Tile-ID.
+     * @param entityMeshes Register, aus dem die Entity-Meshes bezogen werden
+     * @param particleMeshes Register, aus dem die Particle-Meshes bezogen werden
+     * @param soundEngine Sound Engine
+     * @param distance maximale Anzahl an Tren zwischen aktivem und geladenem Raum
+     */
+    public RoomStreamer(GridMap map, HashMap<Integer, ITileProvider> tileProviders, HashMap<Integer, IColliderProvider> colliderProviders, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine, int distance)
+    {
+        if(map == null) throw new IllegalArgumentException("RoomStreamer map must not be null");
+        if(distance < 0) throw new IllegalArgumentException("RoomStreamer distance must not be negative, was " + distance);
+        
+        _map = map;
+        _tileProviders = tileProviders;
+        _colliderProviders = colliderProviders;
+        _entityMeshes = entityMeshes;
+        _particleMeshes = particleMeshes;
+        _soundEngine = soundEngine;
+        _distance = distance;
+        
+        int roomCount = map.rooms.size();
+        _resident = new boolean[roomCount];
+        _desired = new boolean[roomCount];
+        _functionsPopulated = new boolean[roomCount];
+        _pending = new HashMap<Integer, Future<?>>();
+        _lastCenters = new ArrayList<Integer>();
+        
+        // Einzelner Hintergrund-Thread, der nach kurzer Unttigkeit beendet wird
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 5L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable task)
+            {
+                // Daemon-Threads halten das Programm beim Beenden nicht auf
+                Thread thread = new Thread(task, "RoomStreamer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        _executor = executor;
+    }
+    
+    /**
+     * Ldt die Rume um den Startraum synchron, sodass der erste Frame vollstndig ist
+     * @param activeRoom ID des Startraums
+     */
+    public void start(int activeRoom)
+    {
+        _lastCenters.clear();
+        _lastCenters.add(activeRoom);
+        updateDesired(_lastCenters);
+        
+        for(int roomID = 0; roomID < _desired.length; roomID++)
+        {
+            if(_desired[roomID])
+            {
+                loadNow(roomID);
+            }
+        }
+    }
+    
+    /**
+     * Aktualisiert die geladenen Rume. Muss im Hauptthread aufgerufen werden.
+     * Der aktive Raum ist danach immer geladen; weitere Rume werden im Hintergrund nachgeladen oder entladen.
+     * @param activeRoom ID des aktiven Raums
+     * @param playerTile Position des Spielers im Grid
+     */
+    public void update(int activeRoom, Vector2i playerTile)
+    {
+        // Abgeschlossene Hintergrundauftrge bernehmen
+        Iterator<Map.Entry<Integer, Future<?>>> it = _pending.entrySet().iterator();
+        while(it.hasNext())
+        {
+            Map.Entry<Integer, Future<?>> entry = it.next();
+            if(entry.getValue().isDone())
+            {
+                it.remove();
+                complete(entry.getKey(), entry.getValue());
+            }
+        }
+        
+        // Aktiver Raum und Rume hinter ausgelsten Tren bilden die Zentren der gewnschten Rume
+        ArrayList<Integer> centers = new ArrayList<Integer>();
+        centers.add(activeRoom);
+        for(IDoorGameObject door : _map.rooms.get(activeRoom).getDoors())
+        {
+            if(door.isTriggeredBy(playerTile))
+            {
+                Integer otherRoom = getOtherRoomID(door, activeRoom);
+                if(otherRoom != null && !centers.contains(otherRoom))
+                {
+                    centers.add(otherRoom);
+                }
+            }
+        }
+        
+        if(!centers.equals(_lastCenters))
+        {
+            _lastCenters = centers;
+            updateDesired(centers);
+            
+            for(int roomID = 0; roomID < _desired.length; roomID++)
+            {
+                if(_desired[roomID] && !_resident[roomID] && !_pending.containsKey(roomID))
+                {
+                    loadAsync(roomID);
+                }
+                else if(!_desired[roomID] && _resident[roomID])
+                {
+                    unload(roomID);
+                }
+            }
+        }
+        
+        // Der aktive Raum muss sofort verfgbar sein
+        if(!_resident[activeRoom])
+        {
+            loadNow(activeRoom);
+        }
+    }
+    
+    /**
+     * Gibt zurck, ob die Geometrie eines Raums geladen und fr den Hauptthread freigegeben ist
+     * @param roomID ID des Raums
+     * @return true, wenn der Raum geladen ist, sonst false
+     */
+    public boolean isResident(int roomID)
+    {
+        return _resident[roomID];
+    }
+    
+    /**
+     * Gibt die Anzahl der aktuell geladenen Rume zurck
+     * @return Anzahl geladener Rume
+     */
+    public int getResidentCount()
+    {
+        int count = 0;
+        for(boolean resident : _resident)
+        {
+            if(resident)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Bricht ausstehende Hintergrundauftrge ab, z.B. wenn die Map verworfen wird
+     */
+    public void shutdown()
+    {
+        _executor.shutdownNow();
+        _pending.clear();
+    }
+    
+    /**
+     * Bestimmt per Breitensuche ber die Tren alle Rume, die hchstens _distance Tren von einem der Zentren entfernt sind
+     * @param centers IDs der Zentrumsrume
+     */
+    private void updateDesired(ArrayList<Integer> centers)
+    {
+        Arrays.fill(_desired, false);
+        int[] hops = new int[_desired.length];
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        for(int center : centers)
+        {
+            if(!_desired[center])
+            {
+                _desired[center] = true;
+                hops[center] = 0;
+                queue.add(center);
+            }
+        }
+        
+        while(!queue.isEmpty())
+        {
+            int roomID = queue.poll();
+            if(hops[roomID] >= _distance)
+            {
+                continue;
+            }
+            
+            for(IDoorGameObject door : _map.rooms.get(roomID).getDoors())
+            {
+                Integer otherRoom = getOtherRoomID(door, roomID);
+                if(otherRoom != null && !_desired[otherRoom])
+                {
+                    _desired[otherRoom] = true;
+                    hops[otherRoom] = hops[roomID] + 1;
+                    queue.add(otherRoom);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Ldt einen Raum sofort im aktuellen Thread bzw. wartet auf dessen laufenden Hintergrundauftrag
+     * @param roomID ID des Raums
+     */
+    private void loadNow(int roomID)
+    {
+        Future<?> pending = _pending.remove(roomID);
+        if(pending != null)
+        {
+            try
+            {
+                pending.get();
+                activate(roomID);
+                return;
+            }
+            catch(InterruptedException | ExecutionException e)
+            {
+                // Fehlgeschlagene Auftrge werden synchron wiederholt
+                System.out.println("[Error] Streaming room " + roomID + " failed: " + e.getMessage());
+                _map.rooms.get(roomID).unloadGeometry();
+            }
+        }
+        
+        _map.rooms.get(roomID).populateGeometry(_tileProviders, _colliderProviders, _map.getTileLayer());
+        activate(roomID);
+    }
+    
+    /**
+     * Beauftragt den Hintergrund-Thread, die Geometrie eines Raums zu erzeugen.
+     * Solange der Auftrag luft, greift der Hauptthread nicht auf die Geometrie des Raums zu.
+     * @param roomID ID des Raums
+     */
+    private void loadAsync(int roomID)
+    {
+        final Room room = _map.rooms.get(roomID);
+        _pending.put(roomID, _executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                room.populateGeometry(_tileProviders, _colliderProviders, _map.getTileLayer());
+            }
+        }));
+    }
+    
+    /**
+     * bernimmt einen abgeschlossenen Hintergrundauftrag
+     * @param roomID ID des Raums
+     * @param future abgeschlossener Auftrag
+     */
+    private void complete(int roomID, Future<?> future)
+    {
+        try
+        {
+            future.get();
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            System.out.println("[Error] Streaming room " + roomID + " failed: " + e.getMessage());
+            _map.rooms.get(roomID).unloadGeometry();
+            return;
+        }
+        
+        // Whrend des Ladens nicht mehr bentigte Rume sofort wieder entladen
+        if(_desired[roomID])
+        {
+            activate(roomID);
+        }
+        else
+        {
+            _map.rooms.get(roomID).unloadGeometry();
+        }
+    }
+    
+    /**
+     * Gibt einen Raum mit erzeugter Geometrie frei und erzeugt beim ersten Laden seine Entities
+     * @param roomID ID des Raums
+     */
+    private void activate(int roomID)
+    {
+        if(!_functionsPopulated[roomID])
+        {
+            _map.rooms.get(roomID).populateFunctions(_entityMeshes, _particleMeshes, _soundEngine, _map.getFunctionLayer());
+            _functionsPopulated[roomID] = true;
+        }
+        _resident[roomID] = true;
+    }
+    
+    /**
+     * Entldt die Geometrie eines Raums
+     * @param roomID ID des Raums
+     */
+    private void unload(int roomID)
+    {
+        _map.rooms.get(roomID).unloadGeometry();
+        _resident[roomID] = false;
+    }
+    
+    /**
+     * Gibt die ID des Raums am anderen Ende einer Tr zurck
+     * @param door Tr
+     * @param roomID ID des Raums auf dieser Seite der Tr
+     * @return ID des anderen Raums oder null, wenn die Tr nicht mit dem gegebenen Raum verbunden ist
+     */
+    private static Integer getOtherRoomID(IDoorGameObject door, int roomID)
+    {
+        Pair<Integer, Integer> doorConnection = door.getConnectedRoomIDs();
+        if(doorConnection.getKey() != null && roomID == doorConnection.getKey())
+        {
+            return doorConnection.getValue();
+        }
+        else if(doorConnection.getValue() != null && roomID == doorConnection.getValue())
+        {
+            return doorConnection.getKey();
+        }
+        return null;
+    }
+}
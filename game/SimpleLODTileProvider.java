@@ -53,8 +53,8 @@ public class SimpleLODTileProvider implements ITileProvider
     }
     
     /**
-     * Gibt eine neue Instanz des Meshs der Vorlage zurck
-     * @return neue Instanz des Meshs der Vorlage
+     * Gibt die LOD-Stufen (Distanz-Mesh-Paare) der Vorlage zurck
+     * @return LOD-Stufen der Vorlage
      */
     public ArrayList<Pair<Double, Mesh>> getLODLevels()
     {
@@ -52,12 +52,12 @@ public class SimpleTileProvider implements ITileProvider
     }
     
     /**
-     * Gibt eine neue Instanz des Meshs des Providers zurck
-     * @return neue Instanz des Meshs des Providers
+     * Gibt das geteilte Mesh des Providers zurck
+     * @return Mesh des Providers
      */
     public Mesh getMesh()
     {
-        return new Mesh(_mesh);
+        return _mesh;
     }
     
     /**
@@ -32,12 +32,12 @@ public class TileEnvironment
     
     /**
      * Konstruktor fr Objekte der Klasse TileEnvironment auf Basis einer Map und einer Position in dieser Map
-     * @param tileValues Tile-Werte der Map (Zeilen mit jeweils gleicher Lnge und Werten von nicht null)
+     * @param tileValues Tile-Werte der Map
      * @param func Wert der Funktionstile an der Position der Tile
      * @param x x-Position des Zentrums (Muss innerhalb der Karte liegen)
      * @param y y-Position des Zentrums (Muss innerhalb der Karte liegen)
      */
-    public TileEnvironment(ArrayList<ArrayList<Integer>> tileValues, int func, int x, int z)
+    public TileEnvironment(MapLayer tileValues, int func, int x, int z)
     {
         if(tileValues == null) {
             throw new IllegalArgumentException("The value of tileValues was null when loading the TileEnvironment");
@@ -45,45 +45,33 @@ public class TileEnvironment
         
         this.func = func;
         
-        int height = tileValues.size();
-        int width;
-        
-        ArrayList<Integer> firstRow = tileValues.get(0);
-        if(firstRow == null)
-        {
-            throw new IllegalArgumentException("Row was null, could not read width");
-        }
-        else
-        {
-            width = firstRow.size();
-        }
-        
         // x- und z-Positionsberprfung
-        if(x < 0 || x >= width || z < 0 || z >= height)
+        if(!tileValues.contains(x, z))
         {
             throw new IllegalArgumentException("TileEnvironment position out of bounds");
         }
         
         // berprft jede umgebende Position darauf, ob sie in der Map enthalten sind, und setzt sie dementsprechend
-        px      = (x < width - 1)                   ? tileValues.get( z ).get(x+1) : -1;
-        pxpz    = (x < width - 1 && z < height - 1) ? tileValues.get(z+1).get(x+1) : -1;
-        pz      = (z < height - 1)                  ? tileValues.get(z+1).get( x ) : -1;
-        nxpz    = (x > 0 && z < height - 1)         ? tileValues.get(z+1).get(x-1) : -1;
-        nx      = (x > 0)                           ? tileValues.get( z ).get(x-1) : -1;
-        nxnz    = (x > 0 && z > 0)                  ? tileValues.get(z-1).get(x-1) : -1;
-        nz      = (z > 0)                           ? tileValues.get(z-1).get( x ) : -1;
-        pxnz    = (x < width - 1 && z > 0)          ? tileValues.get(z-1).get(x+1) : -1;
+        // (Positionen auerhalb der Map liefern Tile.NONE)
+        px      = tileValues.get(x+1, z );
+        pxpz    = tileValues.get(x+1,z+1);
+        pz      = tileValues.get( x ,z+1);
+        nxpz    = tileValues.get(x-1,z+1);
+        nx      = tileValues.get(x-1, z );
+        nxnz    = tileValues.get(x-1,z-1);
+        nz      = tileValues.get( x ,z-1);
+        pxnz    = tileValues.get(x+1,z-1);
     }
     
     /**
      * Konstruktor fr Objekte der Klasse TileEnvironment auf Basis einer Map, eines einschrnkenden Raumes und einer Position
-     * @param tileValues Tile-Werte der Map (Zeilen mit jeweils gleicher Lnge und Werten von nicht null)
+     * @param tileValues Tile-Werte der Map
      * @param func Wert der Funktionstile an der Position der Tile
      * @param room gebietsbeschrnkender Raum
      * @param x x-Position des Zentrums (Muss innerhalb des Raumes liegen)
      * @param y y-Position des Zentrums (Muss innerhalb des Raumes liegen)
      */
-    public TileEnvironment(ArrayList<ArrayList<Integer>> tileValues, int func, Room room, int x, int z)
+    public TileEnvironment(MapLayer tileValues, int func, Room room, int x, int z)
     {
         if(tileValues == null) {
             throw new IllegalArgumentException("The value of tileValues was null when loading the TileEnvironment");
@@ -96,34 +84,22 @@ public class TileEnvironment
         this.func = func;
         this.room = room;
         
-        int height = tileValues.size();
-        int width;
-        
-        ArrayList<Integer> firstRow = tileValues.get(0);
-        if(firstRow == null)
-        {
-            throw new IllegalArgumentException("Row was null, could not read width");
-        }
-        else
-        {
-            width = firstRow.size();
-        }
-        
         // x- und z-Positionsberprfung
-        if(x < 0 || x >= width || z < 0 || z >= height)
+        if(!tileValues.contains(x, z))
         {
             throw new IllegalArgumentException("TileEnvironment position out of bounds");
         }
         
         // berprft jede umgebende Position darauf, ob sie in der Map enthalten sind, und setzt sie dementsprechend
-        px      = (room.contains(x+1, z ) && x < width - 1)                   ? tileValues.get( z ).get(x+1) : -1;
-        pxpz    = (room.contains(x+1,z+1) && x < width - 1 && z < height - 1) ? tileValues.get(z+1).get(x+1) : -1;
-        pz      = (room.contains( x ,z+1) && z < height - 1)                  ? tileValues.get(z+1).get( x ) : -1;
-        nxpz    = (room.contains(x-1,z+1) && x > 0 && z < height - 1)         ? tileValues.get(z+1).get(x-1) : -1;
-        nx      = (room.contains(x-1, z ) && x > 0)                           ? tileValues.get( z ).get(x-1) : -1;
-        nxnz    = (room.contains(x-1,z-1) && x > 0 && z > 0)                  ? tileValues.get(z-1).get(x-1) : -1;
-        nz      = (room.contains( x ,z-1) && z > 0)                           ? tileValues.get(z-1).get( x ) : -1;
-        pxnz    = (room.contains(x+1,z-1) && x < width - 1 && z > 0)          ? tileValues.get(z-1).get(x+1) : -1;
+        // (Positionen auerhalb der Map liefern Tile.NONE)
+        px      = room.contains(x+1, z ) ? tileValues.get(x+1, z ) : -1;
+        pxpz    = room.contains(x+1,z+1) ? tileValues.get(x+1,z+1) : -1;
+        pz      = room.contains( x ,z+1) ? tileValues.get( x ,z+1) : -1;
+        nxpz    = room.contains(x-1,z+1) ? tileValues.get(x-1,z+1) : -1;
+        nx      = room.contains(x-1, z ) ? tileValues.get(x-1, z ) : -1;
+        nxnz    = room.contains(x-1,z-1) ? tileValues.get(x-1,z-1) : -1;
+        nz      = room.contains( x ,z-1) ? tileValues.get( x ,z-1) : -1;
+        pxnz    = room.contains(x+1,z-1) ? tileValues.get(x+1,z-1) : -1;
     }
 
     
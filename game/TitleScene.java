@@ -40,7 +40,7 @@ public class TitleScene extends Scene
         _audioVisualizer = new BarAudioVisualizer(backgroundMusic, new Vector3(), new Vector3(), new Vector3(1.0, 0.65, 1.0), TurtleColor.MAGENTA);
         backgroundMusic.setAudioSpectrumListener(_audioVisualizer);
         
-        HashMap<String, Mesh> titleScreenMeshes = _state.resourceManager.loadTitleScreenMeshes();
+        MeshSet titleScreenMeshes = _state.resourceManager.getMeshSet(ResourceManager.TITLE_SCREEN_MESHES);
         
         _title = new StaticGameObject(titleScreenMeshes.get("title"), TurtleColor.CYAN, new Vector3 (0.0, 5, -14), new Vector3(), new Vector3(1.0, 1.0, 1.0));
         _mauern = new StaticGameObject(titleScreenMeshes.get("mauern"), TurtleColor.CYAN, new Vector3 (-1.48, 0.34, -2.5), new Vector3(), new Vector3(1.0, 1.0, 1.0));
@@ -72,9 +72,11 @@ public class TitleScene extends Scene
     public void draw(double deltaTime, double runTime)
     {
         _state.renderer.clear(10, 10, 10);
+        _state.renderer.beginFrame(_camera);
         if(_audioVisualizer != null) _audioVisualizer.draw(_state.renderer, _camera);
         _title.draw(_state.renderer, _camera);
         _mauern.draw(_state.renderer, _camera);
+        _state.renderer.endFrame();
         
         //draw Start Button
         if (drawButton("Start", new Vector2(220.9,372), TurtleColor.WHITE)) 
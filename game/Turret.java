@@ -4,6 +4,7 @@ import maths.*;
 import core.*;
 import physics.*;
 import java.util.*;
+import util.*;
 
 /**
  * Geschtzturm, der sich zum Spieler ausrichtet und ihn beschiet
@@ -20,7 +21,7 @@ public class Turret extends Enemy implements ILivingEntity, ICollisionListener,
     private SoundEngine _soundEngine;
     
     // Partikel
-    private HashMap<String, Mesh> _particleMeshes;
+    private MeshSet _particleMeshes;
     
     // Functionality
     private boolean _isActive;
@@ -71,7 +72,7 @@ public class Turret extends Enemy implements ILivingEntity, ICollisionListener,
      * @param entityMeshes Register der EntityMeshes, aus dem die Meshes bezogen werden
      * @param soundEngine Sound Engine, aus der die Sounds der Entity bezogen werden
      */
-    public Turret(Vector3 position, boolean active, Room room, HashMap<String, Mesh> entityMeshes, HashMap<String, Mesh> particleMeshes, SoundEngine soundEngine)
+    public Turret(Vector3 position, boolean active, Room room, MeshSet entityMeshes, MeshSet particleMeshes, SoundEngine soundEngine)
     {
         _room = room;
         
@@ -364,6 +365,15 @@ public class Turret extends Enemy implements ILivingEntity, ICollisionListener,
         return _collider;
     }
     
+    /**
+     * @see IGameObject#getBounds()
+     */
+    public BoundingSphere getBounds()
+    {
+        // Das Mndungsfeuer reicht ber das Mesh hinaus, das Mesh selbst wird beim Zeichnen verworfen
+        return null;
+    }
+    
     /**
      * @see ILivingEntity#isAlive()
      */
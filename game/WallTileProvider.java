@@ -10,13 +10,18 @@ import java.util.*;
  * @author Lasse Huber-Saffer
  * @version 01.01.2021
  */
-public class WallTileProvider implements ITileProvider
+public class WallTileProvider implements ITileProvider, IOccluderProvider
 {
     private Mesh _wallMesh;
     private TurtleColor _wallColor;
     private Mesh _pillarMesh;
     private TurtleColor _pillarColor;
     
+    // Ausdehnung der verdeckenden Flche einer Wand (halbe Breite und Hhenbereich)
+    private double _occluderHalfWidth;
+    private double _occluderMinY;
+    private double _occluderMaxY;
+    
     /**
      * Konstruktor fr Objekte der Klasse WallTileProvider
      * @param wallMesh Mesh, das fr die Vorlage verwendet werden soll (Eine Seite auf der X-Achse, der Mittelpunkt auf der Y-Achse)
@@ -40,6 +45,26 @@ public class WallTileProvider implements ITileProvider
         _wallColor = wallColor;
         _pillarMesh = pillarMesh;
         _pillarColor = pillarColor;
+        
+        // Verdeckende Flche aus der Ausdehnung des Wandmeshs ableiten (liegt auf der X-Achse, symmetrisch zur Y-Achse)
+        _occluderHalfWidth = 0.0;
+        _occluderMinY = 0.0;
+        _occluderMaxY = 0.0;
+        if(wallMesh != null && wallMesh.getVertexCount() > 0)
+        {
+            double[] positions = wallMesh.getPositions();
+            double minX = positions[0], maxX = positions[0];
+            _occluderMinY = positions[1];
+            _occluderMaxY = positions[1];
+            for(int i = 0; i < positions.length; i += 3)
+            {
+                minX = Math.min(minX, positions[i]);
+                maxX = Math.max(maxX, positions[i]);
+                _occluderMinY = Math.min(_occluderMinY, positions[i + 1]);
+                _occluderMaxY = Math.max(_occluderMaxY, positions[i + 1]);
+            }
+            _occluderHalfWidth = Math.max(Math.min(-minX, maxX), 0.0);
+        }
     }
     
     /**
@@ -147,6 +172,74 @@ public class WallTileProvider implements ITileProvider
         return result;
     }
     
+    /**
+     * Gibt die verdeckende Flche einer Mauer in eine bestimmte Richtung zurck
+     * @param variant Seite/Richtung der Mauer. px: 0, pz: 1, nx: 2, nz: 3 [0,3]
+     * @param x x-Position der Tile
+     * @param z z-Position der Tile
+     * @return Viereck der Mauer im World Space
+     */
+    public Vector3[] getWallOccluder(int variant, int x, int z)
+    {
+        int xOffFac = 0, zOffFac = 0;
+        if(variant == 0) xOffFac = 1;
+        else if(variant == 1) zOffFac = 1;
+        else if(variant == 2) xOffFac = -1;
+        else if(variant == 3) zOffFac = -1;
+        
+        double centerX = (x + (1 + xOffFac) * 0.5) * MapHandler.TILE_WIDTH;
+        double centerZ = (MapHandler.MIRROR_Z_AXIS ? -1 : 1) * (z + (1 + zOffFac) * 0.5) * MapHandler.TILE_WIDTH;
+        
+        // Mauern auf der X-Seite sind um 90 gedreht und liegen daher entlang der Z-Achse
+        double dx = (variant == 0 || variant == 2) ? 0.0 : _occluderHalfWidth;
+        double dz = (variant == 0 || variant == 2) ? _occluderHalfWidth : 0.0;
+        
+        return new Vector3[] {
+            new Vector3(centerX - dx, _occluderMinY, centerZ - dz),
+            new Vector3(centerX + dx, _occluderMinY, centerZ + dz),
+            new Vector3(centerX + dx, _occluderMaxY, centerZ + dz),
+            new Vector3(centerX - dx, _occluderMaxY, centerZ - dz)
+        };
+    }
+    
+    /**
+     * @see IOccluderProvider#getOccluders()
+     */
+    public ArrayList<Vector3[]> getOccluders(TileEnvironment env, int x, int z)
+    {
+        // Environment muss bei diesem Typ != null sein (siehe ITileProvider.requiresEnvironment())
+        if(env == null)
+        {
+            throw new IllegalArgumentException("TileEnvironment was null when providing wall occluders");
+        }
+        
+        ArrayList<Vector3[]> result = new ArrayList<Vector3[]>();
+        if(_occluderHalfWidth <= 0.0 || _occluderMaxY <= _occluderMinY)
+        {
+            return result;
+        }
+        
+        // Dieselben Seiten wie in getTileObjects()
+        if(!Tile.isSolidOrNone(env.px))
+        {
+            result.add(getWallOccluder(0, x, z));
+        }
+        if(!Tile.isSolidOrNone(env.pz))
+        {
+            result.add(getWallOccluder(1, x, z));
+        }
+        if(!Tile.isSolidOrNone(env.nx))
+        {
+            result.add(getWallOccluder(2, x, z));
+        }
+        if(!Tile.isSolidOrNone(env.nz))
+        {
+            result.add(getWallOccluder(3, x, z));
+        }
+        
+        return result;
+    }
+    
     /**
      * @see ITileProvider#requiresEnvironment()
      */
@@ -156,21 +249,21 @@ public class WallTileProvider implements ITileProvider
     }
     
     /**
-     * Gibt eine neue Instanz des Wandmeshs der Vorlage zurck
-     * @return neue Instanz des Wandmeshs der Vorlage
+     * Gibt das geteilte Wandmesh der Vorlage zurck
+     * @return Wandmesh der Vorlage
      */
     public Mesh getWallMesh()
     {
-        return new Mesh(_wallMesh);
+        return _wallMesh;
     }
     
     /**
-     * Gibt eine neue Instanz des Sulenmeshs der Vorlage zurck
-     * @return neue Instanz des Sulenmeshs der Vorlage
+     * Gibt das geteilte Sulenmesh der Vorlage zurck
+     * @return Sulenmesh der Vorlage
      */
     public Mesh getPillarMesh()
     {
-        return new Mesh(_pillarMesh);
+        return _pillarMesh;
     }
     
     /**
@@ -0,0 +1,183 @@
+package maths;
+
+
+/**
+ * Unvernderliche Hllkugel, die ein dreidimensionales Objekt vollstndig umschliet
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 09.01.2022
+ */
+public class BoundingSphere
+{
+    // Mittelpunkt der Kugel
+    private final double _x;
+    private final double _y;
+    private final double _z;
+    // Radius der Kugel
+    private final double _radius;
+
+    /**
+     * Konstruktor mit Mittelpunkt und Radius
+     * @param x x-Komponente des Mittelpunkts
+     * @param y y-Komponente des Mittelpunkts
+     * @param z z-Komponente des Mittelpunkts
+     * @param radius Radius der Kugel (nicht negativ)
+     */
+    public BoundingSphere(double x, double y, double z, double radius)
+    {
+        if(radius < 0.0)
+        {
+            throw new IllegalArgumentException("bounding sphere radius must not be negative, was " + radius);
+        }
+        
+        _x = x;
+        _y = y;
+        _z = z;
+        _radius = radius;
+    }
+    
+    /**
+     * Konstruktor mit Mittelpunkt als Vektor und Radius
+     * @param center Mittelpunkt der Kugel
+     * @param radius Radius der Kugel (nicht negativ)
+     */
+    public BoundingSphere(Vector3 center, double radius)
+    {
+        this(center.getX(), center.getY(), center.getZ(), radius);
+    }
+    
+    /**
+     * Berechnet eine Hllkugel um Punkte, die als (x, y, z)-Tripel hintereinander in einem Array liegen.
+     * Der Mittelpunkt ist der Mittelpunkt der achsenparallelen Bounding Box, der Radius der Abstand zum entferntesten Punkt.
+     * @param positions Koordinaten der Punkte
+     * @return Hllkugel der Punkte, bei leerem Array eine Kugel mit Radius 0 im Ursprung
+     */
+    public static BoundingSphere fromPositions(double[] positions)
+    {
+        if(positions.length < 3)
+        {
+            return new BoundingSphere(0.0, 0.0, 0.0, 0.0);
+        }
+        
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i + 2 < positions.length; i += 3)
+        {
+            minX = Math.min(minX, positions[i]);
+            minY = Math.min(minY, positions[i + 1]);
+            minZ = Math.min(minZ, positions[i + 2]);
+            maxX = Math.max(maxX, positions[i]);
+            maxY = Math.max(maxY, positions[i + 1]);
+            maxZ = Math.max(maxZ, positions[i + 2]);
+        }
+        
+        double x = (minX + maxX) * 0.5;
+        double y = (minY + maxY) * 0.5;
+        double z = (minZ + maxZ) * 0.5;
+        
+        double maxDistanceSquared = 0.0;
+        for(int i = 0; i + 2 < positions.length; i += 3)
+        {
+            double dx = positions[i] - x;
+            double dy = positions[i + 1] - y;
+            double dz = positions[i + 2] - z;
+            maxDistanceSquared = Math.max(maxDistanceSquared, dx * dx + dy * dy + dz * dz);
+        }
+        
+        return new BoundingSphere(x, y, z, Math.sqrt(maxDistanceSquared));
+    }
+    
+    /**
+     * Gibt die kleinste Kugel zurck, die beide gegebenen Kugeln umschliet
+     * @param a erste Kugel (darf null sein)
+     * @param b zweite Kugel (darf null sein)
+     * @return umschlieende Kugel, oder null, wenn beide Kugeln null sind
+     */
+    public static BoundingSphere union(BoundingSphere a, BoundingSphere b)
+    {
+        if(a == null) return b;
+        if(b == null) return a;
+        
+        double dx = b._x - a._x;
+        double dy = b._y - a._y;
+        double dz = b._z - a._z;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        
+        // Eine Kugel liegt vollstndig in der anderen
+        if(distance + b._radius <= a._radius) return a;
+        if(distance + a._radius <= b._radius) return b;
+        
+        double radius = (distance + a._radius + b._radius) * 0.5;
+        double t = (radius - a._radius) / distance;
+        return new BoundingSphere(a._x + dx * t, a._y + dy * t, a._z + dz * t, radius);
+    }
+    
+    /**
+     * Transformiert die Kugel mit einer affinen Transformationsmatrix.
+     * Bei ungleichmiger Skalierung wird der Radius mit dem grten Skalierungsfaktor skaliert, die Kugel bleibt also umschlieend.
+     * @param transform Transformationsmatrix (z.B. Modelmatrix eines Objekts)
+     * @return transformierte Kugel
+     */
+    public BoundingSphere transform(Matrix4 transform)
+    {
+        double x = transform.get(0, 0) * _x + transform.get(1, 0) * _y + transform.get(2, 0) * _z + transform.get(3, 0);
+        double y = transform.get(0, 1) * _x + transform.get(1, 1) * _y + transform.get(2, 1) * _z + transform.get(3, 1);
+        double z = transform.get(0, 2) * _x + transform.get(1, 2) * _y + transform.get(2, 2) * _z + transform.get(3, 2);
+        
+        double maxScaleSquared = 0.0;
+        for(int column = 0; column < 3; column++)
+        {
+            double cx = transform.get(column, 0);
+            double cy = transform.get(column, 1);
+            double cz = transform.get(column, 2);
+            maxScaleSquared = Math.max(maxScaleSquared, cx * cx + cy * cy + cz * cz);
+        }
+        
+        return new BoundingSphere(x, y, z, _radius * Math.sqrt(maxScaleSquared));
+    }
+    
+    /**
+     * Gibt den Mittelpunkt zurck
+     * @return neuer Vektor mit dem Mittelpunkt
+     */
+    public Vector3 getCenter()
+    {
+        return new Vector3(_x, _y, _z);
+    }
+    
+    /**
+     * Gibt die x-Komponente des Mittelpunkts zurck
+     * @return x-Komponente
+     */
+    public double getX()
+    {
+        return _x;
+    }
+    
+    /**
+     * Gibt die y-Komponente des Mittelpunkts zurck
+     * @return y-Komponente
+     */
+    public double getY()
+    {
+        return _y;
+    }
+    
+    /**
+     * Gibt die z-Komponente des Mittelpunkts zurck
+     * @return z-Komponente
+     */
+    public double getZ()
+    {
+        return _z;
+    }
+    
+    /**
+     * Gibt den Radius zurck
+     * @return Radius
+     */
+    public double getRadius()
+    {
+        return _radius;
+    }
+}
@@ -0,0 +1,155 @@
+package maths;
+
+
+/**
+ * Sichtvolumen einer Kamera, beschrieben durch sechs Ebenen (links, rechts, unten, oben, near, far).
+ * Die Ebenen werden aus einer View-Projection-Matrix der Engine gewonnen, bei der sichtbare Punkte im Clipspace
+ * ein negatives w haben. Jede Ebene wird als (a, b, c, d) mit normiertem Normalenvektor gespeichert,
+ * ein Punkt p liegt auf der Innenseite, wenn a * p.x + b * p.y + c * p.z + d >= 0 gilt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 09.01.2022
+ */
+public class Frustum
+{
+    public static final int PLANE_COUNT = 6;
+    
+    // Ebenenkoeffizienten, je vier Eintrge (a, b, c, d) pro Ebene
+    private final double[] _planes;
+
+    /**
+     * Berechnet das Frustum aus einer View-Projection-Matrix und den Abstnden der Clipping-Ebenen
+     * @param viewProjection Transformationsmatrix aus dem Worldspace in den Clipspace
+     * @param near Abstand der Near-Clipping-Ebene
+     * @param far Abstand der Far-Clipping-Ebene
+     */
+    public Frustum(Matrix4 viewProjection, double near, double far)
+    {
+        this(viewProjection, near, far, -1.0, -1.0, 1.0, 1.0);
+    }
+    
+    /**
+     * Berechnet ein Frustum, dessen Seitenebenen auf ein Rechteck in Normalized Device Coordinates eingeengt sind.
+     * Wird fr Portal Culling genutzt, um nur durch eine Trffnung sichtbare Objekte zu zeichnen.
+     * @param viewProjection Transformationsmatrix aus dem Worldspace in den Clipspace
+     * @param near Abstand der Near-Clipping-Ebene
+     * @param far Abstand der Far-Clipping-Ebene
+     * @param minX linke Kante des Rechtecks [-1, 1]
+     * @param minY untere Kante des Rechtecks [-1, 1]
+     * @param maxX rechte Kante des Rechtecks [-1, 1]
+     * @param maxY obere Kante des Rechtecks [-1, 1]
+     */
+    public Frustum(Matrix4 viewProjection, double near, double far, double minX, double minY, double maxX, double maxY)
+    {
+        _planes = new double[PLANE_COUNT * 4];
+        
+        // Zeilen der Matrix: x = r0 * p, y = r1 * p, w = r3 * p. Die Sichtdistanz ist -w.
+        double[] r0 = row(viewProjection, 0);
+        double[] r1 = row(viewProjection, 1);
+        double[] r3 = row(viewProjection, 3);
+        
+        for(int i = 0; i < 4; i++)
+        {
+            // Da w negativ ist, gilt x / w >= minX genau dann, wenn minX * w - x >= 0 (analog fr die brigen Kanten)
+            _planes[i] = minX * r3[i] - r0[i];
+            _planes[4 + i] = r0[i] - maxX * r3[i];
+            _planes[8 + i] = minY * r3[i] - r1[i];
+            _planes[12 + i] = r1[i] - maxY * r3[i];
+            // Near: -w - near >= 0, far: w + far >= 0
+            _planes[16 + i] = -r3[i];
+            _planes[20 + i] = r3[i];
+        }
+        _planes[19] -= near;
+        _planes[23] += far;
+        
+        for(int plane = 0; plane < PLANE_COUNT; plane++)
+        {
+            normalizePlane(_planes, plane * 4);
+        }
+    }
+    
+    /**
+     * Konstruiert ein Frustum aus bereits berechneten, normierten Ebenenkoeffizienten
+     * @param planes Ebenenkoeffizienten, je vier Eintrge (a, b, c, d) pro Ebene
+     */
+    public Frustum(double[] planes)
+    {
+        if(planes == null || planes.length % 4 != 0)
+        {
+            throw new IllegalArgumentException("frustum plane array length must be a multiple of 4");
+        }
+        
+        _planes = planes.clone();
+    }
+    
+    /**
+     * Prft, ob eine Kugel zumindest teilweise im Frustum liegt
+     * @param x x-Komponente des Mittelpunkts
+     * @param y y-Komponente des Mittelpunkts
+     * @param z z-Komponente des Mittelpunkts
+     * @param radius Radius der Kugel
+     * @return false, wenn die Kugel vollstndig auerhalb einer der Ebenen liegt, ansonsten true
+     */
+    public boolean intersectsSphere(double x, double y, double z, double radius)
+    {
+        for(int i = 0; i < _planes.length; i += 4)
+        {
+            if(_planes[i] * x + _planes[i + 1] * y + _planes[i + 2] * z + _planes[i + 3] < -radius)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Prft, ob eine Hllkugel zumindest teilweise im Frustum liegt
+     * @param sphere Hllkugel
+     * @return false, wenn die Kugel vollstndig auerhalb einer der Ebenen liegt, ansonsten true
+     */
+    public boolean intersects(BoundingSphere sphere)
+    {
+        return intersectsSphere(sphere.getX(), sphere.getY(), sphere.getZ(), sphere.getRadius());
+    }
+    
+    /**
+     * Gibt die Anzahl der Ebenen zurck
+     * @return Anzahl der Ebenen
+     */
+    public int getPlaneCount()
+    {
+        return _planes.length / 4;
+    }
+    
+    /**
+     * Gibt eine Kopie der Ebenenkoeffizienten zurck
+     * @return Ebenenkoeffizienten, je vier Eintrge (a, b, c, d) pro Ebene
+     */
+    public double[] getPlanes()
+    {
+        return _planes.clone();
+    }
+    
+    /**
+     * Gibt eine Zeile der Matrix als Array zurck
+     */
+    private static double[] row(Matrix4 matrix, int row)
+    {
+        return new double[] { matrix.get(0, row), matrix.get(1, row), matrix.get(2, row), matrix.get(3, row) };
+    }
+    
+    /**
+     * Normiert den Normalenvektor einer Ebene und skaliert den Abstand entsprechend
+     */
+    private static void normalizePlane(double[] planes, int offset)
+    {
+        double length = Math.sqrt(planes[offset] * planes[offset] + planes[offset + 1] * planes[offset + 1] + planes[offset + 2] * planes[offset + 2]);
+        if(length > 0.0)
+        {
+            planes[offset] /= length;
+            planes[offset + 1] /= length;
+            planes[offset + 2] /= length;
+            planes[offset + 3] /= length;
+        }
+    }
+}
@@ -147,7 +147,7 @@ public class AStarPathSolver
         }
         
         // Tile-Wert von der Map erhalten
-        int tileValue = room.getMap().getTileValue(tile);
+        int tileValue = room.getMap().getTileValue(tile.getX(), tile.getY());
         
         return !Tile.isSolidOrNone(tileValue) && !Tile.isSemiSolid(tileValue);
     }
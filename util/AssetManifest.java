@@ -0,0 +1,232 @@
+package util;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Deklaratives Verzeichnis aller Assets, eingelesen aus einer semikolon-getrennten Manifestdatei.
+ * Jede Zeile beschreibt ein Mesh, eine Soundquelle oder eine Soundgruppe, '#' leitet Kommentare ein.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 12.01.2022
+ */
+public class AssetManifest
+{
+    // Platzhalter im Map-Feld
+    private static final String ALL_MAPS = "*";
+    private static final String NO_MAPS = "-";
+    
+    // Key -> Dateipfad
+    private LinkedHashMap<String, String> _meshPaths;
+    private LinkedHashMap<String, String> _soundPaths;
+    // Set-Name -> Mesh-Keys
+    private HashMap<String, ArrayList<String>> _meshSets;
+    // Gruppen-Key -> Quellschlssel
+    private LinkedHashMap<String, String[]> _soundGroups;
+    // Key -> Maps, die das Asset verwenden (null = alle Maps)
+    private HashMap<String, HashSet<String>> _meshMaps;
+    private HashMap<String, HashSet<String>> _soundMaps;
+    
+    /**
+     * Liest ein Manifest aus einer Datei
+     * @param filePath Pfad der Manifestdatei
+     */
+    public AssetManifest(String filePath)
+    {
+        _meshPaths = new LinkedHashMap<String, String>();
+        _soundPaths = new LinkedHashMap<String, String>();
+        _meshSets = new HashMap<String, ArrayList<String>>();
+        _soundGroups = new LinkedHashMap<String, String[]>();
+        _meshMaps = new HashMap<String, HashSet<String>>();
+        _soundMaps = new HashMap<String, HashSet<String>>();
+        
+        try
+        {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(filePath), "ISO-8859-1"));
+            try
+            {
+                String line;
+                int lineNumber = 0;
+                while((line = reader.readLine()) != null)
+                {
+                    lineNumber++;
+                    parseLine(line.trim(), filePath, lineNumber);
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch(IOException e)
+        {
+            throw new IllegalArgumentException("Could not read asset manifest \"" + filePath + "\"", e);
+        }
+    }
+    
+    /**
+     * Verarbeitet eine einzelne Zeile des Manifests
+     * @param line Zeileninhalt ohne fhrende und folgende Leerzeichen
+     * @param filePath Pfad der Manifestdatei (fr Fehlermeldungen)
+     * @param lineNumber Zeilennummer (fr Fehlermeldungen)
+     */
+    private void parseLine(String line, String filePath, int lineNumber)
+    {
+        if(line.isEmpty() || line.startsWith("#"))
+        {
+            return;
+        }
+        
+        String[] fields = line.split(";", -1);
+        String type = fields[0];
+        
+        if(type.equals("mesh") && fields.length == 5)
+        {
+            String key = fields[2];
+            checkUnique(_meshPaths, key, filePath, lineNumber);
+            
+            _meshPaths.put(key, Directory.MODEL + fields[3]);
+            _meshMaps.put(key, parseMaps(fields[4]));
+            
+            ArrayList<String> set = _meshSets.get(fields[1]);
+            if(set == null)
+            {
+                set = new ArrayList<String>();
+                _meshSets.put(fields[1], set);
+            }
+            set.add(key);
+        }
+        else if(type.equals("sound") && fields.length == 4)
+        {
+            String key = fields[1];
+            checkUnique(_soundPaths, key, filePath, lineNumber);
+            
+            _soundPaths.put(key, Directory.SOUND + fields[2]);
+            _soundMaps.put(key, parseMaps(fields[3]));
+        }
+        else if(type.equals("soundgroup") && fields.length == 3)
+        {
+            checkUnique(_soundGroups, fields[1], filePath, lineNumber);
+            
+            _soundGroups.put(fields[1], fields[2].split("\\|"));
+        }
+        else
+        {
+            throw new IllegalArgumentException("Malformed asset manifest entry in " + filePath + ":" + lineNumber + ": \"" + line + "\"");
+        }
+    }
+    
+    /**
+     * Wirft eine Exception, falls ein Key bereits registriert ist
+     */
+    private static void checkUnique(Map<String, ?> registry, String key, String filePath, int lineNumber)
+    {
+        if(registry.containsKey(key))
+        {
+            throw new IllegalArgumentException("Duplicate asset key \"" + key + "\" in " + filePath + ":" + lineNumber);
+        }
+    }
+    
+    /**
+     * Wandelt das Map-Feld eines Eintrags in eine Menge von Mapnamen um
+     * @param field Inhalt des Map-Felds
+     * @return Menge der Mapnamen, null fr alle Maps
+     */
+    private static HashSet<String> parseMaps(String field)
+    {
+        if(field.equals(ALL_MAPS))
+        {
+            return null;
+        }
+        
+        HashSet<String> maps = new HashSet<String>();
+        if(!field.equals(NO_MAPS) && !field.isEmpty())
+        {
+            maps.addAll(Arrays.asList(field.split("\\|")));
+        }
+        return maps;
+    }
+    
+    /**
+     * @param key Key des Meshes
+     * @return Dateipfad des Meshes oder null, falls nicht im Manifest
+     */
+    public String getMeshPath(String key)
+    {
+        return _meshPaths.get(key);
+    }
+    
+    /**
+     * @param key Key der Soundquelle
+     * @return Dateipfad der Soundquelle oder null, falls nicht im Manifest
+     */
+    public String getSoundPath(String key)
+    {
+        return _soundPaths.get(key);
+    }
+    
+    /**
+     * @param setName Name des Mesh-Sets
+     * @return Keys aller Meshes des Sets in Manifest-Reihenfolge (leer, falls unbekannt)
+     */
+    public List<String> getMeshSet(String setName)
+    {
+        ArrayList<String> set = _meshSets.get(setName);
+        if(set == null)
+        {
+            return Collections.<String>emptyList();
+        }
+        return Collections.unmodifiableList(set);
+    }
+    
+    /**
+     * @return Keys aller Soundquellen in Manifest-Reihenfolge
+     */
+    public Set<String> getSoundKeys()
+    {
+        return Collections.unmodifiableSet(_soundPaths.keySet());
+    }
+    
+    /**
+     * @return Soundgruppen (Gruppen-Key -> Quellschlssel) in Manifest-Reihenfolge
+     */
+    public Map<String, String[]> getSoundGroups()
+    {
+        return Collections.unmodifiableMap(_soundGroups);
+    }
+    
+    /**
+     * @param mapName Name der Map (KEIN Pfad)
+     * @return Keys aller Meshes, die von der Map verwendet werden
+     */
+    public ArrayList<String> getMeshKeysForMap(String mapName)
+    {
+        return filterByMap(_meshPaths.keySet(), _meshMaps, mapName);
+    }
+    
+    /**
+     * @param mapName Name der Map (KEIN Pfad)
+     * @return Keys aller Soundquellen, die von der Map verwendet werden
+     */
+    public ArrayList<String> getSoundKeysForMap(String mapName)
+    {
+        return filterByMap(_soundPaths.keySet(), _soundMaps, mapName);
+    }
+    
+    /**
+     * Whlt alle Keys aus, deren Map-Menge eine bestimmte Map enthlt
+     */
+    private static ArrayList<String> filterByMap(Set<String> keys, HashMap<String, HashSet<String>> maps, String mapName)
+    {
+        ArrayList<String> result = new ArrayList<String>();
+        for(String key : keys)
+        {
+            HashSet<String> usedBy = maps.get(key);
+            if(usedBy == null || usedBy.contains(mapName))
+            {
+                result.add(key);
+            }
+        }
+        return result;
+    }
+}
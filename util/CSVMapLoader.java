@@ -19,8 +19,8 @@ public class CSVMapLoader
      */
     public GridMap loadFromFile(String tileFilePath, String functionFilePath)
     {
-        ArrayList<ArrayList<Integer>> tileMap = readOneLayerFromFile(tileFilePath);
-        ArrayList<ArrayList<Integer>> functionMap = readOneLayerFromFile(functionFilePath);
+        MapLayer tileMap = readOneLayerFromFile(tileFilePath);
+        MapLayer functionMap = readOneLayerFromFile(functionFilePath);
         
         return new GridMap(tileMap, functionMap);
     }
@@ -28,11 +28,11 @@ public class CSVMapLoader
     /**
      * Liest eine einzelne Kachelebene aus einem gegebenen Dateipfad
      * @param filePath Dateipfad der .csv-Datei der Kachelebene
-     * @return Zweidimensionale Integerliste, die die Werte der Kachelebene enthlt
+     * @return Kachelebene mit den gelesenen Werten
      */
-    private ArrayList<ArrayList<Integer>> readOneLayerFromFile(String filePath)
+    private MapLayer readOneLayerFromFile(String filePath)
     {
-        ArrayList<ArrayList<Integer>> mapLayer = new ArrayList<ArrayList<Integer>>();
+        ArrayList<int[]> rows = new ArrayList<int[]>();
         
         // Versucht die Datei beim gegebenen Pfad zu finden und ein Mesh daraus auszulesen
         try
@@ -45,13 +45,13 @@ public class CSVMapLoader
 
             while ((strLine = br.readLine()) != null)
             {
-                ArrayList<Integer> line = new ArrayList<Integer>();
                 String[] segments = strLine.split(",");
+                int[] line = new int[segments.length];
                 for(int i = 0; i < segments.length; i++)
                 {
-                    line.add(Integer.parseInt(segments[i]));
+                    line[i] = Integer.parseInt(segments[i]);
                 }
-                mapLayer.add(line);
+                rows.add(line);
             }
             
             in.close();
@@ -61,6 +61,6 @@ public class CSVMapLoader
             System.err.println("Error: " + e.getMessage());
         }
         
-        return mapLayer;
+        return MapLayer.fromRows(rows);
     }
 }
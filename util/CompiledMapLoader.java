@@ -0,0 +1,593 @@
+package util;
+
+import game.*;
+import maths.*;
+import core.*;
+import physics.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import javafx.util.*;
+
+/**
+ * Speichert den datenabhngigen Teil einer geladenen GridMap als kompiliertes Level in einer Binrdatei und stellt ihn wieder her.
+ * Enthalten sind beide Mapebenen, Spawnpunkt, Trpositionen sowie Tiles, Bounds, Geometrie, Collider und Occluder aller Rume.
+ * Gespeichert werden die ungebatchten Objekte der TileProvider. Sie referenzieren per Index eine Mesh-Tabelle, in der Tile-Meshes nur mit
+ * ihrem Key stehen und beim Laden wieder aus dem ResourceManager bezogen werden, sowie eine Tabelle der LOD-Stufen.
+ * Rotation und Skalierung werden nur gespeichert, wenn sie vom Standardwert abweichen. Die Dateigre wchst daher nur mit der Anzahl der Tiles.
+ * Ein gltiges kompiliertes Level wird mit einem einzigen sequentiellen Lesevorgang geladen, ohne CSV-Parsing, Floodfill und Provider-Aufrufe;
+ * die Geometrie wird anschlieend wie beim Erzeugen zusammengefasst.
+ * Entities und Trobjekte sind zustandsbehaftet und werden weiterhin ber GridMap.populateFunctions() erzeugt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 12.01.2022
+ */
+public class CompiledMapLoader
+{
+    /**
+     * Dateiendung der kompilierten Levels (wird an Pfad und Namen der Map angehngt)
+     */
+    public static final String FILE_SUFFIX = ".levelcache";
+    
+    // Kennung und Version des Dateiformats. Die Version muss erhht werden, wenn sich die Ausgabe der Tile- oder ColliderProvider ndert.
+    private static final int MAGIC = 0x4C564C43;
+    private static final int VERSION = 4;
+    
+    // Kennungen der gespeicherten Geometrie-Objekttypen
+    private static final byte STATIC_OBJECT = 0;
+    private static final byte LOD_OBJECT = 1;
+    
+    // Kennungen der Eintrge der Mesh-Tabelle
+    private static final byte MESH_KEY = 0;
+    private static final byte MESH_INLINE = 1;
+    
+    // Flags fr vom Standardwert abweichende Rotation und Skalierung
+    private static final byte ROTATED = 1;
+    private static final byte SCALED = 2;
+    
+    // Mesh-Set, aus dem die per Key gespeicherten Meshes bezogen werden
+    private MeshSet _tileMeshes;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse CompiledMapLoader
+     * @param resourceManager ResourceManager, aus dem die Tile-Meshes bezogen werden
+     */
+    public CompiledMapLoader(ResourceManager resourceManager)
+    {
+        _tileMeshes = resourceManager.getMeshSet(ResourceManager.TILE_MESHES);
+    }
+    
+    /**
+     * Ldt ein kompiliertes Level, sofern es existiert und zu den Quelldateien passt
+     * @param cacheFilePath Pfad des kompilierten Levels
+     * @param tileFilePath Pfad der .csv-Datei des Tile-Layers
+     * @param functionFilePath Pfad der .csv-Datei des Function-Layers
+     * @param geometryStamp Kennwert der zur Erzeugung verwendeten Tile-Meshes (siehe ResourceManager.getMeshSetStamp())
+     * @return GridMap mit wiederhergestellter und zusammengefasster Geometrie oder null, wenn das kompilierte Level fehlt, veraltet oder beschdigt ist
+     */
+    public GridMap load(String cacheFilePath, String tileFilePath, String functionFilePath, long geometryStamp)
+    {
+        File cache = new File(cacheFilePath);
+        File tileSource = new File(tileFilePath);
+        File functionSource = new File(functionFilePath);
+        if(!cache.isFile() || !tileSource.isFile() || !functionSource.isFile())
+        {
+            return null;
+        }
+        
+        try(FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ))
+        {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != geometryStamp
+                || buffer.getLong() != tileSource.length() || buffer.getLong() != tileSource.lastModified()
+                || buffer.getLong() != functionSource.length() || buffer.getLong() != functionSource.lastModified())
+            {
+                return null;
+            }
+            
+            // Mapebenen
+            MapLayer tileLayer = readLayer(buffer);
+            MapLayer functionLayer = readLayer(buffer);
+            GridMap map = new GridMap(tileLayer, functionLayer);
+            
+            // Spawnpunkt
+            Vector3 playerSpawn = readVector3(buffer);
+            double playerSpawnAngle = buffer.getDouble();
+            
+            // Trpositionen
+            int doorCount = buffer.getInt();
+            ArrayList<Vector2i> doorLocations = new ArrayList<Vector2i>(doorCount);
+            for(int i = 0; i < doorCount; i++)
+            {
+                doorLocations.add(new Vector2i(buffer.getInt(), buffer.getInt()));
+            }
+            
+            // Mesh-Tabelle
+            Mesh[] meshes = new Mesh[buffer.getInt()];
+            for(int i = 0; i < meshes.length; i++)
+            {
+                if(buffer.get() == MESH_KEY)
+                {
+                    meshes[i] = _tileMeshes.get(readString(buffer));
+                    if(meshes[i] == null)
+                    {
+                        return null;
+                    }
+                }
+                else
+                {
+                    meshes[i] = readMesh(buffer);
+                }
+            }
+            
+            // LOD-Tabelle
+            int lodTableCount = buffer.getInt();
+            ArrayList<ArrayList<Pair<Double, Mesh>>> lodTables = new ArrayList<ArrayList<Pair<Double, Mesh>>>(lodTableCount);
+            for(int i = 0; i < lodTableCount; i++)
+            {
+                int levelCount = buffer.getInt();
+                ArrayList<Pair<Double, Mesh>> lodLevels = new ArrayList<Pair<Double, Mesh>>(levelCount);
+                for(int j = 0; j < levelCount; j++)
+                {
+                    double distance = buffer.getDouble();
+                    lodLevels.add(new Pair<Double, Mesh>(distance, meshes[buffer.getInt()]));
+                }
+                lodTables.add(lodLevels);
+            }
+            
+            // Rume
+            int roomCount = buffer.getInt();
+            ArrayList<Room> rooms = new ArrayList<Room>(roomCount);
+            for(int i = 0; i < roomCount; i++)
+            {
+                rooms.add(readRoom(buffer, map, meshes, lodTables));
+            }
+            
+            if(buffer.hasRemaining())
+            {
+                return null;
+            }
+            
+            map.restoreGeometry(playerSpawn, playerSpawnAngle, rooms, doorLocations);
+            map.batchStaticGeometry();
+            return map;
+        }
+        catch(IOException | RuntimeException e)
+        {
+            // Beschdigte oder unlesbare Levels werden einfach neu kompiliert
+            return null;
+        }
+    }
+    
+    /**
+     * Speichert die Geometrie einer mit GridMap.createGeometry() erzeugten, noch nicht zusammengefassten Map als kompiliertes Level.
+     * Fehler werden gemeldet, aber nicht weitergegeben, da das kompilierte Level optional ist.
+     * @param map GridMap, deren Geometrie gespeichert wird
+     * @param cacheFilePath Pfad des kompilierten Levels
+     * @param tileFilePath Pfad der .csv-Datei des Tile-Layers
+     * @param functionFilePath Pfad der .csv-Datei des Function-Layers
+     * @param geometryStamp Kennwert der zur Erzeugung verwendeten Tile-Meshes (siehe ResourceManager.getMeshSetStamp())
+     * @return true, wenn das Level geschrieben wurde, sonst false
+     */
+    public boolean save(GridMap map, String cacheFilePath, String tileFilePath, String functionFilePath, long geometryStamp)
+    {
+        File cache = new File(cacheFilePath);
+        File tileSource = new File(tileFilePath);
+        File functionSource = new File(functionFilePath);
+        
+        // Erster Durchlauf: Mesh- und LOD-Tabelle aufbauen und prfen, ob alle Objekte gespeichert werden knnen
+        GeometryTable table = new GeometryTable();
+        for(Room room : map.rooms)
+        {
+            if(!collectMeshes(room, table))
+            {
+                return false;
+            }
+        }
+        IdentityHashMap<Mesh, String> meshKeys = _tileMeshes.getLoadedKeys();
+        
+        // Zweiter Durchlauf: direkt in eine temporre Datei schreiben, damit nie ein halb geschriebenes Level gelesen wird
+        File temp = new File(cache.getPath() + ".tmp");
+        try
+        {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+            {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(geometryStamp);
+                out.writeLong(tileSource.length());
+                out.writeLong(tileSource.lastModified());
+                out.writeLong(functionSource.length());
+                out.writeLong(functionSource.lastModified());
+                
+                writeLayer(out, map.getTileLayer());
+                writeLayer(out, map.getFunctionLayer());
+                
+                writeVector3(out, map.getPlayerSpawn());
+                out.writeDouble(map.getPlayerSpawnAngle());
+                
+                out.writeInt(map.getDoorLocations().size());
+                for(Vector2i doorLocation : map.getDoorLocations())
+                {
+                    out.writeInt(doorLocation.getX());
+                    out.writeInt(doorLocation.getY());
+                }
+                
+                // Meshes aus dem Mesh-Set werden nur per Key referenziert
+                out.writeInt(table.meshes.size());
+                for(Mesh mesh : table.meshes)
+                {
+                    String key = meshKeys.get(mesh);
+                    if(key != null)
+                    {
+                        out.writeByte(MESH_KEY);
+                        out.writeUTF(key);
+                    }
+                    else
+                    {
+                        out.writeByte(MESH_INLINE);
+                        writeMesh(out, mesh);
+                    }
+                }
+                
+                out.writeInt(table.lodTables.size());
+                for(ArrayList<Pair<Double, Integer>> lodLevels : table.lodTables)
+                {
+                    out.writeInt(lodLevels.size());
+                    for(Pair<Double, Integer> level : lodLevels)
+                    {
+                        out.writeDouble(level.getKey());
+                        out.writeInt(level.getValue());
+                    }
+                }
+                
+                out.writeInt(map.rooms.size());
+                for(Room room : map.rooms)
+                {
+                    writeRoom(out, room, table);
+                }
+            }
+            Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            System.err.println("Could not write compiled level " + cacheFilePath + ": " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Nimmt alle Meshes und LOD-Stufen der Raumgeometrie in die Tabellen auf
+     * @return false, wenn der Raum Objekte enthlt, die nicht gespeichert werden knnen
+     */
+    private static boolean collectMeshes(Room room, GeometryTable table)
+    {
+        for(IGameObject obj : room.getGeometry())
+        {
+            if(obj instanceof StaticLODGameObject)
+            {
+                table.getLODID((StaticLODGameObject)obj);
+            }
+            else if(obj instanceof StaticGameObject)
+            {
+                table.getMeshID(((StaticGameObject)obj).getMeshRef());
+            }
+            else
+            {
+                System.err.println("Could not compile level: unsupported geometry type " + obj.getClass().getName());
+                return false;
+            }
+        }
+        
+        for(ICollider collider : room.getStaticColliders())
+        {
+            if(!(collider instanceof LineCollider) || collider.getListener() != null)
+            {
+                System.err.println("Could not compile level: unsupported collider type " + collider.getClass().getName());
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Schreibt Tiles, Bounds, Geometrie, Collider und Occluder eines mit collectMeshes() geprften Raums
+     */
+    private static void writeRoom(DataOutputStream out, Room room, GeometryTable table) throws IOException
+    {
+        out.writeInt(room.getMinX());
+        out.writeInt(room.getMinZ());
+        out.writeInt(room.getMaxX());
+        out.writeInt(room.getMaxZ());
+        
+        HashSet<Vector2i> tiles = room.getTiles();
+        out.writeInt(tiles.size());
+        for(Vector2i tile : tiles)
+        {
+            out.writeInt(tile.getX());
+            out.writeInt(tile.getY());
+        }
+        
+        // Geometrie
+        out.writeInt(room.getGeometry().size());
+        for(IGameObject obj : room.getGeometry())
+        {
+            if(obj instanceof StaticLODGameObject)
+            {
+                out.writeByte(LOD_OBJECT);
+                out.writeInt(table.getLODID((StaticLODGameObject)obj));
+            }
+            else
+            {
+                out.writeByte(STATIC_OBJECT);
+                out.writeInt(table.getMeshID(((StaticGameObject)obj).getMeshRef()));
+            }
+            writeTransform(out, obj);
+        }
+        
+        // Collider
+        out.writeInt(room.getStaticColliders().size());
+        for(ICollider collider : room.getStaticColliders())
+        {
+            LineCollider line = (LineCollider)collider;
+            out.writeInt(line.getLayer().ordinal());
+            out.writeDouble(line.getFirstPoint().getX());
+            out.writeDouble(line.getFirstPoint().getY());
+            out.writeDouble(line.getSecondPoint().getX());
+            out.writeDouble(line.getSecondPoint().getY());
+        }
+        
+        // Occluder
+        out.writeInt(room.getOccluders().size());
+        for(Vector3[] occluder : room.getOccluders())
+        {
+            out.writeInt(occluder.length);
+            for(Vector3 corner : occluder)
+            {
+                writeVector3(out, corner);
+            }
+        }
+    }
+    
+    /**
+     * Liest einen mit writeRoom() geschriebenen Raum
+     */
+    private static Room readRoom(ByteBuffer buffer, GridMap map, Mesh[] meshes, ArrayList<ArrayList<Pair<Double, Mesh>>> lodTables)
+    {
+        int minX = buffer.getInt(), minZ = buffer.getInt(), maxX = buffer.getInt(), maxZ = buffer.getInt();
+        
+        int tileCount = buffer.getInt();
+        ArrayList<Vector2i> tiles = new ArrayList<Vector2i>(tileCount);
+        for(int i = 0; i < tileCount; i++)
+        {
+            tiles.add(new Vector2i(buffer.getInt(), buffer.getInt()));
+        }
+        
+        // Geometrie
+        TurtleColor[] colors = TurtleColor.values();
+        int geometryCount = buffer.getInt();
+        ArrayList<IGameObject> geometry = new ArrayList<IGameObject>(geometryCount);
+        for(int i = 0; i < geometryCount; i++)
+        {
+            byte type = buffer.get();
+            if(type != LOD_OBJECT && type != STATIC_OBJECT)
+            {
+                throw new IllegalStateException("unknown geometry type " + type);
+            }
+            int id = buffer.getInt();
+            
+            TurtleColor color = colors[buffer.getInt()];
+            Vector3 position = readVector3(buffer);
+            byte flags = buffer.get();
+            Vector3 rotation = (flags & ROTATED) != 0 ? readVector3(buffer) : new Vector3();
+            Vector3 scale = (flags & SCALED) != 0 ? readVector3(buffer) : new Vector3(1.0, 1.0, 1.0);
+            
+            if(type == LOD_OBJECT)
+            {
+                geometry.add(new StaticLODGameObject(lodTables.get(id), color, position, rotation, scale));
+            }
+            else
+            {
+                geometry.add(new StaticGameObject(meshes[id], color, position, rotation, scale));
+            }
+        }
+        
+        // Collider
+        PhysicsLayer[] layers = PhysicsLayer.values();
+        int colliderCount = buffer.getInt();
+        ArrayList<ICollider> colliders = new ArrayList<ICollider>(colliderCount);
+        for(int i = 0; i < colliderCount; i++)
+        {
+            PhysicsLayer layer = layers[buffer.getInt()];
+            Vector2 first = new Vector2(buffer.getDouble(), buffer.getDouble());
+            Vector2 second = new Vector2(buffer.getDouble(), buffer.getDouble());
+            colliders.add(new LineCollider(first, second, layer));
+        }
+        
+        // Occluder
+        int occluderCount = buffer.getInt();
+        ArrayList<Vector3[]> occluders = new ArrayList<Vector3[]>(occluderCount);
+        for(int i = 0; i < occluderCount; i++)
+        {
+            Vector3[] occluder = new Vector3[buffer.getInt()];
+            for(int j = 0; j < occluder.length; j++)
+            {
+                occluder[j] = readVector3(buffer);
+            }
+            occluders.add(occluder);
+        }
+        
+        Room room = new Room(map);
+        room.restoreGeometry(tiles, minX, minZ, maxX, maxZ, geometry, colliders, occluders);
+        return room;
+    }
+    
+    /**
+     * Schreibt Farbe und Position eines GameObjects sowie Rotation und Skalierung, sofern sie vom Standardwert abweichen
+     */
+    private static void writeTransform(DataOutputStream out, IGameObject obj) throws IOException
+    {
+        Vector3 rotation = obj.getRotation();
+        Vector3 scale = obj.getScale();
+        boolean rotated = rotation.getX() != 0.0 || rotation.getY() != 0.0 || rotation.getZ() != 0.0;
+        boolean scaled = scale.getX() != 1.0 || scale.getY() != 1.0 || scale.getZ() != 1.0;
+        
+        out.writeInt(obj.getColor().ordinal());
+        writeVector3(out, obj.getPosition());
+        out.writeByte((rotated ? ROTATED : 0) | (scaled ? SCALED : 0));
+        if(rotated)
+        {
+            writeVector3(out, rotation);
+        }
+        if(scaled)
+        {
+            writeVector3(out, scale);
+        }
+    }
+    
+    /**
+     * Schreibt ein Mesh mit Vertex- und Kantenarray sowie Hllkugel
+     */
+    private static void writeMesh(DataOutputStream out, Mesh mesh) throws IOException
+    {
+        BoundingSphere bounds = mesh.getBounds();
+        out.writeInt(mesh.getVertexCount());
+        out.writeInt(mesh.getEdgeCount());
+        out.writeDouble(bounds.getX());
+        out.writeDouble(bounds.getY());
+        out.writeDouble(bounds.getZ());
+        out.writeDouble(bounds.getRadius());
+        for(double value : mesh.getPositions())
+        {
+            out.writeDouble(value);
+        }
+        for(int value : mesh.getEdges())
+        {
+            out.writeInt(value);
+        }
+    }
+    
+    /**
+     * Liest ein mit writeMesh() geschriebenes Mesh
+     */
+    private static Mesh readMesh(ByteBuffer buffer)
+    {
+        int vertexCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        BoundingSphere bounds = new BoundingSphere(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        
+        double[] positions = new double[vertexCount * 3];
+        buffer.asDoubleBuffer().get(positions);
+        buffer.position(buffer.position() + positions.length * 8);
+        
+        int[] edges = new int[edgeCount * 2];
+        buffer.asIntBuffer().get(edges);
+        buffer.position(buffer.position() + edges.length * 4);
+        
+        return new Mesh(positions, edges, bounds);
+    }
+    
+    /**
+     * Schreibt eine Mapebene (Breite, Hhe, zeilenweise Werte)
+     */
+    private static void writeLayer(DataOutputStream out, MapLayer layer) throws IOException
+    {
+        out.writeInt(layer.getWidth());
+        out.writeInt(layer.getHeight());
+        for(int value : layer.getValues())
+        {
+            out.writeInt(value);
+        }
+    }
+    
+    /**
+     * Liest eine mit writeLayer() geschriebene Mapebene
+     */
+    private static MapLayer readLayer(ByteBuffer buffer)
+    {
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int[] values = new int[width * height];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 4);
+        return new MapLayer(width, height, values);
+    }
+    
+    private static void writeVector3(DataOutputStream out, Vector3 vector) throws IOException
+    {
+        out.writeDouble(vector.getX());
+        out.writeDouble(vector.getY());
+        out.writeDouble(vector.getZ());
+    }
+    
+    private static Vector3 readVector3(ByteBuffer buffer)
+    {
+        return new Vector3(buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+    
+    /**
+     * Liest einen mit DataOutputStream.writeUTF() geschriebenen Key
+     */
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Mesh- und LOD-Tabelle eines kompilierten Levels, die beim Speichern aufgebaut wird
+     */
+    private static class GeometryTable
+    {
+        final IdentityHashMap<Mesh, Integer> meshIDs = new IdentityHashMap<Mesh, Integer>();
+        final ArrayList<Mesh> meshes = new ArrayList<Mesh>();
+        final HashMap<ArrayList<Pair<Double, Integer>>, Integer> lodIDs = new HashMap<ArrayList<Pair<Double, Integer>>, Integer>();
+        final ArrayList<ArrayList<Pair<Double, Integer>>> lodTables = new ArrayList<ArrayList<Pair<Double, Integer>>>();
+        
+        /**
+         * Gibt den Index eines Meshs in der Mesh-Tabelle zurck und fgt es bei Bedarf hinzu
+         */
+        int getMeshID(Mesh mesh)
+        {
+            mesh = Mesh.orEmpty(mesh);
+            Integer id = meshIDs.get(mesh);
+            if(id == null)
+            {
+                id = meshes.size();
+                meshIDs.put(mesh, id);
+                meshes.add(mesh);
+            }
+            return id;
+        }
+        
+        /**
+         * Gibt den Index der LOD-Stufen eines Objekts in der LOD-Tabelle zurck und fgt sie bei Bedarf hinzu
+         */
+        int getLODID(StaticLODGameObject obj)
+        {
+            ArrayList<Pair<Double, Integer>> lodLevels = new ArrayList<Pair<Double, Integer>>();
+            for(Pair<Double, Mesh> level : obj.getLODLevels())
+            {
+                lodLevels.add(new Pair<Double, Integer>(level.getKey(), getMeshID(level.getValue())));
+            }
+            
+            Integer id = lodIDs.get(lodLevels);
+            if(id == null)
+            {
+                id = lodTables.size();
+                lodIDs.put(lodLevels, id);
+                lodTables.add(lodLevels);
+            }
+            return id;
+        }
+    }
+}
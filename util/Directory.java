@@ -12,4 +12,5 @@ public class Directory
     public static String SOUND = "./res/sounds/";
     public static final String MAP = "./res/maps/";
     public static final String MODEL = "./res/models/";
+    public static final String ASSET_MANIFEST = "./res/assets.csv";
 }
@@ -0,0 +1,159 @@
+package util;
+
+import java.util.*;
+
+/**
+ * Threadsicherer Cache, der bei berschreitung eines Speicherbudgets die am lngsten nicht benutzten Eintrge verwirft
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 12.01.2022
+ */
+public class LRUCache<K, V>
+{
+    // Eintrge in Zugriffsreihenfolge, der lteste Eintrag steht vorn
+    private LinkedHashMap<K, V> _entries;
+    // Geschtzte Gre der Eintrge in Bytes
+    private HashMap<K, Long> _sizes;
+    
+    private long _budget;
+    private long _usedBytes;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse LRUCache
+     * @param budget Speicherbudget in Bytes (>= 0)
+     */
+    public LRUCache(long budget)
+    {
+        if(budget < 0)
+        {
+            throw new IllegalArgumentException("Cache budget must not be negative, was " + budget);
+        }
+        
+        _entries = new LinkedHashMap<K, V>(16, 0.75f, true);
+        _sizes = new HashMap<K, Long>();
+        _budget = budget;
+        _usedBytes = 0;
+    }
+    
+    /**
+     * Gibt den Eintrag zu einem Schlssel zurck und markiert ihn als zuletzt benutzt
+     * @param key Schlssel des Eintrags
+     * @return Eintrag oder null, falls nicht vorhanden
+     */
+    public synchronized V get(K key)
+    {
+        return _entries.get(key);
+    }
+    
+    /**
+     * Gibt zurck, ob ein Eintrag im Cache vorhanden ist, ohne die Zugriffsreihenfolge zu verndern
+     * @param key Schlssel des Eintrags
+     * @return Wahrheitswert der Aussage "Der Eintrag ist im Cache vorhanden"
+     */
+    public synchronized boolean containsKey(K key)
+    {
+        return _entries.containsKey(key);
+    }
+    
+    /**
+     * Fgt einen Eintrag hinzu oder ersetzt ihn und verwirft anschlieend alte Eintrge, bis das Budget eingehalten wird.
+     * Der neue Eintrag selbst wird nie verworfen, auch wenn er allein das Budget berschreitet.
+     * @param key Schlssel des Eintrags
+     * @param value Eintrag (nicht null)
+     * @param size geschtzte Gre des Eintrags in Bytes
+     */
+    public synchronized void put(K key, V value, long size)
+    {
+        remove(key);
+        
+        _entries.put(key, value);
+        _sizes.put(key, size);
+        _usedBytes += size;
+        
+        evict(key);
+    }
+    
+    /**
+     * Entfernt einen Eintrag aus dem Cache
+     * @param key Schlssel des Eintrags
+     * @return entfernter Eintrag oder null, falls nicht vorhanden
+     */
+    public synchronized V remove(K key)
+    {
+        Long size = _sizes.remove(key);
+        if(size != null)
+        {
+            _usedBytes -= size;
+        }
+        return _entries.remove(key);
+    }
+    
+    /**
+     * Leert den Cache
+     */
+    public synchronized void clear()
+    {
+        _entries.clear();
+        _sizes.clear();
+        _usedBytes = 0;
+    }
+    
+    /**
+     * Setzt das Speicherbudget und verwirft ggf. sofort berzhlige Eintrge
+     * @param budget Speicherbudget in Bytes (>= 0)
+     */
+    public synchronized void setBudget(long budget)
+    {
+        if(budget < 0)
+        {
+            throw new IllegalArgumentException("Cache budget must not be negative, was " + budget);
+        }
+        
+        _budget = budget;
+        evict(null);
+    }
+    
+    /**
+     * @return Speicherbudget in Bytes
+     */
+    public synchronized long getBudget()
+    {
+        return _budget;
+    }
+    
+    /**
+     * @return geschtzter Speicherverbrauch aller Eintrge in Bytes
+     */
+    public synchronized long getUsedBytes()
+    {
+        return _usedBytes;
+    }
+    
+    /**
+     * @return Anzahl der Eintrge
+     */
+    public synchronized int size()
+    {
+        return _entries.size();
+    }
+    
+    /**
+     * Verwirft die am lngsten nicht benutzten Eintrge, bis das Budget eingehalten wird
+     * @param protectedKey Schlssel, der nicht verworfen werden darf (oder null)
+     */
+    private void evict(K protectedKey)
+    {
+        Iterator<Map.Entry<K, V>> iter = _entries.entrySet().iterator();
+        while(_usedBytes > _budget && iter.hasNext())
+        {
+            K key = iter.next().getKey();
+            if(key.equals(protectedKey))
+            {
+                continue;
+            }
+            
+            _usedBytes -= _sizes.remove(key);
+            iter.remove();
+        }
+    }
+}
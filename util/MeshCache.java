@@ -0,0 +1,189 @@
+package util;
+
+import maths.*;
+import core.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Cache fr importierte Meshes in einem kompakten Binrformat.
+ * Neben jeder .obj-Datei wird eine .meshcache-Datei mit den gepackten Vertex- und Kantenarrays sowie der Hllkugel abgelegt.
+ * Der Cache wird verworfen, sobald sich Gre oder nderungszeitpunkt der Quelldatei oder die Importeinstellungen ndern.
+ * Gltige Cache-Dateien werden per FileChannel.map eingelesen, ohne die .obj-Datei erneut zu parsen.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 10.01.2022
+ */
+public class MeshCache
+{
+    /**
+     * Dateiendung der Cache-Dateien (wird an den Pfad der Quelldatei angehngt)
+     */
+    public static final String FILE_SUFFIX = ".meshcache";
+    
+    // Kennung und Version des Dateiformats; die Version wird auch erhht, wenn sich der OBJ-Parser ndert,
+    // damit mit einem lteren Parser erzeugte Cache-Dateien neu aufgebaut werden (2: n-Ecke, v/vt/vn, negative Indizes, l-Polylinien)
+    private static final int MAGIC = 0x4C4D5348;
+    private static final int VERSION = 2;
+    
+    // Gre des Headers in Bytes: Magic, Version, Einstellungen, Quellgre, Quellzeitpunkt, Vertexanzahl, Kantenanzahl, Hllkugel
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4 * 8;
+    
+    private WavefrontObjectLoader _loader;
+    
+    // Kennwert der Importeinstellungen; ndert er sich, werden alle Cache-Dateien neu erzeugt
+    private long _settingsHash;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse MeshCache
+     * @param loader Loader, mit dem Meshes bei fehlendem oder veraltetem Cache importiert werden
+     */
+    public MeshCache(WavefrontObjectLoader loader)
+    {
+        if(loader == null)
+        {
+            throw new IllegalArgumentException("mesh cache loader must not be null");
+        }
+        
+        _loader = loader;
+        _settingsHash = loader.getSettingsHash();
+    }
+    
+    /**
+     * Ldt ein Mesh aus dem Cache oder, falls dieser fehlt oder veraltet ist, aus der .obj-Datei und aktualisiert den Cache
+     * @param filePath Pfad der .obj-Datei
+     * @return geladenes Mesh
+     */
+    public Mesh load(String filePath)
+    {
+        File source = new File(filePath);
+        File cache = new File(filePath + FILE_SUFFIX);
+        
+        if(source.isFile() && cache.isFile())
+        {
+            Mesh cached = read(cache, source.length(), source.lastModified());
+            if(cached != null)
+            {
+                return cached;
+            }
+        }
+        
+        Mesh mesh = _loader.loadFromFile(filePath);
+        if(source.isFile())
+        {
+            write(cache, mesh, source.length(), source.lastModified());
+        }
+        return mesh;
+    }
+    
+    /**
+     * Liest ein Mesh aus einer Cache-Datei
+     * @param cache Cache-Datei
+     * @param sourceLength erwartete Gre der Quelldatei
+     * @param sourceModified erwarteter nderungszeitpunkt der Quelldatei
+     * @return Mesh oder null, wenn die Datei ungltig oder veraltet ist
+     */
+    private Mesh read(File cache, long sourceLength, long sourceModified)
+    {
+        try(FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if(size < HEADER_SIZE)
+            {
+                return null;
+            }
+            
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            
+            if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != _settingsHash
+                || buffer.getLong() != sourceLength || buffer.getLong() != sourceModified)
+            {
+                return null;
+            }
+            
+            int vertexCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+            if(vertexCount < 0 || edgeCount < 0 || size != HEADER_SIZE + (long)vertexCount * 3 * 8 + (long)edgeCount * 2 * 4)
+            {
+                return null;
+            }
+            
+            BoundingSphere bounds = new BoundingSphere(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+            
+            double[] positions = new double[vertexCount * 3];
+            buffer.asDoubleBuffer().get(positions);
+            buffer.position(buffer.position() + positions.length * 8);
+            
+            int[] edges = new int[edgeCount * 2];
+            buffer.asIntBuffer().get(edges);
+            
+            return new Mesh(positions, edges, bounds);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            // Beschdigte oder unlesbare Caches werden einfach neu erzeugt
+            return null;
+        }
+    }
+    
+    /**
+     * Schreibt ein Mesh in eine Cache-Datei. Fehler werden gemeldet, aber nicht weitergegeben, da der Cache optional ist.
+     * @param cache Cache-Datei
+     * @param mesh zu speicherndes Mesh
+     * @param sourceLength Gre der Quelldatei
+     * @param sourceModified nderungszeitpunkt der Quelldatei
+     */
+    private void write(File cache, Mesh mesh, long sourceLength, long sourceModified)
+    {
+        double[] positions = mesh.getPositions();
+        int[] edges = mesh.getEdges();
+        BoundingSphere bounds = mesh.getBounds();
+        
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + positions.length * 8 + edges.length * 4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(_settingsHash);
+        buffer.putLong(sourceLength);
+        buffer.putLong(sourceModified);
+        buffer.putInt(mesh.getVertexCount());
+        buffer.putInt(mesh.getEdgeCount());
+        buffer.putDouble(bounds.getX());
+        buffer.putDouble(bounds.getY());
+        buffer.putDouble(bounds.getZ());
+        buffer.putDouble(bounds.getRadius());
+        buffer.asDoubleBuffer().put(positions);
+        buffer.position(buffer.position() + positions.length * 8);
+        buffer.asIntBuffer().put(edges);
+        buffer.position(0);
+        
+        // Erst in eine temporre Datei schreiben, damit nie ein halb geschriebener Cache gelesen wird
+        File temp = new File(cache.getPath() + ".tmp");
+        try(FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while(buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+        catch(IOException e)
+        {
+            System.err.println("Could not write mesh cache " + cache.getPath() + ": " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        
+        try
+        {
+            Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch(IOException e)
+        {
+            System.err.println("Could not write mesh cache " + cache.getPath() + ": " + e.getMessage());
+            temp.delete();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package util;
+
+import maths.*;
+import core.*;
+import java.util.*;
+
+/**
+ * Bereitet beim Import gelesene Polygone und Linien zu einem Line Mesh auf.
+ * Vertices mit (nahezu) identischer Position werden verschweit, jede ungerichtete Kante wird nur einmal gespeichert
+ * und optional werden Kanten zwischen zwei koplanaren Flchen (z.B. Triangulierungsdiagonalen) entfernt.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 09.01.2022
+ */
+public class MeshOptimizer
+{
+    // Toleranz fr den Vergleich der Flchennormalen und Ebenenabstnde
+    private static final double PLANE_EPSILON = 1e-6;
+    
+    private double _weldEpsilon;
+    private boolean _removeCoplanarEdges;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse MeshOptimizer
+     * @param weldEpsilon maximaler Abstand pro Achse, bis zu dem Vertices verschweit werden (0 verschweit nur identische Positionen)
+     * @param removeCoplanarEdges wenn true, werden Kanten entfernt, die genau zwei koplanare Flchen trennen
+     */
+    public MeshOptimizer(double weldEpsilon, boolean removeCoplanarEdges)
+    {
+        if(weldEpsilon < 0.0)
+        {
+            throw new IllegalArgumentException("weld epsilon must not be negative");
+        }
+        
+        _weldEpsilon = weldEpsilon;
+        _removeCoplanarEdges = removeCoplanarEdges;
+    }
+    
+    /**
+     * Erstellt ein Mesh aus Vertices, Flchen und freien Linien
+     * @param positions Koordinaten der Vertices, je drei Eintrge (x, y, z) pro Vertex
+     * @param faceIndices nullbasierte Vertexindizes aller Flchen hintereinander (jeweils in Umlaufreihenfolge)
+     * @param faceStarts Startindex jeder Flche in faceIndices, gefolgt von faceIndices.length (Flchenanzahl + 1 Eintrge)
+     * @param lines freie Linien als Paare nullbasierter Vertexindizes
+     * @return optimiertes Mesh, das nur noch referenzierte Vertices enthlt
+     */
+    public Mesh buildMesh(double[] positions, int[] faceIndices, int[] faceStarts, int[] lines)
+    {
+        int vertexCount = positions.length / 3;
+        int faceCount = faceStarts.length - 1;
+        if(faceCount < 0 || faceStarts[faceCount] != faceIndices.length || lines.length % 2 != 0)
+        {
+            throw new IllegalArgumentException("malformed face or line arrays");
+        }
+        for(int[] indices : new int[][] { faceIndices, lines })
+        {
+            for(int index : indices)
+            {
+                if(index < 0 || index >= vertexCount)
+                {
+                    throw new IllegalArgumentException("edge references vertex " + index + ", but mesh only has " + vertexCount + " vertices");
+                }
+            }
+        }
+        
+        // Vertices verschweien: jeder Index wird auf seinen Reprsentanten abgebildet
+        int[] weld = weldVertices(positions);
+        
+        // Flchennormalen und Ebenenabstnde (nur fr die Entfernung koplanarer Kanten)
+        double[] planes = _removeCoplanarEdges ? computePlanes(positions, faceIndices, faceStarts, weld) : null;
+        
+        // Ungerichtete Kanten sammeln: Schlssel -> Flchen, die die Kante teilen (-1 fr freie Linien)
+        LinkedHashMap<Long, ArrayList<Integer>> edges = new LinkedHashMap<Long, ArrayList<Integer>>();
+        for(int f = 0; f < faceCount; f++)
+        {
+            int start = faceStarts[f], length = faceStarts[f + 1] - start;
+            for(int i = 0; i < length; i++)
+            {
+                addEdge(edges, weld[faceIndices[start + i]], weld[faceIndices[start + (i + 1) % length]], f);
+            }
+        }
+        for(int i = 0; i < lines.length; i += 2)
+        {
+            addEdge(edges, weld[lines[i]], weld[lines[i + 1]], -1);
+        }
+        
+        // Kanten filtern und referenzierte Vertices kompakt neu nummerieren
+        int[] remap = new int[vertexCount];
+        Arrays.fill(remap, -1);
+        int usedVertices = 0;
+        int[] edgeArray = new int[edges.size() * 2];
+        int edgeCount = 0;
+        
+        for(Map.Entry<Long, ArrayList<Integer>> entry : edges.entrySet())
+        {
+            if(planes != null && isCoplanarInteriorEdge(entry.getValue(), planes))
+            {
+                continue;
+            }
+            
+            int a = (int)(entry.getKey() >>> 32), b = (int)(entry.getKey() & 0xFFFFFFFFL);
+            if(remap[a] == -1) remap[a] = usedVertices++;
+            if(remap[b] == -1) remap[b] = usedVertices++;
+            edgeArray[edgeCount * 2] = remap[a];
+            edgeArray[edgeCount * 2 + 1] = remap[b];
+            edgeCount++;
+        }
+        
+        double[] resultPositions = new double[usedVertices * 3];
+        for(int i = 0; i < vertexCount; i++)
+        {
+            if(remap[i] != -1)
+            {
+                System.arraycopy(positions, i * 3, resultPositions, remap[i] * 3, 3);
+            }
+        }
+        
+        return new Mesh(resultPositions, Arrays.copyOf(edgeArray, edgeCount * 2));
+    }
+    
+    /**
+     * Bildet jeden Vertex auf den ersten Vertex ab, dessen Position innerhalb der Schweitoleranz liegt
+     * @param positions Koordinaten der Vertices
+     * @return Array der Reprsentanten-Indizes
+     */
+    private int[] weldVertices(double[] positions)
+    {
+        int vertexCount = positions.length / 3;
+        int[] weld = new int[vertexCount];
+        
+        // Rumliches Hashing in Zellen der Kantenlnge epsilon; Nachbarzellen werden mitgeprft
+        double cellSize = (_weldEpsilon > 0.0) ? _weldEpsilon : 1.0;
+        int range = (_weldEpsilon > 0.0) ? 1 : 0;
+        HashMap<Long, ArrayList<Integer>> cells = new HashMap<Long, ArrayList<Integer>>();
+        
+        for(int i = 0; i < vertexCount; i++)
+        {
+            double x = positions[i * 3], y = positions[i * 3 + 1], z = positions[i * 3 + 2];
+            int cx = (int)Math.floor(x / cellSize), cy = (int)Math.floor(y / cellSize), cz = (int)Math.floor(z / cellSize);
+            
+            weld[i] = i;
+            search:
+            for(int dx = -range; dx <= range; dx++)
+            {
+                for(int dy = -range; dy <= range; dy++)
+                {
+                    for(int dz = -range; dz <= range; dz++)
+                    {
+                        ArrayList<Integer> cell = cells.get(cellKey(cx + dx, cy + dy, cz + dz));
+                        if(cell == null)
+                        {
+                            continue;
+                        }
+                        for(int j : cell)
+                        {
+                            if(Math.abs(positions[j * 3] - x) <= _weldEpsilon
+                                && Math.abs(positions[j * 3 + 1] - y) <= _weldEpsilon
+                                && Math.abs(positions[j * 3 + 2] - z) <= _weldEpsilon)
+                            {
+                                weld[i] = j;
+                                break search;
+                            }
+                        }
+                    }
+                }
+            }
+            
+            // Nur Reprsentanten werden registriert
+            if(weld[i] == i)
+            {
+                long key = cellKey(cx, cy, cz);
+                ArrayList<Integer> cell = cells.get(key);
+                if(cell == null)
+                {
+                    cell = new ArrayList<Integer>();
+                    cells.put(key, cell);
+                }
+                cell.add(i);
+            }
+        }
+        
+        return weld;
+    }
+    
+    /**
+     * Packt die Koordinaten einer Hashing-Zelle in einen Schlssel.
+     * Kollisionen sind unschdlich, da die Positionen anschlieend direkt verglichen werden.
+     * @param x x-Index der Zelle
+     * @param y y-Index der Zelle
+     * @param z z-Index der Zelle
+     * @return Schlssel der Zelle
+     */
+    private static long cellKey(int x, int y, int z)
+    {
+        return (((long)x & 0x1FFFFFL) << 42) | (((long)y & 0x1FFFFFL) << 21) | ((long)z & 0x1FFFFFL);
+    }
+    
+    /**
+     * Berechnet fr jede Flche die normierte Normale (Newell-Verfahren) und den Ebenenabstand
+     * @param positions Koordinaten der Vertices
+     * @param faceIndices Vertexindizes aller Flchen
+     * @param faceStarts Startindizes der Flchen
+     * @param weld Reprsentanten der Vertices
+     * @return je vier Eintrge (nx, ny, nz, d) pro Flche; degenerierte Flchen erhalten eine Nullnormale
+     */
+    private static double[] computePlanes(double[] positions, int[] faceIndices, int[] faceStarts, int[] weld)
+    {
+        int faceCount = faceStarts.length - 1;
+        double[] planes = new double[faceCount * 4];
+        for(int f = 0; f < faceCount; f++)
+        {
+            int start = faceStarts[f], length = faceStarts[f + 1] - start;
+            double nx = 0.0, ny = 0.0, nz = 0.0, cx = 0.0, cy = 0.0, cz = 0.0;
+            for(int i = 0; i < length; i++)
+            {
+                int a = weld[faceIndices[start + i]] * 3, b = weld[faceIndices[start + (i + 1) % length]] * 3;
+                nx += (positions[a + 1] - positions[b + 1]) * (positions[a + 2] + positions[b + 2]);
+                ny += (positions[a + 2] - positions[b + 2]) * (positions[a] + positions[b]);
+                nz += (positions[a] - positions[b]) * (positions[a + 1] + positions[b + 1]);
+                cx += positions[a];
+                cy += positions[a + 1];
+                cz += positions[a + 2];
+            }
+            
+            double normalLength = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if(normalLength > 0.0)
+            {
+                nx /= normalLength;
+                ny /= normalLength;
+                nz /= normalLength;
+            }
+            planes[f * 4] = nx;
+            planes[f * 4 + 1] = ny;
+            planes[f * 4 + 2] = nz;
+            planes[f * 4 + 3] = (nx * cx + ny * cy + nz * cz) / length;
+        }
+        return planes;
+    }
+    
+    /**
+     * Prft, ob eine Kante ausschlielich zwischen genau zwei koplanaren Flchen liegt
+     * @param owners Flchen, die die Kante teilen (-1 fr freie Linien)
+     * @param planes Ebenen der Flchen
+     * @return true, wenn die Kante entfernt werden kann
+     */
+    private static boolean isCoplanarInteriorEdge(ArrayList<Integer> owners, double[] planes)
+    {
+        if(owners.size() != 2 || owners.get(0) < 0 || owners.get(1) < 0)
+        {
+            return false;
+        }
+        
+        int a = owners.get(0) * 4, b = owners.get(1) * 4;
+        double dot = planes[a] * planes[b] + planes[a + 1] * planes[b + 1] + planes[a + 2] * planes[b + 2];
+        if(Math.abs(dot) < 1.0 - PLANE_EPSILON)
+        {
+            return false;
+        }
+        
+        // Gegensinnig orientierte Flchen liegen in derselben Ebene, wenn die Abstnde entgegengesetzt gleich sind
+        double distanceB = (dot > 0.0) ? planes[b + 3] : -planes[b + 3];
+        return Math.abs(planes[a + 3] - distanceB) <= PLANE_EPSILON * Math.max(1.0, Math.abs(planes[a + 3]));
+    }
+    
+    /**
+     * Registriert eine ungerichtete Kante
+     * @param edges bisherige Kanten
+     * @param a erster Vertexindex
+     * @param b zweiter Vertexindex
+     * @param owner Index der Flche oder -1 fr freie Linien
+     */
+    private static void addEdge(LinkedHashMap<Long, ArrayList<Integer>> edges, int a, int b, int owner)
+    {
+        // Zu einem Punkt verschweite Kanten entfallen
+        if(a == b)
+        {
+            return;
+        }
+        
+        long key = ((long)Math.min(a, b) << 32) | (long)Math.max(a, b);
+        ArrayList<Integer> owners = edges.get(key);
+        if(owners == null)
+        {
+            owners = new ArrayList<Integer>(2);
+            edges.put(key, owners);
+        }
+        owners.add(owner);
+    }
+}
@@ -0,0 +1,79 @@
+package util;
+
+import core.*;
+import java.util.*;
+
+/**
+ * Benannte Teilmenge der im Asset-Manifest registrierten Meshes.
+ * Meshes werden erst beim ersten Zugriff ber den ResourceManager geladen; Keys anderer Sets werden nicht herausgegeben.
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 12.01.2022
+ */
+public class MeshSet
+{
+    private ResourceManager _resourceManager;
+    private String _name;
+    private HashSet<String> _keys;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse MeshSet
+     * @param resourceManager ResourceManager, ber den die Meshes geladen werden
+     * @param name Name des Sets im Manifest
+     * @param keys Keys aller Meshes des Sets
+     */
+    public MeshSet(ResourceManager resourceManager, String name, Collection<String> keys)
+    {
+        _resourceManager = resourceManager;
+        _name = name;
+        _keys = new HashSet<String>(keys);
+    }
+    
+    /**
+     * Gibt das Mesh mit einem bestimmten Key zurck und ldt es ggf.
+     * @param key Key des Meshes im Manifest
+     * @return Mesh oder null, falls der Key nicht zu diesem Set gehrt
+     */
+    public Mesh get(String key)
+    {
+        if(!_keys.contains(key))
+        {
+            return null;
+        }
+        return _resourceManager.getMesh(key);
+    }
+    
+    /**
+     * Ordnet alle bereits geladenen Meshes des Sets ihrem Key zu, ohne weitere Meshes zu laden
+     * @return Zuordnung von Mesh-Instanz zu Key
+     */
+    public IdentityHashMap<Mesh, String> getLoadedKeys()
+    {
+        IdentityHashMap<Mesh, String> loadedKeys = new IdentityHashMap<Mesh, String>();
+        for(String key : _keys)
+        {
+            Mesh mesh = _resourceManager.getCachedMesh(key);
+            if(mesh != null)
+            {
+                loadedKeys.put(mesh, key);
+            }
+        }
+        return loadedKeys;
+    }
+    
+    /**
+     * Fordert alle Meshes des Sets im Hintergrund an
+     */
+    public void prefetch()
+    {
+        _resourceManager.prefetchMeshSet(_name);
+    }
+    
+    /**
+     * @return Name des Sets im Manifest
+     */
+    public String getName()
+    {
+        return _name;
+    }
+}
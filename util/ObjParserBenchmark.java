@@ -0,0 +1,192 @@
+package util;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Vergleicht den Durchsatz des Byte-Scanners von WavefrontObjectLoader mit dem frheren, auf String.split basierenden Parser.
+ * Gemessen wird ber alle .obj-Dateien unter res/models (inklusive t_34_obj.obj und monkey.obj).
+ * Aufruf: java util.ObjParserBenchmark [Modellverzeichnis] [Durchlufe]
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 11.01.2022
+ */
+public class ObjParserBenchmark
+{
+    private static final int WARMUP_RUNS = 5;
+    
+    // Summe aller Ergebnisse beider Parser; wird am Ende ausgegeben, damit keine Messung wegoptimiert werden kann
+    private static long _sink;
+    
+    /**
+     * Fhrt den Benchmark aus
+     * @param args optional: Modellverzeichnis und Anzahl der gemessenen Durchlufe
+     */
+    public static void main(String[] args) throws IOException
+    {
+        String directory = (args.length > 0) ? args[0] : Directory.MODEL;
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 20;
+        
+        // Alle Dateien vorab in den Speicher laden, damit nur das Parsen gemessen wird
+        ArrayList<byte[]> files = new ArrayList<byte[]>();
+        collect(new File(directory), files);
+        long totalBytes = 0;
+        for(byte[] data : files)
+        {
+            totalBytes += data.length;
+        }
+        System.out.println(files.size() + " files, " + totalBytes / 1024 + " KiB");
+        
+        WavefrontObjectLoader loader = new WavefrontObjectLoader();
+        
+        for(int i = 0; i < WARMUP_RUNS; i++)
+        {
+            _sink += runLegacy(files);
+            _sink += runStreaming(loader, files, false);
+            _sink += runStreaming(loader, files, true);
+        }
+        
+        report("legacy split parser", measureLegacy(files, runs), totalBytes, runs);
+        report("streaming parser", measureStreaming(loader, files, runs, false), totalBytes, runs);
+        report("streaming parser + mesh build", measureStreaming(loader, files, runs, true), totalBytes, runs);
+        System.out.println("checksum: " + _sink);
+    }
+    
+    /**
+     * Misst die Laufzeit des frheren Parsers
+     * @param files Dateiinhalte
+     * @param runs Anzahl der Durchlufe
+     * @return Gesamtzeit in Nanosekunden
+     */
+    private static long measureLegacy(ArrayList<byte[]> files, int runs) throws IOException
+    {
+        long start = System.nanoTime();
+        for(int i = 0; i < runs; i++)
+        {
+            _sink += runLegacy(files);
+        }
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * Misst die Laufzeit des Byte-Scanners
+     * @param loader Loader
+     * @param files Dateiinhalte
+     * @param runs Anzahl der Durchlufe
+     * @param buildMesh wenn true, wird zustzlich das Mesh erstellt
+     * @return Gesamtzeit in Nanosekunden
+     */
+    private static long measureStreaming(WavefrontObjectLoader loader, ArrayList<byte[]> files, int runs, boolean buildMesh)
+    {
+        long start = System.nanoTime();
+        for(int i = 0; i < runs; i++)
+        {
+            _sink += runStreaming(loader, files, buildMesh);
+        }
+        return System.nanoTime() - start;
+    }
+    
+    /**
+     * Parst alle Dateien mit dem Byte-Scanner
+     * @param loader Loader
+     * @param files Dateiinhalte
+     * @param buildMesh wenn true, wird zustzlich das Mesh erstellt
+     * @return Summe der gelesenen Vertices (verhindert das Wegoptimieren)
+     */
+    private static long runStreaming(WavefrontObjectLoader loader, ArrayList<byte[]> files, boolean buildMesh)
+    {
+        long vertices = 0;
+        for(byte[] data : files)
+        {
+            loader.parse(data, data.length);
+            vertices += buildMesh ? loader.buildMesh().getVertexCount() : loader.getParsedVertexCount();
+        }
+        return vertices;
+    }
+    
+    /**
+     * Parst alle Dateien so, wie es der Loader vor dem Byte-Scanner getan hat (readLine, split, parseDouble/parseInt)
+     * @param files Dateiinhalte
+     * @return Summe der gelesenen Vertices (verhindert das Wegoptimieren)
+     */
+    private static long runLegacy(ArrayList<byte[]> files) throws IOException
+    {
+        long vertices = 0;
+        for(byte[] data : files)
+        {
+            ArrayList<Double> positions = new ArrayList<Double>();
+            ArrayList<int[]> indices = new ArrayList<int[]>();
+            BufferedReader br = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data)));
+            String strLine;
+            while((strLine = br.readLine()) != null)
+            {
+                String[] segments = strLine.split(" ");
+                try
+                {
+                    if(segments[0].equals("v"))
+                    {
+                        positions.add(Double.parseDouble(segments[1]));
+                        positions.add(Double.parseDouble(segments[2]));
+                        positions.add(Double.parseDouble(segments[3]));
+                    }
+                    else if(segments[0].equals("f") || segments[0].equals("l"))
+                    {
+                        int[] polygon = new int[segments.length - 1];
+                        for(int i = 0; i < polygon.length; i++)
+                        {
+                            polygon[i] = Integer.parseInt(segments[i + 1]);
+                        }
+                        indices.add(polygon);
+                    }
+                }
+                catch(NumberFormatException e)
+                {
+                    // Der frhere Parser brach an dieser Stelle ab; fr den Vergleich wird die Zeile bersprungen
+                }
+            }
+            vertices += positions.size() / 3;
+        }
+        return vertices;
+    }
+    
+    /**
+     * Gibt das Ergebnis einer Messung aus
+     * @param name Name der Variante
+     * @param nanos Gesamtzeit in Nanosekunden
+     * @param totalBytes Bytes pro Durchlauf
+     * @param runs Anzahl der Durchlufe
+     */
+    private static void report(String name, long nanos, long totalBytes, int runs)
+    {
+        double millisPerRun = nanos / 1e6 / runs;
+        double megabytesPerSecond = (totalBytes * (double)runs / (1024.0 * 1024.0)) / (nanos / 1e9);
+        System.out.println(String.format("%-32s %8.2f ms/run %8.1f MiB/s", name, millisPerRun, megabytesPerSecond));
+    }
+    
+    /**
+     * Liest rekursiv alle .obj-Dateien eines Verzeichnisses ein
+     * @param directory Verzeichnis
+     * @param files Liste, in die die Dateiinhalte eingefgt werden
+     */
+    private static void collect(File directory, ArrayList<byte[]> files) throws IOException
+    {
+        File[] entries = directory.listFiles();
+        if(entries == null)
+        {
+            return;
+        }
+        Arrays.sort(entries);
+        for(File entry : entries)
+        {
+            if(entry.isDirectory())
+            {
+                collect(entry, files);
+            }
+            else if(entry.getName().endsWith(".obj"))
+            {
+                files.add(Files.readAllBytes(entry.toPath()));
+            }
+        }
+    }
+}
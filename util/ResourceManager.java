@@ -1,191 +1,437 @@
 package util;
 
 import core.*;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 /**
- * Verwaltet das Laden von Ressourcendateien
+ * Verwaltet das Laden von Ressourcendateien.
+ * Welche Meshes und Soundquellen existieren, steht im Asset-Manifest (Directory.ASSET_MANIFEST).
+ * Assets werden beim ersten Zugriff geladen und bis zu einem Speicherbudget im LRU-Cache gehalten,
+ * Vorab-Anforderungen (z.B. beim Laden einer Map) werden nebenlufig auf einem begrenzten Thread-Pool abgearbeitet.
  * 
  * @author Lasse Huber-Saffer
- * @version 03.01.2022
+ * @version 12.01.2022
  */
 public class ResourceManager
 {
-    private WavefrontObjectLoader _objLoader;
+    // Namen der Mesh-Sets im Asset-Manifest
+    public static final String ENTITY_MESHES = "entity";
+    public static final String PARTICLE_MESHES = "particle";
+    public static final String TILE_MESHES = "tile";
+    public static final String VIEW_MODEL_MESHES = "view_model";
+    public static final String TITLE_SCREEN_MESHES = "title_screen";
+    
+    // Obergrenze fr die Anzahl gleichzeitig arbeitender Lade-Threads
+    private static final int MAX_LOADER_THREADS = 4;
+    // Geschtzter Speicherbedarf eines Meshes ohne Vertex- und Kantendaten in Bytes
+    private static final long MESH_OVERHEAD_BYTES = 128;
+    
+    private ExecutorService _executor;
+    
+    // Der Parser ist nicht threadsicher, daher erhlt jeder Lade-Thread eigene Instanzen
+    private ThreadLocal<WavefrontObjectLoader> _objLoader;
+    private ThreadLocal<MeshCache> _meshCache;
+    
+    private AssetManifest _manifest;
+    private LRUCache<String, Mesh> _meshes;
+    
+    // Laufende Vorab-Ladevorgnge
+    private HashMap<String, CompletableFuture<Mesh>> _pendingMeshes;
+    private HashMap<String, CompletableFuture<Void>> _pendingSounds;
+    
+    private AtomicInteger _submittedTasks;
+    private AtomicInteger _completedTasks;
     
     /**
-     * Konstruktor fr Objekte der Klasse ResourceManager
+     * Konstruktor fr Objekte der Klasse ResourceManager, verwendet das Standard-Manifest und -Speicherbudget
      */
     public ResourceManager()
     {
-        _objLoader = new WavefrontObjectLoader();
+        this(Directory.ASSET_MANIFEST, Game.MESH_MEMORY_BUDGET);
     }
     
     /**
-     * Ldt alle fr die Erstellung von Entities bentigten Meshes aus Dateien
-     * @return HashMap, in der die geladenen Meshes unter ihren jeweiligen Keys registriert sind
+     * Konstruktor fr Objekte der Klasse ResourceManager
+     * @param manifestPath Pfad des Asset-Manifests
+     * @param meshBudget Speicherbudget fr geladene Meshes in Bytes
      */
-    public HashMap<String, Mesh> loadEntityMeshes()
+    public ResourceManager(String manifestPath, long meshBudget)
     {
-        // Initialisierung der Entity Meshes
-        HashMap<String, Mesh> entityMeshes = new HashMap<String, Mesh>();
+        int threadCount = Math.max(1, Math.min(MAX_LOADER_THREADS, Runtime.getRuntime().availableProcessors()));
+        _executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory()
+        {
+            private int _threadCount = 0;
+            
+            public synchronized Thread newThread(Runnable task)
+            {
+                // Daemon-Threads halten das Programm beim Beenden nicht auf
+                Thread thread = new Thread(task, "ResourceLoader-" + _threadCount++);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        
+        _objLoader = new ThreadLocal<WavefrontObjectLoader>()
+        {
+            protected WavefrontObjectLoader initialValue()
+            {
+                return new WavefrontObjectLoader();
+            }
+        };
+        _meshCache = new ThreadLocal<MeshCache>()
+        {
+            protected MeshCache initialValue()
+            {
+                return new MeshCache(_objLoader.get());
+            }
+        };
         
-        entityMeshes.put("turret_inactive", _objLoader.loadFromFile(Directory.MODEL + "turret/turret_inactive.obj"));
-        entityMeshes.put("turret_active", _objLoader.loadFromFile(Directory.MODEL + "turret/turret_active.obj"));
-        entityMeshes.put("turret_muzzle_flash", _objLoader.loadFromFile(Directory.MODEL + "turret/turret_muzzle_flash.obj"));
-        entityMeshes.put("drone_active", _objLoader.loadFromFile(Directory.MODEL + "drone/drone.obj"));
-        entityMeshes.put("drone_inactive", _objLoader.loadFromFile(Directory.MODEL + "drone/drone_destroyed.obj"));
-        entityMeshes.put("drone_rotor", _objLoader.loadFromFile(Directory.MODEL + "drone/drone_rotor.obj"));
-        entityMeshes.put("reactor_core", _objLoader.loadFromFile(Directory.MODEL + "reactor/reactor_core.obj"));
-        entityMeshes.put("reactor_pillar", _objLoader.loadFromFile(Directory.MODEL + "reactor/reactor_pillar.obj"));
-        entityMeshes.put("health_powerup", _objLoader.loadFromFile(Directory.MODEL + "item/health_powerup.obj"));
-        entityMeshes.put("key", _objLoader.loadFromFile(Directory.MODEL + "item/key.obj"));
+        _manifest = new AssetManifest(manifestPath);
+        _meshes = new LRUCache<String, Mesh>(meshBudget);
         
-        return entityMeshes;
+        _pendingMeshes = new HashMap<String, CompletableFuture<Mesh>>();
+        _pendingSounds = new HashMap<String, CompletableFuture<Void>>();
+        
+        _submittedTasks = new AtomicInteger(0);
+        _completedTasks = new AtomicInteger(0);
     }
     
     /**
-     * Ldt alle fr die Erstellung von Partikeln bentigten Meshes aus Dateien
-     * @return HashMap, in der die geladenen Meshes unter ihren jeweiligen Keys registriert sind
+     * Gibt den Fortschritt aller seit dem letzten Leerlauf gestarteten Vorab-Ladevorgnge zurck
+     * @return Anteil der abgeschlossenen Ladeaufgaben [0.0, 1.0], 1.0 wenn nichts geladen wird
      */
-    public HashMap<String, Mesh> loadParticleMeshes()
+    public double getProgress()
     {
-        // Initialisierung der Entity Meshes
-        HashMap<String, Mesh> particleMeshes = new HashMap<String, Mesh>();
-        
-        particleMeshes.put("drone_hit_particle", _objLoader.loadFromFile(Directory.MODEL + "particle/cross.obj"));
-        particleMeshes.put("reactor_pillar_emission", _objLoader.loadFromFile(Directory.MODEL + "particle/horizontal_hex.obj"));
-        
-        return particleMeshes;
+        int submitted = _submittedTasks.get();
+        if(submitted == 0)
+        {
+            return 1.0;
+        }
+        return Math.min(1.0, (double)_completedTasks.get() / submitted);
     }
     
     /**
-     * Ldt alle fr die Konstruktion der Mapgeometrie bentigten Meshes aus Dateien
-     * @return HashMap, in der die geladenen Meshes unter ihren jeweiligen Keys registriert sind
+     * Gibt zurck, ob noch Ladeaufgaben ausstehen
+     * @return Wahrheitswert der Aussage "Es werden noch Ressourcen geladen"
      */
-    public HashMap<String, Mesh> loadTileMeshes()
+    public boolean isLoading()
     {
-        // Initialisierung der Tile Meshes
-        HashMap<String, Mesh> tileMeshes = new HashMap<String, Mesh>();
-        
-        tileMeshes.put("dirt_floor_borderless", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_borderless.obj"));
-        tileMeshes.put("dirt_floor_borderless_lod1", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_borderless_lod1.obj"));
-        tileMeshes.put("dirt_floor_borderless_lod2", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_borderless_lod2.obj"));
-        tileMeshes.put("dirt_floor_borderless_lod3", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_borderless_lod3.obj"));
-        tileMeshes.put("brick_wall", _objLoader.loadFromFile(Directory.MODEL + "brick_wall.obj"));
-        tileMeshes.put("wooden_door", _objLoader.loadFromFile(Directory.MODEL + "wooden_door.obj"));
-        tileMeshes.put("wooden_door_handle", _objLoader.loadFromFile(Directory.MODEL + "wooden_door_handle.obj"));
-        tileMeshes.put("wooden_door_open", _objLoader.loadFromFile(Directory.MODEL + "wooden_door_open.obj"));
-        tileMeshes.put("wooden_door_handle_open", _objLoader.loadFromFile(Directory.MODEL + "wooden_door_handle_open.obj"));
-        tileMeshes.put("door_lock", _objLoader.loadFromFile(Directory.MODEL + "door_lock.obj"));
-        tileMeshes.put("cyber_floor", _objLoader.loadFromFile(Directory.MODEL + "cyber_floor.obj"));
-        tileMeshes.put("dirt_floor_grassdetail", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_grassdetail.obj"));
-        tileMeshes.put("road_markings_x", _objLoader.loadFromFile(Directory.MODEL + "road_markings_x.obj"));
-        tileMeshes.put("dirt_floor_grassdetail2", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_grassdetail2.obj"));
-        tileMeshes.put("dirt_floor_stonedetail", _objLoader.loadFromFile(Directory.MODEL + "dirt_floor_stonedetail.obj"));
-        tileMeshes.put("road_markings_z", _objLoader.loadFromFile(Directory.MODEL + "road_markings_z.obj"));
-        
-        return tileMeshes;
+        return _completedTasks.get() < _submittedTasks.get();
     }
     
     /**
-     * Ldt alle bentigten Soundquellen aus Dateien in eine gegebene SoundEngine
-     * @param soundEngine SoundEngine, in die die Soundquellen hineingeladen werden
+     * @return das eingelesene Asset-Manifest
      */
-    public void loadSoundSources(SoundEngine soundEngine)
+    public AssetManifest getManifest()
     {
-        soundEngine.loadSource("music1", Directory.SOUND + "/music/to_the_front.mp3");
-        
-        soundEngine.loadSource("wooden_door_open", Directory.SOUND + "tile/wooden_door_open.wav");
-        soundEngine.loadSource("wooden_door_close", Directory.SOUND + "tile/wooden_door_close.wav");
-        
-        soundEngine.loadSource("pistol1", Directory.SOUND + "weapon/pistol/Laser_Shoot.wav");
-        soundEngine.loadSource("pistol2", Directory.SOUND + "weapon/pistol/Laser_Shoot3.wav");
-        soundEngine.loadSource("pistol3", Directory.SOUND + "weapon/pistol/Laser_Shoot4.wav");
-        soundEngine.loadSource("pistol4", Directory.SOUND + "weapon/pistol/Laser_Shoot5.wav");
-        
-        soundEngine.loadSource("hit", Directory.SOUND + "weapon/hit.wav");
-        
-        soundEngine.loadSource("heavy_shot1", Directory.SOUND + "turret/shot/Heavy_Shot.wav");
-        soundEngine.loadSource("heavy_shot2", Directory.SOUND + "turret/shot/Heavy_Shot2.wav");
-        soundEngine.loadSource("heavy_shot3", Directory.SOUND + "turret/shot/Heavy_Shot3.wav");
-        
-        soundEngine.loadSource("turret_reloading", Directory.SOUND + "turret/reload/reloading.wav");
-        soundEngine.loadSource("turret_tactical_reload", Directory.SOUND + "turret/reload/tactical_reload.wav");
-        soundEngine.loadSource("turret_restocking_ammunition", Directory.SOUND + "turret/reload/restocking_ammunition.wav");
-        
-        soundEngine.loadSource("turret_system_failure", Directory.SOUND + "turret/death/system_failure.wav");
-        soundEngine.loadSource("turret_offline", Directory.SOUND + "turret/death/turret_offline.wav");
+        return _manifest;
+    }
+    
+    /**
+     * Setzt das Speicherbudget fr geladene Meshes und verwirft ggf. sofort die am lngsten nicht benutzten
+     * @param budget Speicherbudget in Bytes
+     */
+    public void setMeshBudget(long budget)
+    {
+        _meshes.setBudget(budget);
+    }
+    
+    /**
+     * @return geschtzter Speicherverbrauch aller im Cache gehaltenen Meshes in Bytes
+     */
+    public long getMeshMemoryUsage()
+    {
+        return _meshes.getUsedBytes();
+    }
+    
+    /**
+     * Berechnet einen Kennwert ber Pfad, Gre und nderungszeitpunkt aller Dateien eines Mesh-Sets.
+     * Aus den Meshes abgeleitete Caches (z.B. kompilierte Levels) werden ungltig, sobald er sich ndert.
+     * @param setName Name des Sets im Manifest
+     * @return Kennwert der Quelldateien des Sets
+     */
+    public long getMeshSetStamp(String setName)
+    {
+        long stamp = 17;
+        for(String key : _manifest.getMeshSet(setName))
+        {
+            String filePath = _manifest.getMeshPath(key);
+            File file = new File(filePath);
+            stamp = stamp * 31 + filePath.hashCode();
+            stamp = stamp * 31 + file.length();
+            stamp = stamp * 31 + file.lastModified();
+        }
+        return stamp;
+    }
+    
+    /**
+     * Gibt ein Mesh-Set des Manifests zurck, dessen Meshes erst beim ersten Zugriff geladen werden
+     * @param setName Name des Sets (z.B. ResourceManager.TILE_MESHES)
+     * @return MeshSet
+     */
+    public MeshSet getMeshSet(String setName)
+    {
+        return new MeshSet(this, setName, _manifest.getMeshSet(setName));
+    }
+    
+    /**
+     * Gibt das Mesh mit einem bestimmten Key zurck.
+     * Ist es weder im Cache noch in Vorbereitung, wird es im aufrufenden Thread geladen.
+     * @param key Key des Meshes im Manifest
+     * @return Mesh oder null, falls der Key nicht im Manifest steht
+     */
+    public Mesh getMesh(String key)
+    {
+        Mesh mesh = _meshes.get(key);
+        if(mesh != null)
+        {
+            return mesh;
+        }
         
-        soundEngine.loadSource("drone_enemy_detected", Directory.SOUND + "drone/enemy_detected/enemy_detected.wav");
-        soundEngine.loadSource("drone_hover", Directory.SOUND + "drone/hover.wav");
+        // Laufenden Vorab-Ladevorgang abwarten, statt doppelt zu laden
+        CompletableFuture<Mesh> pending;
+        synchronized(_pendingMeshes)
+        {
+            pending = _pendingMeshes.get(key);
+        }
+        if(pending != null)
+        {
+            return await(pending);
+        }
         
-        soundEngine.loadSource("reactor_explode", Directory.SOUND + "reactor/explosion.wav");
-        soundEngine.loadSource("reactor_hurt1", Directory.SOUND + "reactor/hurt/hurt1.wav");
-        soundEngine.loadSource("reactor_hurt2", Directory.SOUND + "reactor/hurt/hurt2.wav");
-        soundEngine.loadSource("reactor_hurt3", Directory.SOUND + "reactor/hurt/hurt3.wav");
-        soundEngine.loadSource("reactor_hurt4", Directory.SOUND + "reactor/hurt/hurt4.wav");
-        soundEngine.loadSource("reactor_hurt5", Directory.SOUND + "reactor/hurt/hurt5.wav");
+        String filePath = _manifest.getMeshPath(key);
+        if(filePath == null)
+        {
+            return null;
+        }
         
-        soundEngine.loadSource("health_powerup_collected", Directory.SOUND + "item/health_powerup_collected.wav");
+        mesh = loadMesh(filePath);
+        _meshes.put(key, mesh, estimateSize(mesh));
+        return mesh;
+    }
+    
+    /**
+     * Gibt das Mesh mit einem bestimmten Key zurck, sofern es bereits im Cache liegt, ohne es zu laden
+     * @param key Key des Meshes im Manifest
+     * @return Mesh oder null, falls es nicht im Cache liegt
+     */
+    public Mesh getCachedMesh(String key)
+    {
+        return _meshes.get(key);
+    }
+    
+    /**
+     * Fordert Meshes an, die nebenlufig in den Cache geladen werden.
+     * Bereits geladene oder angeforderte Meshes sowie unbekannte Keys werden bersprungen.
+     * @param keys Keys der Meshes im Manifest
+     * @return Future, das nach dem Laden aller angeforderten Meshes abgeschlossen ist
+     */
+    public Future<Void> prefetchMeshes(Collection<String> keys)
+    {
+        ArrayList<CompletableFuture<Mesh>> tasks = new ArrayList<CompletableFuture<Mesh>>();
         
-        soundEngine.loadSource("pain1", Directory.SOUND + "player/pain1.wav");
-        soundEngine.loadSource("pain2", Directory.SOUND + "player/pain2.wav");
-        soundEngine.loadSource("pain3", Directory.SOUND + "player/pain3.wav");
-        soundEngine.loadSource("pain4", Directory.SOUND + "player/pain4.wav");
-        soundEngine.loadSource("pain5", Directory.SOUND + "player/pain5.wav");
-        soundEngine.loadSource("pain6", Directory.SOUND + "player/pain6.wav");
-        soundEngine.loadSource("die1", Directory.SOUND + "player/die1.wav");
-        soundEngine.loadSource("die2", Directory.SOUND + "player/die2.wav");
+        synchronized(_pendingMeshes)
+        {
+            for(final String key : keys)
+            {
+                CompletableFuture<Mesh> task = _pendingMeshes.get(key);
+                final String filePath = _manifest.getMeshPath(key);
+                
+                if(task == null && filePath != null && !_meshes.containsKey(key))
+                {
+                    countSubmittedTasks(1);
+                    task = CompletableFuture.supplyAsync(new Supplier<Mesh>()
+                    {
+                        public Mesh get()
+                        {
+                            try
+                            {
+                                Mesh mesh = loadMesh(filePath);
+                                _meshes.put(key, mesh, estimateSize(mesh));
+                                return mesh;
+                            }
+                            finally
+                            {
+                                synchronized(_pendingMeshes)
+                                {
+                                    _pendingMeshes.remove(key);
+                                }
+                                _completedTasks.incrementAndGet();
+                            }
+                        }
+                    }, _executor);
+                    _pendingMeshes.put(key, task);
+                }
+                
+                if(task != null)
+                {
+                    tasks.add(task);
+                }
+            }
+        }
         
-        // Soundgruppen erstellen
-        soundEngine.createGroup("pistol_shot", new String[]{"pistol1", "pistol2", "pistol3", "pistol4"});
-        soundEngine.createGroup("heavy_shot", new String[]{"heavy_shot1", "heavy_shot2", "heavy_shot3"});
-        soundEngine.createGroup("turret_reload", new String[]{"turret_reloading", "turret_reloading", "turret_reloading", "turret_restocking_ammunition", "turret_tactical_reload"});
-        soundEngine.createGroup("turret_death", new String[]{"turret_system_failure", "turret_offline", "turret_offline"});
-        soundEngine.createGroup("reactor_hurt_light", new String[]{"reactor_hurt1", "reactor_hurt2"});
-        soundEngine.createGroup("reactor_hurt_medium", new String[]{"reactor_hurt3", "reactor_hurt3", "reactor_hurt4"});
-        soundEngine.createGroup("reactor_hurt_heavy", new String[]{"reactor_hurt4", "reactor_hurt5"});
-        soundEngine.createGroup("pain", new String[]{"pain1", "pain2", "pain3", "pain4", "pain5", "pain6"});
-        soundEngine.createGroup("die", new String[]{"die1", "die2"});
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()]));
     }
     
     /**
-     * Ldt alle fr das Viewmodel bentigten Meshes aus Dateien
-     * @return HashMap, in der die geladenen Meshes unter ihren jeweiligen Keys registriert sind
+     * Fordert alle Meshes eines Sets an
+     * @param setName Name des Sets im Manifest
+     * @return Future, das nach dem Laden aller Meshes des Sets abgeschlossen ist
      */
-    public HashMap<String, Mesh> loadViewModelMeshes()
+    public Future<Void> prefetchMeshSet(String setName)
     {
-        // Initialisierung der Tile Meshes
-        HashMap<String, Mesh> viewModelMeshes = new HashMap<String, Mesh>();
+        return prefetchMeshes(_manifest.getMeshSet(setName));
+    }
+    
+    /**
+     * Fordert alle Meshes und Soundquellen an, die laut Manifest von einer Map verwendet werden
+     * @param mapName Name der Map (KEIN Pfad)
+     * @param soundEngine SoundEngine, in die die Soundquellen hineingeladen werden
+     */
+    public void prefetchMap(String mapName, SoundEngine soundEngine)
+    {
+        prefetchMeshes(_manifest.getMeshKeysForMap(mapName));
         
-        viewModelMeshes.put("muzzleFlash", _objLoader.loadFromFile(Directory.MODEL + "gun/muzzleFlash.obj"));
-        viewModelMeshes.put("pistolMain", _objLoader.loadFromFile(Directory.MODEL + "gun/new/pistolMain.obj"));
-        viewModelMeshes.put("pistolDetails", _objLoader.loadFromFile(Directory.MODEL + "gun/new/pistolDetails.obj"));
-        viewModelMeshes.put("pistolHandsIdle", _objLoader.loadFromFile(Directory.MODEL + "gun/new/pistolHandsIdle.obj"));
-        viewModelMeshes.put("pistolHandsShot", _objLoader.loadFromFile(Directory.MODEL + "gun/new/pistolHandsShot.obj"));
-        viewModelMeshes.put("primaryMain", _objLoader.loadFromFile(Directory.MODEL + "gun/new/primaryMain.obj"));
-        viewModelMeshes.put("primaryDetails", _objLoader.loadFromFile(Directory.MODEL + "gun/new/primaryDetails.obj"));
-        viewModelMeshes.put("primaryHandsIdle", _objLoader.loadFromFile(Directory.MODEL + "gun/new/primaryHandsIdle.obj"));
-        viewModelMeshes.put("primaryHandsShot", _objLoader.loadFromFile(Directory.MODEL + "gun/new/primaryHandsShot.obj"));
-        viewModelMeshes.put("sniperMain", _objLoader.loadFromFile(Directory.MODEL + "gun/new/sniperMain.obj"));
-        viewModelMeshes.put("sniperDetails", _objLoader.loadFromFile(Directory.MODEL + "gun/new/sniperDetails.obj"));
+        registerSoundSources(soundEngine);
+        prefetchSounds(_manifest.getSoundKeysForMap(mapName), soundEngine);
+    }
+    
+    /**
+     * Registriert die Pfade aller Soundquellen und alle Soundgruppen des Manifests in einer SoundEngine.
+     * Die Quellen selbst werden erst beim ersten Abspielen oder durch prefetchSounds() geladen.
+     * @param soundEngine SoundEngine, in der die Quellen und Gruppen registriert werden
+     */
+    public void registerSoundSources(SoundEngine soundEngine)
+    {
+        for(String key : _manifest.getSoundKeys())
+        {
+            soundEngine.registerSource(key, _manifest.getSoundPath(key));
+        }
         
-        return viewModelMeshes;
+        for(Map.Entry<String, String[]> group : _manifest.getSoundGroups().entrySet())
+        {
+            if(!soundEngine.containsGroup(group.getKey()))
+            {
+                soundEngine.createGroup(group.getKey(), group.getValue());
+            }
+        }
     }
     
     /**
-     * Ldt alle fr den Titelbildschirm bentigten Meshes aus Dateien
-     * @return HashMap, in der die geladenen Meshes unter ihren jeweiligen Keys registriert sind
+     * Fordert Soundquellen an, die nebenlufig in eine SoundEngine geladen werden.
+     * Bereits geladene oder angeforderte Quellen sowie unbekannte Keys werden bersprungen.
+     * @param keys Keys der Soundquellen im Manifest
+     * @param soundEngine SoundEngine, in die die Soundquellen hineingeladen werden
+     * @return Future, das nach dem Laden aller angeforderten Soundquellen abgeschlossen ist
      */
-    public HashMap<String, Mesh> loadTitleScreenMeshes()
+    public Future<Void> prefetchSounds(Collection<String> keys, final SoundEngine soundEngine)
     {
-        // Initialisierung der Tile Meshes
-        HashMap<String, Mesh> titleMeshes = new HashMap<String, Mesh>();
+        ArrayList<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
         
-        titleMeshes.put("title", _objLoader.loadFromFile(Directory.MODEL + "title.obj"));
-        titleMeshes.put("mauern", _objLoader.loadFromFile(Directory.MODEL + "mauern.obj"));
+        synchronized(_pendingSounds)
+        {
+            for(final String key : keys)
+            {
+                CompletableFuture<Void> task = _pendingSounds.get(key);
+                final String filePath = _manifest.getSoundPath(key);
+                
+                if(task == null && filePath != null && !soundEngine.isSourceLoaded(key))
+                {
+                    countSubmittedTasks(1);
+                    task = CompletableFuture.runAsync(new Runnable()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                soundEngine.loadSource(key, filePath);
+                            }
+                            finally
+                            {
+                                synchronized(_pendingSounds)
+                                {
+                                    _pendingSounds.remove(key);
+                                }
+                                _completedTasks.incrementAndGet();
+                            }
+                        }
+                    }, _executor);
+                    _pendingSounds.put(key, task);
+                }
+                
+                if(task != null)
+                {
+                    tasks.add(task);
+                }
+            }
+        }
         
-        return titleMeshes;
+        return CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()]));
+    }
+    
+    /**
+     * Registriert neu eingereihte Ladeaufgaben fr die Fortschrittsanzeige.
+     * Ist der Pool im Leerlauf, beginnt die Zhlung von vorn.
+     * @param count Anzahl der neuen Aufgaben
+     */
+    private synchronized void countSubmittedTasks(int count)
+    {
+        if(_completedTasks.get() >= _submittedTasks.get())
+        {
+            _completedTasks.set(0);
+            _submittedTasks.set(0);
+        }
+        _submittedTasks.addAndGet(count);
+    }
+    
+    /**
+     * Wartet auf ein Future und reicht Fehler des Ladevorgangs als RuntimeException weiter
+     * @param future abzuwartendes Future
+     * @return Ergebnis des Futures
+     */
+    private static <T> T await(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for resources", e);
+        }
+        catch(ExecutionException e)
+        {
+            throw new RuntimeException("Failed to load resources", e.getCause());
+        }
+    }
+    
+    /**
+     * Ldt ein Mesh, je nach Game.USE_MESH_CACHE ber den Binr-Cache oder direkt aus der .obj-Datei.
+     * Verwendet die Parser-Instanzen des aufrufenden Threads.
+     * @param filePath Pfad der .obj-Datei
+     * @return geladenes Mesh
+     */
+    private Mesh loadMesh(String filePath)
+    {
+        if(Game.USE_MESH_CACHE)
+        {
+            return _meshCache.get().load(filePath);
+        }
+        return _objLoader.get().loadFromFile(filePath);
+    }
+    
+    /**
+     * Schtzt den Speicherbedarf eines Meshes
+     * @param mesh Mesh
+     * @return geschtzter Speicherbedarf in Bytes
+     */
+    private static long estimateSize(Mesh mesh)
+    {
+        return MESH_OVERHEAD_BYTES + 8L * mesh.getPositions().length + 4L * mesh.getEdges().length;
     }
 }
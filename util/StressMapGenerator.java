@@ -0,0 +1,539 @@
+package util;
+
+import game.*;
+import core.*;
+import javafx.util.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Erzeugt prozedurale Maps beliebiger Gre, um das Skalierungsverhalten von Laden, Rendering, Kollisionen und Pathfinding zu messen.
+ * Die Rume liegen in einem Raster und teilen sich ihre Wnde. Ein zuflliger Spannbaum aus Tren verbindet alle Rume,
+ * weitere Tren werden mit der eingestellten Trdichte ergnzt. Die Maps verwenden ausschlielich die Tile-Konstanten
+ * und knnen daher als _tile.csv/_function.csv-Paar gespeichert und unverndert vom MapHandler geladen werden.
+ * Aufruf: java util.StressMapGenerator Mapname Raumanzahl [Seed]
+ *         java util.StressMapGenerator --benchmark [Seed]
+ * 
+ * @author Lasse Huber-Saffer
+ * @version 16.01.2022
+ */
+public class StressMapGenerator
+{
+    // Raumanzahlen des Benchmarks
+    private static final int[] BENCHMARK_ROOM_COUNTS = { 10, 100, 1000, 10000 };
+    
+    // Layout
+    private int _roomCount;
+    private int _roomSize;
+    
+    // Dichten (Wahrscheinlichkeiten bzw. erwartete Anzahl je Raum)
+    private double _doorDensity;
+    private double _wallDensity;
+    private double _turretsPerRoom;
+    private double _dronesPerRoom;
+    private double _pickupsPerRoom;
+    private boolean _spawnReactor;
+    
+    private long _seed;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse StressMapGenerator mit Standardwerten
+     * @param roomCount Anzahl der Rume
+     * @param seed Startwert des Zufallsgenerators (gleicher Seed -> gleiche Map)
+     */
+    public StressMapGenerator(int roomCount, long seed)
+    {
+        setRoomCount(roomCount);
+        _roomSize = 8;
+        _doorDensity = 0.3;
+        _wallDensity = 0.15;
+        _turretsPerRoom = 0.5;
+        _dronesPerRoom = 0.3;
+        _pickupsPerRoom = 0.2;
+        _spawnReactor = true;
+        _seed = seed;
+    }
+    
+    /**
+     * Setzt die Anzahl der Rume
+     * @param roomCount Anzahl der Rume (mindestens 1)
+     */
+    public void setRoomCount(int roomCount)
+    {
+        if(roomCount < 1) throw new IllegalArgumentException("stress map requires at least one room, was " + roomCount);
+        _roomCount = roomCount;
+    }
+    
+    /**
+     * Setzt die Kantenlnge der begehbaren Flche jedes Raums
+     * @param roomSize Kantenlnge in Tiles (mindestens 4)
+     */
+    public void setRoomSize(int roomSize)
+    {
+        if(roomSize < 4) throw new IllegalArgumentException("stress map rooms must be at least 4 tiles wide, was " + roomSize);
+        _roomSize = roomSize;
+    }
+    
+    /**
+     * Setzt die Wahrscheinlichkeit, mit der zwei benachbarte Rume zustzlich zum Spannbaum durch eine Tr verbunden werden
+     * @param doorDensity Wahrscheinlichkeit zwischen 0 und 1
+     */
+    public void setDoorDensity(double doorDensity)
+    {
+        _doorDensity = doorDensity;
+    }
+    
+    /**
+     * Setzt die Wahrscheinlichkeit, mit der eine mgliche Sulenposition im Raum mit einer Wand belegt wird.
+     * Sulen stehen nur auf jeder zweiten Tile in beiden Richtungen, damit die Rume zusammenhngend bleiben.
+     * @param wallDensity Wahrscheinlichkeit zwischen 0 und 1
+     */
+    public void setWallDensity(double wallDensity)
+    {
+        _wallDensity = wallDensity;
+    }
+    
+    /**
+     * Setzt die erwartete Anzahl an Entities je Raum
+     * @param turretsPerRoom erwartete Anzahl aktiver Turrets
+     * @param dronesPerRoom erwartete Anzahl aktiver Drohnen
+     * @param pickupsPerRoom erwartete Anzahl an Health-Powerups
+     */
+    public void setEntityDensity(double turretsPerRoom, double dronesPerRoom, double pickupsPerRoom)
+    {
+        _turretsPerRoom = turretsPerRoom;
+        _dronesPerRoom = dronesPerRoom;
+        _pickupsPerRoom = pickupsPerRoom;
+    }
+    
+    /**
+     * Legt fest, ob im vom Spawn am weitesten entfernten Raum ein Reaktorkern platziert wird
+     * @param spawnReactor true, wenn ein Reaktorkern platziert werden soll
+     */
+    public void setSpawnReactor(boolean spawnReactor)
+    {
+        _spawnReactor = spawnReactor;
+    }
+    
+    /**
+     * Erzeugt die Map im Speicher
+     * @return GridMap, die wie eine geladene Map mit populate() befllt werden kann
+     */
+    public GridMap generate()
+    {
+        Pair<MapLayer, MapLayer> layers = generateLayers();
+        return new GridMap(layers.getKey(), layers.getValue());
+    }
+    
+    /**
+     * Erzeugt die Map und speichert sie als .csv-Paar, das vom MapHandler geladen werden kann
+     * @param directory Zielverzeichnis (z.B. Directory.MAP)
+     * @param mapName Name der Map
+     */
+    public void save(String directory, String mapName) throws IOException
+    {
+        Pair<MapLayer, MapLayer> layers = generateLayers();
+        writeLayer(layers.getKey(), directory + mapName + MapHandler.TILE_LAYER_SUFFIX);
+        writeLayer(layers.getValue(), directory + mapName + MapHandler.FUNCTION_LAYER_SUFFIX);
+    }
+    
+    /**
+     * Erzeugt Tile- und Function-Layer der Map
+     * @return Paar aus Tile-Layer und Function-Layer
+     */
+    public Pair<MapLayer, MapLayer> generateLayers()
+    {
+        Random random = new Random(_seed);
+        
+        // Rume zeilenweise in einem mglichst quadratischen Raster anordnen
+        int columns = (int)Math.ceil(Math.sqrt(_roomCount));
+        int rows = (_roomCount + columns - 1) / columns;
+        int pitch = _roomSize + 1;
+        int width = columns * pitch + 1;
+        int height = rows * pitch + 1;
+        
+        int[] tiles = new int[width * height];
+        int[] functions = new int[width * height];
+        Arrays.fill(tiles, Tile.NONE);
+        Arrays.fill(functions, Tile.NONE);
+        
+        // Boden und umgebende Wnde jedes Raums
+        for(int room = 0; room < _roomCount; room++)
+        {
+            int originX = (room % columns) * pitch;
+            int originZ = (room / columns) * pitch;
+            for(int z = 0; z <= pitch; z++)
+            {
+                for(int x = 0; x <= pitch; x++)
+                {
+                    boolean border = (x == 0 || z == 0 || x == pitch || z == pitch);
+                    tiles[(originZ + z) * width + originX + x] = border ? Tile.BRICK_WALL : Tile.DIRT_FLOOR;
+                }
+            }
+        }
+        
+        // Tren: zuflliger Spannbaum (alle Rume erreichbar) und zustzliche Tren nach Trdichte
+        ArrayList<ArrayList<Integer>> neighbours = new ArrayList<ArrayList<Integer>>();
+        for(int room = 0; room < _roomCount; room++)
+        {
+            neighbours.add(new ArrayList<Integer>());
+        }
+        boolean[] connected = new boolean[_roomCount];
+        ArrayDeque<Integer> stack = new ArrayDeque<Integer>();
+        connected[0] = true;
+        stack.push(0);
+        while(!stack.isEmpty())
+        {
+            int room = stack.peek();
+            ArrayList<Integer> candidates = new ArrayList<Integer>();
+            for(int other : getAdjacentRooms(room, columns))
+            {
+                if(!connected[other])
+                {
+                    candidates.add(other);
+                }
+            }
+            
+            if(candidates.isEmpty())
+            {
+                stack.pop();
+                continue;
+            }
+            
+            int other = candidates.get(random.nextInt(candidates.size()));
+            connected[other] = true;
+            addDoor(room, other, neighbours, tiles, width, columns, pitch);
+            stack.push(other);
+        }
+        for(int room = 0; room < _roomCount; room++)
+        {
+            for(int other : getAdjacentRooms(room, columns))
+            {
+                if(other > room && !neighbours.get(room).contains(other) && random.nextDouble() < _doorDensity)
+                {
+                    addDoor(room, other, neighbours, tiles, width, columns, pitch);
+                }
+            }
+        }
+        
+        // Reaktorkern im vom Spawn (Raum 0) aus am weitesten entfernten Raum
+        int reactorRoom = _spawnReactor ? getFarthestRoom(neighbours) : -1;
+        
+        // Rauminhalt: Floodfill-Quelle, Sulen, Patrouillenroute, Fokuspunkt und Entities
+        for(int room = 0; room < _roomCount; room++)
+        {
+            int originX = (room % columns) * pitch + 1;
+            int originZ = (room / columns) * pitch + 1;
+            int last = _roomSize - 1;
+            
+            // Sulen nur im Inneren auf ungeraden Positionen, damit Tren erreichbar und der Raum zusammenhngend bleiben
+            for(int z = 1; z < last; z += 2)
+            {
+                for(int x = 1; x < last; x += 2)
+                {
+                    if(random.nextDouble() < _wallDensity)
+                    {
+                        tiles[(originZ + z) * width + originX + x] = Tile.BRICK_WALL;
+                    }
+                }
+            }
+            
+            // Feste Markierungen auf den Eckfeldern, die nie von Sulen belegt werden
+            functions[originZ * width + originX] = Tile.ROOM_FLOODFILL;
+            if(room == 0)
+            {
+                functions[(originZ + last) * width + originX + last] = Tile.PLAYER_SPAWN_DOWN;
+            }
+            
+            // Freie Bodentiles fr Entities sammeln (Rand ausgenommen, dort liegen Markierungen und Trzugnge)
+            ArrayList<Integer> free = new ArrayList<Integer>();
+            for(int z = 1; z < last; z++)
+            {
+                for(int x = 1; x < last; x++)
+                {
+                    int index = (originZ + z) * width + originX + x;
+                    if(tiles[index] == Tile.DIRT_FLOOR && functions[index] == Tile.NONE)
+                    {
+                        free.add(index);
+                    }
+                }
+            }
+            Collections.shuffle(free, random);
+            
+            // Im Spawnraum werden keine Gegner platziert
+            int turrets = (room == 0) ? 0 : sampleCount(_turretsPerRoom, random);
+            int drones = (room == 0) ? 0 : sampleCount(_dronesPerRoom, random);
+            int pickups = sampleCount(_pickupsPerRoom, random);
+            
+            // Turrets bentigen einen Fokuspunkt, Drohnen eine Patrouillenroute entlang der Raumrnder
+            if(turrets > 0)
+            {
+                placeFunction(free, functions, Tile.TURRET_FOCUS_POINT);
+            }
+            if(drones > 0)
+            {
+                functions[originZ * width + originX + last] = Tile.PATROL_1;
+                functions[(originZ + last) * width + originX + last] = Tile.PATROL_2;
+                functions[(originZ + last) * width + originX] = Tile.PATROL_3;
+            }
+            for(int i = 0; i < turrets; i++)
+            {
+                placeFunction(free, functions, Tile.SPAWN_TURRET_ACTIVE);
+            }
+            for(int i = 0; i < drones; i++)
+            {
+                placeFunction(free, functions, Tile.SPAWN_DRONE);
+            }
+            for(int i = 0; i < pickups; i++)
+            {
+                placeFunction(free, functions, Tile.SPAWN_HEALTH_POWERUP);
+            }
+            if(room == reactorRoom)
+            {
+                placeFunction(free, functions, Tile.SPAWN_REACTOR_CORE);
+            }
+        }
+        
+        return new Pair<MapLayer, MapLayer>(new MapLayer(width, height, tiles), new MapLayer(width, height, functions));
+    }
+    
+    /**
+     * Gibt die Indizes der im Raster direkt benachbarten Rume zurck
+     * @param room Index des Raums
+     * @param columns Anzahl der Rasterspalten
+     * @return Liste der Nachbarrume
+     */
+    private ArrayList<Integer> getAdjacentRooms(int room, int columns)
+    {
+        ArrayList<Integer> result = new ArrayList<Integer>(4);
+        int column = room % columns;
+        if(column > 0)
+        {
+            result.add(room - 1);
+        }
+        if(column < columns - 1 && room + 1 < _roomCount)
+        {
+            result.add(room + 1);
+        }
+        if(room - columns >= 0)
+        {
+            result.add(room - columns);
+        }
+        if(room + columns < _roomCount)
+        {
+            result.add(room + columns);
+        }
+        return result;
+    }
+    
+    /**
+     * Setzt eine Tr in die Mitte der gemeinsamen Wand zweier benachbarter Rume
+     * @param room erster Raum
+     * @param other zweiter Raum (im Raster direkt benachbart)
+     * @param neighbours Adjazenzlisten der Trverbindungen
+     * @param tiles Tile-Werte der Map
+     * @param width Breite der Map
+     * @param columns Anzahl der Rasterspalten
+     * @param pitch Abstand zweier Rume im Raster
+     */
+    private void addDoor(int room, int other, ArrayList<ArrayList<Integer>> neighbours, int[] tiles, int width, int columns, int pitch)
+    {
+        int first = Math.min(room, other), second = Math.max(room, other);
+        int x, z;
+        if(second - first == 1 && second % columns != 0)
+        {
+            // Nebeneinander: Wand rechts vom ersten Raum
+            x = (first % columns + 1) * pitch;
+            z = (first / columns) * pitch + pitch / 2;
+        }
+        else
+        {
+            // bereinander: Wand unter dem ersten Raum
+            x = (first % columns) * pitch + pitch / 2;
+            z = (first / columns + 1) * pitch;
+        }
+        tiles[z * width + x] = Tile.WOODEN_DOOR;
+        neighbours.get(room).add(other);
+        neighbours.get(other).add(room);
+    }
+    
+    /**
+     * Bestimmt per Breitensuche den Raum mit den meisten Tren Abstand zu Raum 0
+     * @param neighbours Adjazenzlisten der Trverbindungen
+     * @return Index des am weitesten entfernten Raums
+     */
+    private int getFarthestRoom(ArrayList<ArrayList<Integer>> neighbours)
+    {
+        int[] distance = new int[_roomCount];
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        distance[0] = 0;
+        queue.add(0);
+        int farthest = 0;
+        while(!queue.isEmpty())
+        {
+            int room = queue.poll();
+            if(distance[room] > distance[farthest])
+            {
+                farthest = room;
+            }
+            for(int other : neighbours.get(room))
+            {
+                if(distance[other] == -1)
+                {
+                    distance[other] = distance[room] + 1;
+                    queue.add(other);
+                }
+            }
+        }
+        return farthest;
+    }
+    
+    /**
+     * Bestimmt eine zufllige Anzahl mit gegebenem Erwartungswert
+     * @param expected Erwartungswert (ganzzahliger Anteil plus Wahrscheinlichkeit fr eins mehr)
+     * @param random Zufallsgenerator
+     * @return Anzahl
+     */
+    private static int sampleCount(double expected, Random random)
+    {
+        int count = (int)Math.floor(expected);
+        if(random.nextDouble() < expected - count)
+        {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Belegt die nchste freie Bodentile mit einem Funktionswert. Ist der Raum voll, wird nichts platziert.
+     * @param free gemischte Liste freier Tile-Indizes
+     * @param functions Funktionswerte der Map
+     * @param value zu setzender Funktionswert
+     */
+    private static void placeFunction(ArrayList<Integer> free, int[] functions, int value)
+    {
+        if(!free.isEmpty())
+        {
+            functions[free.remove(free.size() - 1)] = value;
+        }
+    }
+    
+    /**
+     * Schreibt eine Mapebene im Format der Tiled-CSV-Exporte
+     * @param layer Mapebene
+     * @param filePath Zielpfad
+     */
+    private static void writeLayer(MapLayer layer, String filePath) throws IOException
+    {
+        try(BufferedWriter writer = new BufferedWriter(new FileWriter(filePath)))
+        {
+            int[] values = layer.getValues();
+            StringBuilder line = new StringBuilder();
+            for(int z = 0; z < layer.getHeight(); z++)
+            {
+                line.setLength(0);
+                for(int x = 0; x < layer.getWidth(); x++)
+                {
+                    if(x > 0)
+                    {
+                        line.append(',');
+                    }
+                    line.append(values[z * layer.getWidth() + x]);
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+    
+    /**
+     * Speichert eine Stress-Map in res/maps oder misst die Ladezeit fr 10 bis 10.000 Rume
+     * @param args Mapname und Raumanzahl, optional Seed; oder --benchmark, optional Seed
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if(args.length >= 1 && args[0].equals("--benchmark"))
+        {
+            long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0L;
+            runBenchmark(seed);
+            return;
+        }
+        
+        if(args.length < 2)
+        {
+            System.out.println("Usage: java util.StressMapGenerator <map name> <room count> [seed]");
+            System.out.println("       java util.StressMapGenerator --benchmark [seed]");
+            return;
+        }
+        
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 0L;
+        new StressMapGenerator(Integer.parseInt(args[1]), seed).save(Directory.MAP, args[0]);
+        System.out.println("Saved " + Directory.MAP + args[0] + MapHandler.TILE_LAYER_SUFFIX + " and " + MapHandler.FUNCTION_LAYER_SUFFIX);
+    }
+    
+    /**
+     * Speichert Stress-Maps mit steigender Raumanzahl und misst jeweils die Ladezeit ber den MapHandler.
+     * Gemessen werden das vollstndige Laden aus den CSV-Dateien, das vollstndige Laden aus dem kompilierten Level
+     * und das Streaming, bei dem nur die Rume um den Spawnpunkt erzeugt werden.
+     * Schlgt ein Ladeverfahren fehl (z.B. zu wenig Heap fr die grte Map), wird dies gemeldet und mit dem nchsten fortgefahren.
+     * @param seed Startwert des Zufallsgenerators
+     */
+    private static void runBenchmark(long seed) throws IOException
+    {
+        ResourceManager resourceManager = new ResourceManager();
+        MapHandler mapHandler = new MapHandler(resourceManager, new SoundEngine());
+        System.out.println("parallel room population: " + (Game.PARALLEL_ROOM_POPULATION ? "on" : "off"));
+        
+        for(int roomCount : BENCHMARK_ROOM_COUNTS)
+        {
+            String mapName = "stress_" + roomCount;
+            new StressMapGenerator(roomCount, seed).save(Directory.MAP, mapName);
+            
+            measureLoad(mapHandler, mapName, "full (csv)", false, false);
+            measureLoad(mapHandler, mapName, "full (level cache)", false, true);
+            measureLoad(mapHandler, mapName, "streamed", true, false);
+        }
+        if(mapHandler.getMap() != null)
+        {
+            mapHandler.getMap().dispose();
+        }
+    }
+    
+    /**
+     * Ldt eine Map mit einem bestimmten Ladeverfahren und gibt die Dauer des zweiten Ladevorgangs oder den Fehler aus
+     * @param mapHandler MapHandler, ber den geladen wird
+     * @param mapName Name der Map
+     * @param mode Bezeichnung des Ladeverfahrens fr die Ausgabe
+     * @param streaming wenn true, wird die Map gestreamt
+     * @param useLevelCache wenn true, wird das kompilierte Level verwendet
+     */
+    private static void measureLoad(MapHandler mapHandler, String mapName, String mode, boolean streaming, boolean useLevelCache)
+    {
+        // Erster Durchlauf ldt Meshes, legt ggf. das kompilierte Level an und wrmt den JIT auf
+        long duration;
+        try
+        {
+            mapHandler.load(mapName, streaming, useLevelCache);
+            long start = System.nanoTime();
+            mapHandler.load(mapName, streaming, useLevelCache);
+            duration = System.nanoTime() - start;
+        }
+        catch(RuntimeException | OutOfMemoryError e)
+        {
+            System.err.println(String.format("%s, %-19s failed: %s", mapName, mode + ":", e));
+            return;
+        }
+        
+        GridMap map = mapHandler.getMap();
+        int residentRooms = 0;
+        for(int i = 0; i < map.rooms.size(); i++)
+        {
+            if(map.isRoomResident(i))
+            {
+                residentRooms++;
+            }
+        }
+        System.out.println(String.format("%6d rooms, %-19s load %8.2f ms, %d doors, %d rooms resident", map.rooms.size(), mode + ":", duration / 1e6, map.doors.size(), residentRooms));
+    }
+}
@@ -3,77 +3,467 @@ package util;
 import maths.*;
 import core.*;
 import java.io.*;
-import javafx.util.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
 
 /**
- * Diese Klasse ldt 3D-Modelle im offenen Wavefront Object (.obj) Format als Line Meshes in die Engine
+ * Diese Klasse ldt 3D-Modelle im offenen Wavefront Object (.obj) Format als Line Meshes in die Engine.
+ * Die Datei wird als Byte-Array eingelesen und ohne String-Zerlegung direkt gescannt.
+ * Untersttzt werden v-, f- und l-Zeilen mit beliebigem Whitespace, relative (negative) Indizes,
+ * Flchen mit beliebig vielen Ecken und die Flchensyntax v/vt/vn.
+ * Beim Import werden doppelte Vertices verschweit und von mehreren Flchen geteilte Kanten nur einmal gespeichert.
+ * Die Puffer des Parsers werden zwischen Aufrufen wiederverwendet, weshalb eine Instanz nicht threadsicher ist.
  * 
  * @author Lasse Huber-Saffer 
- * @version 02.12.2021
+ * @version 11.01.2022
  */
 public class WavefrontObjectLoader
 {
     /**
-     * Ldt ein Mesh (3D-Modell) aus einer Wavefront Object (.obj)-Datei an einem gegebenen Pfad
+     * Standard-Toleranz, bis zu der Vertices beim Import verschweit werden
+     */
+    public static final double DEFAULT_WELD_EPSILON = 1e-6;
+    
+    // Exakt darstellbare Zehnerpotenzen fr die schnelle Gleitkomma-Umwandlung
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    
+    private MeshOptimizer _optimizer;
+    private double _weldEpsilon;
+    private boolean _removeCoplanarEdges;
+    
+    // Wiederverwendete Parserpuffer
+    private byte[] _data;
+    private int _length;
+    private int _pos;
+    private double[] _positions = new double[3 * 256];
+    private int _positionCount;
+    private int[] _faceIndices = new int[1024];
+    private int _faceIndexCount;
+    private int[] _faceStarts = new int[256];
+    private int _faceCount;
+    private int[] _lines = new int[1024];
+    private int _lineCount;
+    
+    /**
+     * Konstruktor fr Objekte der Klasse WavefrontObjectLoader.
+     * Verschweit Vertices mit DEFAULT_WELD_EPSILON und behlt Kanten zwischen koplanaren Flchen.
+     */
+    public WavefrontObjectLoader()
+    {
+        this(DEFAULT_WELD_EPSILON, false);
+    }
+    
+    /**
+     * Konstruktor fr Objekte der Klasse WavefrontObjectLoader
+     * @param weldEpsilon maximaler Abstand pro Achse, bis zu dem Vertices verschweit werden
+     * @param removeCoplanarEdges wenn true, werden Kanten zwischen zwei koplanaren Flchen (z.B. Triangulierungsdiagonalen) entfernt
+     */
+    public WavefrontObjectLoader(double weldEpsilon, boolean removeCoplanarEdges)
+    {
+        _optimizer = new MeshOptimizer(weldEpsilon, removeCoplanarEdges);
+        _weldEpsilon = weldEpsilon;
+        _removeCoplanarEdges = removeCoplanarEdges;
+    }
+    
+    /**
+     * Gibt einen Kennwert der Importeinstellungen zurck, mit dem zwischengespeicherte Meshes auf Aktualitt geprft werden knnen
+     * @return Kennwert der Einstellungen
+     */
+    public long getSettingsHash()
+    {
+        return Double.doubleToLongBits(_weldEpsilon) * 31 + (_removeCoplanarEdges ? 1 : 0);
+    }
+    
+    /**
+     * Ldt ein Mesh (3D-Modell) aus einer Wavefront Object (.obj)-Datei an einem gegebenen Pfad.
+     * Kann die Datei nicht gelesen oder geparst werden, wird kein unvollstndiges Mesh erstellt, sondern eine Exception geworfen.
      * @param filePath Pfad der zu ladenden Datei
      * @return Aus der Datei geladenes Mesh
+     * @throws RuntimeException wenn die Datei nicht gelesen oder geparst werden kann
      */
     public Mesh loadFromFile(String filePath)
     {
-        // Leeres Mesh erstellen
-        Mesh result = new Mesh();
+        reset();
         
         // Versucht die Datei beim gegebenen Pfad zu finden und ein Mesh daraus auszulesen
         try
         {
-            FileInputStream fstream = new FileInputStream(filePath);
-
-            DataInputStream in = new DataInputStream(fstream);
-            BufferedReader br = new BufferedReader(new InputStreamReader(in));
-            String strLine;
-
-            while ((strLine = br.readLine()) != null)
+            byte[] data = Files.readAllBytes(Paths.get(filePath));
+            parse(data, data.length);
+        }
+        catch (Exception e)
+        {
+            reset();
+            throw new RuntimeException("Failed to load mesh " + filePath, e);
+        }
+        
+        return buildMesh();
+    }
+    
+    /**
+     * Liest die Geometrie einer .obj-Datei aus einem Byte-Array in die Parserpuffer.
+     * Bei einem Fehler bleibt die bis dahin gelesene Geometrie erhalten.
+     * @param data Inhalt der Datei
+     * @param length Anzahl der gltigen Bytes in data
+     */
+    public void parse(byte[] data, int length)
+    {
+        reset();
+        _data = data;
+        _length = length;
+        _pos = 0;
+        
+        try
+        {
+            while(_pos < _length)
             {
+                skipWhitespace();
+                if(_pos >= _length)
+                {
+                    break;
+                }
                 
-                String[] segments = strLine.split(" ");
-                if(segments[0].equals("v")) {
-                    result.vertices.add(new Vector3(Double.parseDouble(segments[1]), Double.parseDouble(segments[2]), Double.parseDouble(segments[3])));
+                byte c = _data[_pos];
+                boolean keywordEnds = _pos + 1 >= _length || isWhitespace(_data[_pos + 1]) || isLineEnd(_data[_pos + 1]);
+                if(c == 'v' && keywordEnds)
+                {
+                    _pos++;
+                    parseVertex();
                 }
-                else if(segments[0].equals("f"))
+                else if(c == 'f' && keywordEnds)
                 {
-                    // Triangle
-                    if(segments.length == 4)
-                    {
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[1]), Integer.parseInt(segments[2])));
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[2]), Integer.parseInt(segments[3])));
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[3]), Integer.parseInt(segments[1])));
-                    }
-                    // Quad
-                    else if(segments.length == 5)
-                    {
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[1]), Integer.parseInt(segments[2])));
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[2]), Integer.parseInt(segments[3])));
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[3]), Integer.parseInt(segments[4])));
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[4]), Integer.parseInt(segments[1])));
-                    }
+                    _pos++;
+                    parseFace();
                 }
-                else if(segments[0].equals("l"))
+                else if(c == 'l' && keywordEnds)
                 {
-                    // Edge
-                    if(segments.length == 3)
-                    {
-                        result.lineIndices.add(new Pair<Integer, Integer>(Integer.parseInt(segments[1]), Integer.parseInt(segments[2])));
-                    }
+                    _pos++;
+                    parseLine();
                 }
+                
+                skipLine();
             }
-
-            in.close();
         }
-        catch (Exception e)
+        finally
+        {
+            _data = null;
+        }
+    }
+    
+    /**
+     * Erstellt aus dem Inhalt der Parserpuffer ein optimiertes Mesh
+     * @return Mesh der zuletzt gelesenen Datei
+     */
+    public Mesh buildMesh()
+    {
+        return _optimizer.buildMesh(
+            Arrays.copyOf(_positions, _positionCount * 3),
+            Arrays.copyOf(_faceIndices, _faceIndexCount),
+            faceStartsWithEnd(),
+            Arrays.copyOf(_lines, _lineCount * 2)
+        );
+    }
+    
+    /**
+     * Gibt die Anzahl der zuletzt gelesenen Vertices zurck
+     * @return Anzahl der Vertices
+     */
+    public int getParsedVertexCount()
+    {
+        return _positionCount;
+    }
+    
+    /**
+     * Gibt die Anzahl der zuletzt gelesenen Flchen zurck
+     * @return Anzahl der Flchen
+     */
+    public int getParsedFaceCount()
+    {
+        return _faceCount;
+    }
+    
+    /**
+     * Gibt die Anzahl der zuletzt gelesenen Liniensegmente zurck
+     * @return Anzahl der Liniensegmente
+     */
+    public int getParsedLineCount()
+    {
+        return _lineCount;
+    }
+    
+    /**
+     * Leert die Parserpuffer, ohne ihren Speicher freizugeben
+     */
+    private void reset()
+    {
+        _positionCount = 0;
+        _faceIndexCount = 0;
+        _faceCount = 0;
+        _lineCount = 0;
+    }
+    
+    /**
+     * Liest die drei Koordinaten einer v-Zeile
+     */
+    private void parseVertex()
+    {
+        if(_positions.length < (_positionCount + 1) * 3)
+        {
+            _positions = Arrays.copyOf(_positions, _positions.length * 2);
+        }
+        
+        int base = _positionCount * 3;
+        for(int i = 0; i < 3; i++)
+        {
+            skipWhitespace();
+            _positions[base + i] = parseDouble();
+        }
+        _positionCount++;
+    }
+    
+    /**
+     * Liest die Eckindizes einer f-Zeile als Flche
+     */
+    private void parseFace()
+    {
+        int start = _faceIndexCount;
+        while(nextToken())
+        {
+            if(_faceIndices.length <= _faceIndexCount)
+            {
+                _faceIndices = Arrays.copyOf(_faceIndices, _faceIndices.length * 2);
+            }
+            _faceIndices[_faceIndexCount++] = parseIndex();
+        }
+        
+        // Flchen mit weniger als drei Ecken werden verworfen
+        if(_faceIndexCount - start < 3)
+        {
+            _faceIndexCount = start;
+            return;
+        }
+        
+        if(_faceStarts.length <= _faceCount + 1)
+        {
+            _faceStarts = Arrays.copyOf(_faceStarts, _faceStarts.length * 2);
+        }
+        _faceStarts[_faceCount++] = start;
+    }
+    
+    /**
+     * Liest die Indizes einer l-Zeile als Polylinie aus aufeinanderfolgenden Segmenten
+     */
+    private void parseLine()
+    {
+        int previous = -1;
+        while(nextToken())
         {
-            System.err.println("Error: " + e.getMessage());
+            int index = parseIndex();
+            if(previous != -1)
+            {
+                if(_lines.length < (_lineCount + 1) * 2)
+                {
+                    _lines = Arrays.copyOf(_lines, _lines.length * 2);
+                }
+                _lines[_lineCount * 2] = previous;
+                _lines[_lineCount * 2 + 1] = index;
+                _lineCount++;
+            }
+            previous = index;
+        }
+    }
+    
+    /**
+     * Liest einen Vertexverweis (v, v/vt, v//vn oder v/vt/vn) und gibt den nullbasierten Vertexindex zurck.
+     * Negative Indizes beziehen sich auf die bisher gelesenen Vertices.
+     * @return nullbasierter Vertexindex
+     */
+    private int parseIndex()
+    {
+        int index = parseInt();
+        
+        // Textur- und Normalenindizes berspringen
+        while(_pos < _length && !isWhitespace(_data[_pos]) && !isLineEnd(_data[_pos]))
+        {
+            _pos++;
+        }
+        
+        return (index < 0) ? _positionCount + index : index - 1;
+    }
+    
+    /**
+     * berspringt Whitespace und prft, ob in der aktuellen Zeile ein weiteres Token folgt
+     * @return true, wenn ein Token folgt
+     */
+    private boolean nextToken()
+    {
+        skipWhitespace();
+        return _pos < _length && !isLineEnd(_data[_pos]) && _data[_pos] != '#';
+    }
+    
+    /**
+     * Liest eine Ganzzahl mit optionalem Vorzeichen
+     * @return gelesene Zahl
+     */
+    private int parseInt()
+    {
+        boolean negative = false;
+        if(_pos < _length && (_data[_pos] == '-' || _data[_pos] == '+'))
+        {
+            negative = _data[_pos] == '-';
+            _pos++;
+        }
+        
+        int start = _pos;
+        int value = 0;
+        while(_pos < _length && _data[_pos] >= '0' && _data[_pos] <= '9')
+        {
+            value = value * 10 + (_data[_pos] - '0');
+            _pos++;
+        }
+        if(_pos == start)
+        {
+            throw new NumberFormatException("expected integer at byte " + _pos);
+        }
+        
+        return negative ? -value : value;
+    }
+    
+    /**
+     * Liest eine Gleitkommazahl (mit optionalem Vorzeichen, Nachkommastellen und Exponent).
+     * Zahlen mit bis zu 15 signifikanten Stellen und kleinem Exponenten werden exakt direkt berechnet,
+     * alle anderen ber Double.parseDouble, sodass das Ergebnis stets identisch ist.
+     * @return gelesene Zahl
+     */
+    private double parseDouble()
+    {
+        int start = _pos;
+        boolean negative = false;
+        if(_pos < _length && (_data[_pos] == '-' || _data[_pos] == '+'))
+        {
+            negative = _data[_pos] == '-';
+            _pos++;
+        }
+        
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean anyDigit = false;
+        
+        // Vorkommastellen (fhrende Nullen zhlen nicht als signifikant)
+        while(_pos < _length && _data[_pos] >= '0' && _data[_pos] <= '9')
+        {
+            if(digits < 18)
+            {
+                mantissa = mantissa * 10 + (_data[_pos] - '0');
+                if(mantissa != 0) digits++;
+            }
+            else
+            {
+                exponent++;
+                digits++;
+            }
+            anyDigit = true;
+            _pos++;
         }
         
+        // Nachkommastellen
+        if(_pos < _length && _data[_pos] == '.')
+        {
+            _pos++;
+            while(_pos < _length && _data[_pos] >= '0' && _data[_pos] <= '9')
+            {
+                if(digits < 18)
+                {
+                    mantissa = mantissa * 10 + (_data[_pos] - '0');
+                    if(mantissa != 0) digits++;
+                    exponent--;
+                }
+                else
+                {
+                    digits++;
+                }
+                anyDigit = true;
+                _pos++;
+            }
+        }
+        if(!anyDigit)
+        {
+            throw new NumberFormatException("expected number at byte " + start);
+        }
+        
+        // Exponent
+        if(_pos < _length && (_data[_pos] == 'e' || _data[_pos] == 'E'))
+        {
+            _pos++;
+            exponent += parseInt();
+        }
+        
+        // Schneller, exakter Weg: Mantisse und Zehnerpotenz sind als double exakt darstellbar
+        if(digits <= 15 && exponent >= -22 && exponent <= 22)
+        {
+            double value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        
+        // Seltener Fall: Standardumwandlung des gelesenen Abschnitts
+        return Double.parseDouble(new String(_data, start, _pos - start, StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * berspringt Leerzeichen, Tabulatoren und Wagenrcklufe innerhalb einer Zeile
+     */
+    private void skipWhitespace()
+    {
+        while(_pos < _length && isWhitespace(_data[_pos]))
+        {
+            _pos++;
+        }
+    }
+    
+    /**
+     * Springt an den Anfang der nchsten Zeile
+     */
+    private void skipLine()
+    {
+        while(_pos < _length && _data[_pos] != '\n')
+        {
+            _pos++;
+        }
+        _pos++;
+    }
+    
+    /**
+     * Gibt die Startindizes der Flchen mit abschlieendem Endindex zurck
+     * @return Array mit Flchenanzahl + 1 Eintrgen
+     */
+    private int[] faceStartsWithEnd()
+    {
+        int[] result = Arrays.copyOf(_faceStarts, _faceCount + 1);
+        result[_faceCount] = _faceIndexCount;
         return result;
     }
+    
+    /**
+     * Prft, ob ein Byte Whitespace innerhalb einer Zeile ist
+     * @param c Byte
+     * @return true fr Leerzeichen, Tabulator und Wagenrcklauf
+     */
+    private static boolean isWhitespace(byte c)
+    {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+    
+    /**
+     * Prft, ob ein Byte eine Zeile beendet
+     * @param c Byte
+     * @return true fr einen Zeilenumbruch
+     */
+    private static boolean isLineEnd(byte c)
+    {
+        return c == '\n';
+    }
 }